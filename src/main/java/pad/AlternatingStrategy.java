@@ -0,0 +1,71 @@
+/**
+ *	@file AlternatingStrategy.java
+ *	@brief The Alternating Algorithm: repeat Large-Star and Small-Star until convergence.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import pad.StarDriver.StarDriverType;
+
+/**
+ * The Alternating Algorithm: repeat Large-Star and Small-Star until convergence.
+ * Each iteration is made of a Large-Star followed by a Small-Star, and the graph has converged
+ * when both the operations of an iteration do not produce changes.
+ */
+public class AlternatingStrategy implements ConvergenceStrategy
+{
+	private StarDriverType last;
+	private long largeChanges;
+	
+	/** Prepare the strategy for a new execution, starting from the first operation. */
+	public void reset()
+	{
+		this.last = null;
+		this.largeChanges = 0;
+	}
+	
+	/**
+	* Return the next operation to execute, alternating Large-Star and Small-Star.
+	* @param changes	number of changes produced by the previous operation.
+	* @return 			the type of the next \see StarDriver Job, or <c>null</c> if the graph has converged.
+	*/
+	public StarDriverType nextOperation( long changes )
+	{
+		if ( this.last == StarDriverType.LARGE )
+		{
+			this.largeChanges = changes;
+			this.last = StarDriverType.SMALL;
+		}
+		else if ( this.last == StarDriverType.SMALL && this.largeChanges + changes == 0 )
+			this.last = null;
+		else
+			this.last = StarDriverType.LARGE;
+		
+		return this.last;
+	}
+	
+	/**
+	* Return <c>true</c> if the operation last returned by \see nextOperation is the Small-Star.
+	* @return 			<c>true</c> if the operation ends an iteration, <c>false</c> otherwise.
+	*/
+	public boolean endsIteration()
+	{
+		return this.last == StarDriverType.SMALL;
+	}
+}
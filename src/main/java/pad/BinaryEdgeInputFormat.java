@@ -0,0 +1,219 @@
+/**
+ *	@file BinaryEdgeInputFormat.java
+ *	@brief Input format that reads the edges list stored as fixed-width binary pairs of little-endian integers or longs.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+/**
+ * Input format that reads the edges list stored as fixed-width binary pairs of little-endian integers,
+ * i.e. a sequence of records of 8 bytes: <NodeID><NeighbourID>; if the <em>binary.edges.long</em> variable is set,
+ * the identifiers are little-endian longs and the records have 16 bytes.
+ * The 32-bit identifiers are unsigned, so they reach 2^32-2, while 0xFFFFFFFF is the minus one that marks an alone node.
+ * The files are split as usual by the FileInputFormat; since the records have a fixed width,
+ * each split begins from the first record that starts inside it and reads all the records that start inside it,
+ * so every record is read by exactly one Map task without any synchronization marker.
+ */
+public class BinaryEdgeInputFormat extends FileInputFormat<NodeWritable, NodeWritable>
+{
+	/** Name of the configuration property that tells if the identifiers are 64-bit longs. */
+	public static final String LONG_IDS = "binary.edges.long";
+	/** Size in bytes of a record of 32-bit identifiers. */
+	public static final int RECORD_SIZE = 8;
+	/** Size in bytes of a record of 64-bit identifiers. */
+	public static final int LONG_RECORD_SIZE = 16;
+
+	/**
+	 * Create the RecordReader of a split.
+	 * @param split		the split to read.
+	 * @param context	context of the task.
+	 * @return 			the RecordReader.
+	 */
+	public RecordReader<NodeWritable, NodeWritable> createRecordReader( InputSplit split, TaskAttemptContext context )
+	{
+		return new BinaryEdgeRecordReader();
+	}
+
+	/**	RecordReader that reads the records of a split of a binary edges list. */
+	public static class BinaryEdgeRecordReader extends RecordReader<NodeWritable, NodeWritable>
+	{
+		/** Number of records read from the file at once. */
+		private static final int BUFFER_RECORDS = 8192;
+
+		private FSDataInputStream in;
+		private long start, position, end;
+		private int recordSize;
+		private byte[] buffer;
+		private int bufferOffset = 0, bufferLength = 0;
+		private NodeWritable nodeID = new NodeWritable();
+		private NodeWritable neighbourID = new NodeWritable();
+
+		/**
+		 * Open the file of the split and move to the first record that starts inside it.
+		 * @param genericSplit	the split to read.
+		 * @param context		context of the task.
+		 * @throws IOException
+		 */
+		public void initialize( InputSplit genericSplit, TaskAttemptContext context ) throws IOException
+		{
+			FileSplit split = (FileSplit) genericSplit;
+			Configuration conf = context.getConfiguration();
+			Path file = split.getPath();
+			FileSystem fs = file.getFileSystem( conf );
+
+			this.recordSize = conf.getBoolean( LONG_IDS, false ) ? LONG_RECORD_SIZE : RECORD_SIZE;
+			this.buffer = new byte[BUFFER_RECORDS * this.recordSize];
+
+			// Align the split to the record boundaries, ignoring the truncated record at the end of the file.
+			long length = fs.getFileStatus( file ).getLen();
+			this.start = ( ( split.getStart() + this.recordSize - 1 ) / this.recordSize ) * this.recordSize;
+			this.end = Math.min( split.getStart() + split.getLength(), ( length / this.recordSize ) * this.recordSize );
+			this.position = this.start;
+
+			this.in = fs.open( file );
+			this.in.seek( this.start );
+		}
+
+		/**
+		 * Read the next record.
+		 * @return 		<c>true</c> if a record has been read, <c>false</c> at the end of the split.
+		 * @throws IOException
+		 */
+		public boolean nextKeyValue() throws IOException
+		{
+			if ( this.position >= this.end )
+				return false;
+
+			if ( this.bufferOffset == this.bufferLength )
+			{
+				// The last record of the split can end after the split, but never after the file.
+				long remaining = ( ( this.end - this.position + this.recordSize - 1 ) / this.recordSize ) * this.recordSize;
+				this.bufferLength = (int) Math.min( this.buffer.length, remaining );
+				try
+				{
+					this.in.readFully( this.buffer, 0, this.bufferLength );
+				}
+				catch ( EOFException e )
+				{
+					throw new IOException( "Truncated binary edges list at offset " + this.position, e );
+				}
+				this.bufferOffset = 0;
+			}
+
+			if ( this.recordSize == LONG_RECORD_SIZE )
+			{
+				this.nodeID.set( readLittleEndianLong( this.buffer, this.bufferOffset ) );
+				this.neighbourID.set( readLittleEndianLong( this.buffer, this.bufferOffset + 8 ) );
+			}
+			else
+			{
+				this.nodeID.set( readUnsignedID( this.buffer, this.bufferOffset ) );
+				this.neighbourID.set( readUnsignedID( this.buffer, this.bufferOffset + 4 ) );
+			}
+			this.bufferOffset += this.recordSize;
+			this.position += this.recordSize;
+			return true;
+		}
+
+		/**
+		 * Decode a little-endian integer.
+		 * @param bytes		the bytes.
+		 * @param offset	offset of the integer inside <em>bytes</em>.
+		 * @return 			the integer.
+		 */
+		private static int readLittleEndianInt( byte[] bytes, int offset )
+		{
+			return ( bytes[offset] & 0xFF ) | ( ( bytes[offset + 1] & 0xFF ) << 8 )
+					| ( ( bytes[offset + 2] & 0xFF ) << 16 ) | ( bytes[offset + 3] << 24 );
+		}
+
+		/**
+		 * Decode a 32-bit identifier as an unsigned little-endian integer, except 0xFFFFFFFF that is minus one.
+		 * @param bytes		the bytes.
+		 * @param offset	offset of the identifier inside <em>bytes</em>.
+		 * @return 			the identifier.
+		 */
+		private static long readUnsignedID( byte[] bytes, int offset )
+		{
+			long value = readLittleEndianInt( bytes, offset ) & 0xFFFFFFFFL;
+			return ( value == 0xFFFFFFFFL ) ? -1 : value;
+		}
+
+		/**
+		 * Decode a little-endian long.
+		 * @param bytes		the bytes.
+		 * @param offset	offset of the long inside <em>bytes</em>.
+		 * @return 			the long.
+		 */
+		private static long readLittleEndianLong( byte[] bytes, int offset )
+		{
+			return ( readLittleEndianInt( bytes, offset ) & 0xFFFFFFFFL ) | ( (long) readLittleEndianInt( bytes, offset + 4 ) << 32 );
+		}
+
+		/**
+		 * Return the node of the current record.
+		 * @return 		the node identifier.
+		 */
+		public NodeWritable getCurrentKey()
+		{
+			return this.nodeID;
+		}
+
+		/**
+		 * Return the neighbour of the current record.
+		 * @return 		the neighbour identifier.
+		 */
+		public NodeWritable getCurrentValue()
+		{
+			return this.neighbourID;
+		}
+
+		/**
+		 * Return the fraction of the split already read.
+		 * @return 		the progress, between zero and one.
+		 */
+		public float getProgress()
+		{
+			return ( this.end <= this.start ) ? 1.0f : Math.min( 1.0f, ( this.position - this.start ) / (float) ( this.end - this.start ) );
+		}
+
+		/**
+		 * Close the file.
+		 * @throws IOException
+		 */
+		public void close() throws IOException
+		{
+			if ( this.in != null )
+				this.in.close();
+		}
+	}
+}
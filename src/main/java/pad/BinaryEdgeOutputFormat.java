@@ -0,0 +1,132 @@
+/**
+ *	@file BinaryEdgeOutputFormat.java
+ *	@brief Output format that writes the edges list as fixed-width binary pairs of little-endian integers or longs.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+/**
+ * Output format that writes the edges list in the format read by \see BinaryEdgeInputFormat:
+ * records of 8 bytes made of two little-endian integers, or of 16 bytes made of two little-endian longs
+ * if the <em>binary.edges.long</em> variable is set. A node identifier that does not fit the record is an error.
+ */
+public class BinaryEdgeOutputFormat extends FileOutputFormat<NodeWritable, NodeWritable>
+{
+	/**
+	 * Create the RecordWriter of a task, that writes into the default work file of the task.
+	 * @param context	context of the task.
+	 * @return 			the RecordWriter.
+	 * @throws IOException
+	 */
+	public RecordWriter<NodeWritable, NodeWritable> getRecordWriter( TaskAttemptContext context ) throws IOException
+	{
+		Configuration conf = context.getConfiguration();
+		Path file = getDefaultWorkFile( context, "" );
+		FSDataOutputStream out = file.getFileSystem( conf ).create( file, false );
+		return new BinaryEdgeRecordWriter( out, conf.getBoolean( BinaryEdgeInputFormat.LONG_IDS, false ) );
+	}
+
+	/**	RecordWriter that writes the records of a binary edges list. */
+	public static class BinaryEdgeRecordWriter extends RecordWriter<NodeWritable, NodeWritable>
+	{
+		/** Number of records written into the file at once. */
+		private static final int BUFFER_RECORDS = 8192;
+
+		private final FSDataOutputStream out;
+		private final boolean longIDs;
+		private final byte[] buffer;
+		private int bufferLength = 0;
+
+		/**
+		 * Initializes a new instance of the BinaryEdgeRecordWriter class.
+		 * @param out		the stream of the file.
+		 * @param longIDs	<c>true</c> in order to write 64-bit identifiers, <c>false</c> for 32-bit identifiers.
+		 */
+		public BinaryEdgeRecordWriter( FSDataOutputStream out, boolean longIDs )
+		{
+			this.out = out;
+			this.longIDs = longIDs;
+			this.buffer = new byte[BUFFER_RECORDS * ( longIDs ? BinaryEdgeInputFormat.LONG_RECORD_SIZE : BinaryEdgeInputFormat.RECORD_SIZE )];
+		}
+
+		/**
+		 * Write a record.
+		 * @param nodeID		first node of the edge.
+		 * @param neighbourID	second node of the edge, or minus one if the node is alone.
+		 * @throws IOException
+		 */
+		public void write( NodeWritable nodeID, NodeWritable neighbourID ) throws IOException
+		{
+			if ( this.bufferLength == this.buffer.length )
+				flush();
+			writeNode( nodeID.get() );
+			writeNode( neighbourID.get() );
+		}
+
+		/**
+		 * Append a little-endian identifier to the buffer.
+		 * @param value		the identifier.
+		 * @throws IOException
+		 */
+		private void writeNode( long value ) throws IOException
+		{
+			// The 32-bit identifiers are unsigned, and minus one is written as 0xFFFFFFFF.
+			if ( !this.longIDs && ( value < -1 || value >= 0xFFFFFFFFL ) )
+				throw new IOException( "Node identifier " + value + " does not fit a record of 32-bit identifiers" );
+			for ( int i = 0, size = this.longIDs ? 8 : 4; i < size; i++ )
+				this.buffer[this.bufferLength++] = (byte) ( value >>> ( 8 * i ) );
+		}
+
+		/**
+		 * Write the buffered records into the file.
+		 * @throws IOException
+		 */
+		private void flush() throws IOException
+		{
+			this.out.write( this.buffer, 0, this.bufferLength );
+			this.bufferLength = 0;
+		}
+
+		/**
+		 * Write the remaining records and close the file.
+		 * @param context	context of the task.
+		 * @throws IOException
+		 */
+		public void close( TaskAttemptContext context ) throws IOException
+		{
+			try
+			{
+				flush();
+			}
+			finally
+			{
+				this.out.close();
+			}
+		}
+	}
+}
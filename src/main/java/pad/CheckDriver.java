@@ -25,7 +25,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -40,6 +39,7 @@ public class CheckDriver extends Configured implements Tool
 {	
 	private final Path input;
 	private final boolean verbose;
+	private JobReport report;
 	private boolean testOk;
 	
 	/**
@@ -67,7 +67,7 @@ public class CheckDriver extends Configured implements Tool
 		Job job = new Job( conf, "CheckDriver" );
 		job.setJarByClass( CheckDriver.class );
 		
-		job.setMapOutputKeyClass( IntWritable.class );
+		job.setMapOutputKeyClass( NodeWritable.class );
 		job.setMapOutputValueClass( NullWritable.class );
 		job.setOutputKeyClass( NullWritable.class );
 		job.setOutputValueClass( NullWritable.class );
@@ -81,8 +81,10 @@ public class CheckDriver extends Configured implements Tool
 		FileInputFormat.addInputPath( job, this.input );
 		FileOutputFormat.setOutputPath( job, this.input.suffix("_check") );
 		
+		long start = System.currentTimeMillis();
 		if ( !job.waitForCompletion( verbose ) )
 			return 1;
+		this.report = new JobReport( job, System.currentTimeMillis() - start );
 		
 		// Set up the private variable looking to the counter value
 		this.testOk = ( job.getCounters().findCounter( UtilCounters.NUM_ERRORS ).getValue() == 0 );
@@ -103,6 +105,15 @@ public class CheckDriver extends Configured implements Tool
 		return this.testOk;
 	}
 	
+	/**
+	 * Return the performance report of the Job.
+	 * @return 	the report of the Job.
+	 */
+	public JobReport getReport()
+	{
+		return this.report;
+	}
+	
 	/**
 	 * Main of the \see CheckDriver class.
 	 * @param args	array of external arguments,
@@ -23,15 +23,14 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /**	Mapper task of the \see CheckDriver Job. */
-public class CheckMapper extends Mapper<ClusterWritable, NullWritable, IntWritable, NullWritable> 
+public class CheckMapper extends Mapper<ClusterWritable, NullWritable, NodeWritable, NullWritable> 
 {
 	private static final NullWritable NULL = NullWritable.get();
-	private IntWritable nodeID = new IntWritable();
+	private NodeWritable nodeID = new NodeWritable();
 	
 	/**
 	* Map method of the this CheckMapper class.
@@ -43,9 +42,9 @@ public class CheckMapper extends Mapper<ClusterWritable, NullWritable, IntWritab
 	*/
 	public void map( ClusterWritable cluster, NullWritable _, Context context ) throws IOException, InterruptedException 
 	{
-		for ( Integer node : cluster )
+		for ( int i = 0; i < cluster.size(); i++ )
 		{
-			nodeID.set( node );
+			nodeID.set( cluster.get( i ) );
 			context.write( nodeID, NULL);
 		}
 	}
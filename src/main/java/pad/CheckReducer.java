@@ -24,14 +24,13 @@ package pad;
 import java.io.IOException;
 import java.util.Iterator;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Reducer;
 
 import pad.UtilCounters;
 
 /**	Reducer task of the \see CheckDriver Job. */
-public class CheckReducer extends Reducer<IntWritable, NullWritable, NullWritable, NullWritable> 
+public class CheckReducer extends Reducer<NodeWritable, NullWritable, NullWritable, NullWritable> 
 {
 	/**
 	* Reduce method of the this CheckReducer class.
@@ -42,7 +41,7 @@ public class CheckReducer extends Reducer<IntWritable, NullWritable, NullWritabl
 	* @param context	context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void reduce( IntWritable nodeID, Iterable<NullWritable> values, Context context ) throws IOException, InterruptedException 
+	public void reduce( NodeWritable nodeID, Iterable<NullWritable> values, Context context ) throws IOException, InterruptedException 
 	{
 		// Count the number of times the nodeID is present inside the various clusters
 		int count = 0;
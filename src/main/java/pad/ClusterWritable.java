@@ -24,28 +24,173 @@ package pad;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
-/**	Data structure used to write a cluster on hdfs files. */
-public class ClusterWritable extends ArrayList<Integer> implements Writable
+/**
+ * Data structure used to write a cluster on hdfs files.
+ * The encoding is chosen for each cluster and it is announced by the first byte:
+ * - SORTED, if the nodes are in strictly ascending order, as the clusters emitted by \see TerminationReducer:
+ *	 the nodes are grouped in containers that share the upper 16 bits, and each container is written
+ *	 as the variable-length deltas of its lower bits or, when its nodes are dense, as a bitmap of their range;
+ * - DELTAS, if the nodes are in strictly ascending order but too sparse to share the containers:
+ *	 the nodes are written as the variable-length deltas between consecutive nodes;
+ * - PLAIN, otherwise: the nodes are written as variable-length longs, in their order.
+ * The first byte of the old encoding, i.e. the upper byte of the number of nodes as 4-byte integer, is always
+ * smaller than the tags, so the clusters written before the compact encoding can still be read; the variable-length
+ * integers of the clusters written before the 64-bit identifiers are also valid variable-length longs.
+ * The nodes are stored in a growable array of primitive longs, which is reused by readFields,
+ * so reading and writing a cluster does not allocate an object for each node.
+ */
+public class ClusterWritable implements Writable
 {
-	private static final long serialVersionUID = 1L;
+	/** Tag of the clusters written as a list of variable-length longs. */
+	private static final int PLAIN = 0x80;
+	/** Tag of the clusters written as containers of deltas or bitmaps. */
+	private static final int SORTED = 0x81;
+	/** Tag of the sorted clusters written as variable-length deltas. */
+	private static final int DELTAS = 0x82;
+	/** Kind of a container written as variable-length deltas. */
+	private static final int DELTA = 0;
+	/** Kind of a container written as a bitmap. */
+	private static final int BITMAP = 1;
+	/** Number of lower bits of the nodes stored in a container. */
+	private static final int CONTAINER_BITS = 16;
 	
-	/**	Array of nodes that make up the cluster */
-	public ArrayList<Integer> Cluster = new ArrayList<Integer>();
+	/**	Array of nodes that make up the cluster, only the first <em>size</em> are valid. */
+	private long[] nodes;
+	/**	Number of nodes of the cluster. */
+	private int size = 0;
+	/** Buffer of the bitmap containers, reused between the calls. */
+	private byte[] bitmap = null;
 	
 	/** Creates an ClusterWritable object. */
 	public ClusterWritable()
 	{
-		super();
+		this( 16 );
 	}
-
-	/** Creates an ClusterWritable object from an ArrayList. */
-	public ClusterWritable( ArrayList<Integer> array )
+	
+	/**
+	* Creates an ClusterWritable object with the given initial capacity.
+	* @param capacity	number of nodes that can be added before growing the array.
+	*/
+	public ClusterWritable( int capacity )
+	{
+		this.nodes = new long[Math.max( capacity, 1 )];
+	}
+	
+	/**
+	* Return the number of nodes of the cluster.
+	* @return	number of nodes.
+	*/
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	* Return <c>true</c> if the cluster has no nodes.
+	* @return	<c>true</c> if the cluster is empty, <c>false</c> otherwise.
+	*/
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+	
+	/**
+	* Return the i-th node of the cluster.
+	* @param i		position of the node.
+	* @return		the node identifier.
+	*/
+	public long get( int i )
+	{
+		if ( i >= this.size )
+			throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + this.size );
+		return this.nodes[i];
+	}
+	
+	/**
+	* Replace the i-th node of the cluster.
+	* @param i		position of the node.
+	* @param node	the new node identifier.
+	*/
+	public void set( int i, long node )
+	{
+		if ( i >= this.size )
+			throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + this.size );
+		this.nodes[i] = node;
+	}
+	
+	/**
+	* Append a node to the cluster, growing the array if it is full.
+	* @param node	node identifier.
+	*/
+	public void add( long node )
+	{
+		if ( this.size == this.nodes.length )
+			this.nodes = Arrays.copyOf( this.nodes, 2 * this.nodes.length );
+		this.nodes[this.size++] = node;
+	}
+	
+	/**
+	* Append the nodes of another cluster, starting from the given position.
+	* @param other	the other cluster.
+	* @param from	position of the first node to append.
+	*/
+	public void addAll( ClusterWritable other, int from )
+	{
+		int count = other.size - from;
+		if ( count <= 0 )
+			return;
+		if ( this.size + count > this.nodes.length )
+			this.nodes = Arrays.copyOf( this.nodes, Math.max( 2 * this.nodes.length, this.size + count ) );
+		System.arraycopy( other.nodes, from, this.nodes, this.size, count );
+		this.size += count;
+	}
+	
+	/**
+	* Append all the nodes of another cluster.
+	* @param other	the other cluster.
+	*/
+	public void addAll( ClusterWritable other )
+	{
+		addAll( other, 0 );
+	}
+	
+	/**
+	* Keep only the first nodes of the cluster.
+	* @param size	number of nodes to keep.
+	*/
+	public void truncate( int size )
+	{
+		if ( size < this.size )
+			this.size = size;
+	}
+	
+	/** Remove all the nodes of the cluster, keeping the array. */
+	public void clear()
+	{
+		this.size = 0;
+	}
+	
+	/** Sort the nodes of the cluster in ascending order. */
+	public void sort()
+	{
+		Arrays.sort( this.nodes, 0, this.size );
+	}
+	
+	/**
+	* Return the checksum of the nodes of the cluster ( \see NodeWritable.checksum ).
+	* @return	the sum of the checksums of the nodes.
+	*/
+	public long checksum()
 	{
-		super( array );
+		long checksum = 0;
+		for ( int i = 0; i < this.size; i++ )
+			checksum += NodeWritable.checksum( this.nodes[i] );
+		return checksum;
 	}
 	
 	/**
@@ -56,12 +201,69 @@ public class ClusterWritable extends ArrayList<Integer> implements Writable
 	public void readFields( DataInput in ) throws IOException
 	{
 		this.clear();
-
-		int numFields = in.readInt();
-		if ( numFields == 0 ) return;
 		
-		for (int i = 0; i < numFields; i++)
-			this.add( in.readInt() );
+		int tag = in.readUnsignedByte();
+		if ( tag < PLAIN )
+		{
+			// Old encoding: the number of nodes and the nodes as 4-byte integers.
+			int numFields = ( tag << 24 ) | ( in.readUnsignedByte() << 16 ) | in.readUnsignedShort();
+			if ( numFields > this.nodes.length )
+				this.nodes = new long[numFields];
+			for ( int i = 0; i < numFields; i++ )
+				this.add( in.readInt() );
+			return;
+		}
+		
+		int numFields = WritableUtils.readVInt( in );
+		if ( numFields > this.nodes.length )
+			this.nodes = new long[numFields];
+		if ( tag == PLAIN )
+		{
+			for ( int i = 0; i < numFields; i++ )
+				this.add( WritableUtils.readVLong( in ) );
+			return;
+		}
+		if ( tag == DELTAS )
+		{
+			long node = 0;
+			for ( int i = 0; i < numFields; i++ )
+			{
+				node += WritableUtils.readVLong( in );
+				this.add( node );
+			}
+			return;
+		}
+		if ( tag != SORTED )
+			throw new IOException( "Unknown ClusterWritable encoding " + tag );
+		
+		long key = 0;
+		while ( this.size < numFields )
+		{
+			key += WritableUtils.readVLong( in );
+			long high = key << CONTAINER_BITS;
+			int count = WritableUtils.readVInt( in );
+			if ( in.readUnsignedByte() == DELTA )
+			{
+				int low = 0;
+				for ( int i = 0; i < count; i++ )
+				{
+					low += WritableUtils.readVInt( in );
+					this.add( high | low );
+				}
+			}
+			else
+			{
+				int first = WritableUtils.readVInt( in );
+				int span = WritableUtils.readVInt( in );
+				int numBytes = ( span >>> 3 ) + 1;
+				if ( this.bitmap == null || this.bitmap.length < numBytes )
+					this.bitmap = new byte[numBytes];
+				in.readFully( this.bitmap, 0, numBytes );
+				for ( int bit = 0; bit <= span; bit++ )
+					if ( ( this.bitmap[bit >>> 3] & ( 1 << ( bit & 7 ) ) ) != 0 )
+						this.add( high | ( first + bit ) );
+			}
+		}
 	}
 	
 	/**
@@ -71,11 +273,103 @@ public class ClusterWritable extends ArrayList<Integer> implements Writable
 	*/
 	public void write( DataOutput out ) throws IOException
 	{
-		out.writeInt( this.size() );
-		if ( size() == 0 ) return;
+		int size = this.size;
+		boolean sorted = ( size == 0 ) || ( this.nodes[0] >= 0 );
+		for ( int i = 1; sorted && i < size; i++ )
+			sorted = this.nodes[i - 1] < this.nodes[i];
+		
+		if ( !sorted )
+		{
+			out.writeByte( PLAIN );
+			WritableUtils.writeVInt( out, size );
+			for ( int i = 0; i < size; i++ )
+				WritableUtils.writeVLong( out, this.nodes[i] );
+			return;
+		}
 		
-		for ( int i = 0; i < size(); i++ )
-			out.writeInt( this.get( i ) );
+		// The containers pay off only if the nodes share the upper bits, otherwise the plain deltas are smaller.
+		long deltaBytes = 0;
+		long previous = 0;
+		for ( int i = 0; i < size; previous = this.nodes[i++] )
+			deltaBytes += WritableUtils.getVIntSize( this.nodes[i] - previous );
+		if ( deltaBytes <= writeContainers( null ) )
+		{
+			out.writeByte( DELTAS );
+			WritableUtils.writeVInt( out, size );
+			previous = 0;
+			for ( int i = 0; i < size; previous = this.nodes[i++] )
+				WritableUtils.writeVLong( out, this.nodes[i] - previous );
+		}
+		else
+		{
+			out.writeByte( SORTED );
+			WritableUtils.writeVInt( out, size );
+			writeContainers( out );
+		}
+	}
+	
+	/**
+	* Write the sorted nodes as containers, each one as deltas or as a bitmap, whichever is smaller.
+	* @param out	where to write the raw byte representation, or <c>null</c> to compute only the size.
+	* @return		the number of bytes of the containers.
+	* @throws IOException
+	*/
+	private long writeContainers( DataOutput out ) throws IOException
+	{
+		int size = this.size, lowMask = ( 1 << CONTAINER_BITS ) - 1;
+		long key = 0, numBytes = 0;
+		for ( int start = 0, end; start < size; start = end )
+		{
+			// Find the nodes of the container, and the size of their deltas.
+			long containerKey = this.nodes[start] >>> CONTAINER_BITS;
+			int deltaBytes = 0, low = 0;
+			for ( end = start; end < size && ( this.nodes[end] >>> CONTAINER_BITS ) == containerKey; end++ )
+			{
+				deltaBytes += WritableUtils.getVIntSize( ( this.nodes[end] & lowMask ) - low );
+				low = (int) ( this.nodes[end] & lowMask );
+			}
+			int first = (int) ( this.nodes[start] & lowMask ), span = low - first;
+			int bitmapSize = ( span >>> 3 ) + 1;
+			int bitmapBytes = WritableUtils.getVIntSize( first ) + WritableUtils.getVIntSize( span ) + bitmapSize;
+			
+			numBytes += WritableUtils.getVIntSize( containerKey - key ) + WritableUtils.getVIntSize( end - start ) + 1
+						+ Math.min( deltaBytes, bitmapBytes );
+			if ( out == null )
+			{
+				key = containerKey;
+				continue;
+			}
+			
+			WritableUtils.writeVLong( out, containerKey - key );
+			WritableUtils.writeVInt( out, end - start );
+			key = containerKey;
+			if ( deltaBytes <= bitmapBytes )
+			{
+				out.writeByte( DELTA );
+				low = 0;
+				for ( int i = start; i < end; i++ )
+				{
+					WritableUtils.writeVInt( out, (int) ( this.nodes[i] & lowMask ) - low );
+					low = (int) ( this.nodes[i] & lowMask );
+				}
+			}
+			else
+			{
+				out.writeByte( BITMAP );
+				WritableUtils.writeVInt( out, first );
+				WritableUtils.writeVInt( out, span );
+				if ( this.bitmap == null || this.bitmap.length < bitmapSize )
+					this.bitmap = new byte[bitmapSize];
+				Arrays.fill( this.bitmap, 0, bitmapSize, (byte) 0 );
+				for ( int i = start; i < end; i++ )
+				{
+					int bit = (int) ( this.nodes[i] & lowMask ) - first;
+					this.bitmap[bit >>> 3] |= 1 << ( bit & 7 );
+				}
+				out.write( this.bitmap, 0, bitmapSize );
+			}
+		}
+		return numBytes;
 	}
 	
 	/**
@@ -84,14 +378,44 @@ public class ClusterWritable extends ArrayList<Integer> implements Writable
 	*/
 	public String toString()
 	{
-		StringBuffer sb = new StringBuffer();
+		StringBuilder sb = new StringBuilder();
 		
-		if ( this.size() > 0 )
+		if ( this.size > 0 )
 		{
-			sb.append( this.get(0) );
-			for ( int i = 1; i < this.size(); i++ )
-				sb.append( " " ).append( this.get(i) );
+			sb.append( this.nodes[0] );
+			for ( int i = 1; i < this.size; i++ )
+				sb.append( " " ).append( this.nodes[i] );
 		}
 		return sb.toString();
 	}
-}
\ No newline at end of file
+	
+	/**
+	* Calculate hash code of this object.
+	* @return 		the hash code.
+	*/
+	public int hashCode()
+	{
+		int hash = 1;
+		for ( int i = 0; i < this.size; i++ )
+			hash = 31 * hash + (int) ( this.nodes[i] ^ ( this.nodes[i] >>> 32 ) );
+		return hash;
+	}
+	
+	/**
+	* Check if two objects that are instance of \see ClusterWritable contain the same nodes in the same order.
+	* @param other	the other object with which to make comparisons.
+	* @return 		<c>true</c> if the two objects are equals, <c>false</c> otherwise.
+	*/
+	public boolean equals( Object other )
+	{
+		if ( this == other ) return true;
+		if ( !(other instanceof ClusterWritable) ) return false;
+		
+		ClusterWritable cluster = (ClusterWritable) other;
+		if ( this.size != cluster.size ) return false;
+		for ( int i = 0; i < this.size; i++ )
+			if ( this.nodes[i] != cluster.nodes[i] )
+				return false;
+		return true;
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ *	@file CombineSequenceFileInputFormat.java
+ *	@brief Input format that packs many small SequenceFiles into the same split, in order to reduce the number of Map tasks.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReader;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileRecordReader;
+
+/**
+ * Input format that packs many small SequenceFiles into the same split, in order to reduce the number of Map tasks.
+ * As the graph contracts, the iterations produce many part files that are almost empty:
+ * with the SequenceFileInputFormat each of them would be read by its own Map task.
+ * The splits are not larger than the <em>mapreduce.input.fileinputformat.split.maxsize</em> property,
+ * by default the block size, so the big inputs of the first iterations are still read in parallel.
+ */
+public class CombineSequenceFileInputFormat<K, V> extends CombineFileInputFormat<K, V>
+{
+	/**
+	 * Compute the splits of the input files, bounding their size to the block size if no maximum size is configured.
+	 * @param job	context of the Job.
+	 * @return 		the list of splits, each one containing one or more files.
+	 * @throws IOException
+	 */
+	public List<InputSplit> getSplits( JobContext job ) throws IOException
+	{
+		if ( job.getConfiguration().getLong( "mapreduce.input.fileinputformat.split.maxsize", 0 ) == 0 )
+			setMaxSplitSize( job.getConfiguration().getLong( "dfs.block.size", 64 * 1024 * 1024 ) );
+		return super.getSplits( job );
+	}
+	
+	/**
+	 * Create the RecordReader that reads, one after the other, all the files of the split.
+	 * @param split		split containing one or more files.
+	 * @param context	context of this Task.
+	 * @return 			the RecordReader of the split.
+	 * @throws IOException
+	 */
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public RecordReader<K, V> createRecordReader( InputSplit split, TaskAttemptContext context ) throws IOException
+	{
+		return new CombineFileRecordReader<K, V>( (CombineFileSplit) split, context, (Class) SequenceFileReader.class );
+	}
+	
+	/** RecordReader of a single file of a CombineFileSplit, that delegates to the SequenceFileRecordReader. */
+	public static class SequenceFileReader<K, V> extends RecordReader<K, V>
+	{
+		private final FileSplit fileSplit;
+		private final SequenceFileRecordReader<K, V> reader = new SequenceFileRecordReader<K, V>();
+		
+		/**
+		 * Initializes a new instance of the SequenceFileReader class. This signature is required by the CombineFileRecordReader.
+		 * @param split		split containing one or more files.
+		 * @param context	context of this Task.
+		 * @param index		index of the file to read inside the split.
+		 * @throws IOException
+		 */
+		public SequenceFileReader( CombineFileSplit split, TaskAttemptContext context, Integer index ) throws IOException
+		{
+			this.fileSplit = new FileSplit( split.getPath( index ), split.getOffset( index ), split.getLength( index ), split.getLocations() );
+		}
+		
+		/**
+		 * Open the file of this SequenceFileReader. The given split is ignored, since it is the whole CombineFileSplit.
+		 * @param split		split containing one or more files.
+		 * @param context	context of this Task.
+		 * @throws IOException, InterruptedException
+		 */
+		public void initialize( InputSplit split, TaskAttemptContext context ) throws IOException, InterruptedException
+		{
+			this.reader.initialize( this.fileSplit, context );
+		}
+		
+		public boolean nextKeyValue() throws IOException, InterruptedException
+		{
+			return this.reader.nextKeyValue();
+		}
+		
+		public K getCurrentKey()
+		{
+			return this.reader.getCurrentKey();
+		}
+		
+		public V getCurrentValue()
+		{
+			return this.reader.getCurrentValue();
+		}
+		
+		public float getProgress() throws IOException
+		{
+			return this.reader.getProgress();
+		}
+		
+		public void close() throws IOException
+		{
+			this.reader.close();
+		}
+	}
+}
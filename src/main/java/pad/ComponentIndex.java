@@ -0,0 +1,558 @@
+/**
+ *	@file ComponentIndex.java
+ *	@brief Memory-mapped index that maps each node to the identifier of its cluster.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.QuickSort;
+
+/**
+ * Memory-mapped index that maps each node to the identifier of its cluster, i.e. the minimum node of the cluster.
+ * It is built from the ClusterWritable SequenceFiles written by \see TerminationDriver into a local file
+ * that contains a header, i.e. a magic number and the number of nodes, followed by the pairs <nodeID, componentID>
+ * sorted by node, eight bytes each; it is sorted by an external merge sort, so its size is not limited by the heap.
+ * The file is mapped in memory, in segments of at most 1 GB, and the lookups are binary searches on the mapped pairs,
+ * so they do not allocate objects and the pages are shared by all the processes that open the same index.
+ */
+public class ComponentIndex implements Closeable
+{
+	/** Magic number at the beginning of the index file. */
+	private static final int MAGIC = 0x4343494C;
+	/** Magic number of the index files written before the 64-bit identifiers, with pairs of four bytes each. */
+	private static final int MAGIC_32 = 0x43434958;
+	/** Size of the header: the magic number and the number of nodes. */
+	private static final int HEADER_SIZE = 4 + 8;
+	/** Size of a pair <nodeID, componentID>. */
+	private static final int PAIR_SIZE = 16;
+	/** Logarithm of the number of pairs of a mapped segment. */
+	private static final int SEGMENT_SHIFT = 26;
+	private static final long SEGMENT_MASK = ( 1L << SEGMENT_SHIFT ) - 1;
+	/** Default number of pairs sorted in memory by \see build, i.e. 64 MB. */
+	private static final int RUN_PAIRS = 1 << 22;
+	/** Size of the buffers of the files written and read by \see build. */
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	/** Value returned by the lookup of a node that is not in the index. */
+	public static final long NOT_FOUND = -1;
+	
+	private final RandomAccessFile file;
+	private final MappedByteBuffer[] segments;
+	private final long numNodes;
+	
+	/**
+	* Open the index stored in the given local file.
+	* @param index		local file of the index, written by \see build.
+	* @throws IOException
+	*/
+	public ComponentIndex( File index ) throws IOException
+	{
+		this.file = new RandomAccessFile( index, "r" );
+		FileChannel channel = this.file.getChannel();
+		
+		MappedByteBuffer header = channel.map( FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE );
+		int magic = header.getInt();
+		if ( magic != MAGIC )
+		{
+			this.file.close();
+			if ( magic == MAGIC_32 )
+				throw new IOException( index + " is a component index with 32-bit identifiers, it has to be built again" );
+			throw new IOException( index + " is not a component index" );
+		}
+		this.numNodes = header.getLong();
+		
+		int numSegments = (int) ( ( this.numNodes + SEGMENT_MASK ) >>> SEGMENT_SHIFT );
+		this.segments = new MappedByteBuffer[numSegments];
+		for ( int s = 0; s < numSegments; s++ )
+		{
+			long first = (long) s << SEGMENT_SHIFT;
+			long size = Math.min( SEGMENT_MASK + 1, this.numNodes - first ) * PAIR_SIZE;
+			this.segments[s] = channel.map( FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * PAIR_SIZE, size );
+		}
+	}
+	
+	/**
+	 * Build the index of the clusters stored in the given folder.
+	 * The pairs are sorted by an external merge sort, so the memory used does not depend on the number of nodes:
+	 * they are collected into runs of at most <em>index.run.pairs</em> pairs, each run is sorted in memory and
+	 * written into a temporary file next to the index, then the runs are merged into the index file.
+	 * If all the pairs fit in one run, it is written directly into the index file.
+	 * @param fs		file system of the clusters.
+	 * @param conf		configuration used to open the files.
+	 * @param clusters	path of the folder of the clusters, i.e. the result of \see TerminationDriver Job.
+	 * @param index		local file where to write the index.
+	 * @return 			the number of nodes of the index.
+	 * @throws IOException
+	 */
+	public static long build( FileSystem fs, Configuration conf, Path clusters, File index ) throws IOException
+	{
+		Run run = new Run( conf.getInt( "index.run.pairs", RUN_PAIRS ) );
+		List<File> runs = new ArrayList<File>();
+		long numNodes = 0;
+		ClusterWritable cluster = new ClusterWritable();
+		try
+		{
+			for ( FileStatus status : fs.globStatus( new Path( clusters, "part*" ) ) )
+			{
+				SequenceFile.Reader reader = new SequenceFile.Reader( conf, SequenceFile.Reader.file( status.getPath() ) );
+				try
+				{
+					while ( reader.next( cluster, NullWritable.get() ) )
+					{
+						long componentID = Long.MAX_VALUE;
+						for ( int i = 0; i < cluster.size(); i++ )
+							componentID = Math.min( componentID, cluster.get( i ) );
+						
+						for ( int i = 0; i < cluster.size(); i++ )
+						{
+							if ( run.isFull() )
+								runs.add( spill( run, index ) );
+							run.add( cluster.get( i ), componentID );
+						}
+						numNodes += cluster.size();
+					}
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			
+			if ( runs.isEmpty() )
+			{
+				// All the pairs fit in memory.
+				new QuickSort().sort( run, 0, run.size() );
+				DataOutputStream out = create( index );
+				try
+				{
+					out.writeInt( MAGIC );
+					out.writeLong( numNodes );
+					run.write( out );
+				}
+				finally
+				{
+					out.close();
+				}
+			}
+			else
+			{
+				runs.add( spill( run, index ) );
+				merge( runs, numNodes, index );
+			}
+		}
+		finally
+		{
+			for ( File file : runs )
+				file.delete();
+		}
+		return numNodes;
+	}
+	
+	/**
+	 * Sort the pairs of a run and write them into a new temporary file, next to the index, then empty the run.
+	 * @param run		the run.
+	 * @param index		local file of the index.
+	 * @return			the temporary file.
+	 * @throws IOException
+	 */
+	private static File spill( Run run, File index ) throws IOException
+	{
+		new QuickSort().sort( run, 0, run.size() );
+		File file = File.createTempFile( index.getName() + "-run", ".tmp", index.getAbsoluteFile().getParentFile() );
+		DataOutputStream out = create( file );
+		try
+		{
+			run.write( out );
+		}
+		finally
+		{
+			out.close();
+		}
+		run.clear();
+		return file;
+	}
+	
+	/**
+	 * Merge the sorted runs into the index file, taking each time the pair with the smallest node among the heads of the runs.
+	 * @param runs		temporary files of the runs.
+	 * @param numNodes	total number of pairs of the runs.
+	 * @param index		local file where to write the index.
+	 * @throws IOException
+	 */
+	private static void merge( List<File> runs, long numNodes, File index ) throws IOException
+	{
+		PriorityQueue<RunReader> heads = new PriorityQueue<RunReader>( runs.size() );
+		DataOutputStream out = create( index );
+		try
+		{
+			for ( File file : runs )
+			{
+				RunReader reader = new RunReader( file );
+				if ( reader.next() )
+					heads.add( reader );
+				else
+					reader.close();
+			}
+			
+			out.writeInt( MAGIC );
+			out.writeLong( numNodes );
+			while ( !heads.isEmpty() )
+			{
+				RunReader reader = heads.poll();
+				out.writeLong( reader.node );
+				out.writeLong( reader.component );
+				if ( reader.next() )
+					heads.add( reader );
+				else
+					reader.close();
+			}
+		}
+		finally
+		{
+			out.close();
+			for ( RunReader reader : heads )
+				reader.close();
+		}
+	}
+	
+	/**
+	 * Create a local file, buffered.
+	 * @param file	the file.
+	 * @return		the stream that writes the file.
+	 * @throws IOException
+	 */
+	private static DataOutputStream create( File file ) throws IOException
+	{
+		return new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ), BUFFER_SIZE ) );
+	}
+	
+	/**
+	 * Return the node of the i-th pair.
+	 * @param i		index of the pair.
+	 * @return 		the node identifier.
+	 */
+	private long node( long i )
+	{
+		return this.segments[(int) ( i >>> SEGMENT_SHIFT )].getLong( (int) ( ( i & SEGMENT_MASK ) * PAIR_SIZE ) );
+	}
+	
+	/**
+	 * Return the component of the i-th pair.
+	 * @param i		index of the pair.
+	 * @return 		the component identifier.
+	 */
+	private long component( long i )
+	{
+		return this.segments[(int) ( i >>> SEGMENT_SHIFT )].getLong( (int) ( ( i & SEGMENT_MASK ) * PAIR_SIZE + 8 ) );
+	}
+	
+	/**
+	 * Return the identifier of the component that contains the node, i.e. the minimum node of its cluster.
+	 * @param nodeID	node identifier.
+	 * @return 			the component identifier, or \see NOT_FOUND if the node is not in the index.
+	 */
+	public long lookup( long nodeID )
+	{
+		long low = 0, high = this.numNodes - 1;
+		while ( low <= high )
+		{
+			long mid = ( low + high ) >>> 1;
+			long node = node( mid );
+			if ( node < nodeID )
+				low = mid + 1;
+			else if ( node > nodeID )
+				high = mid - 1;
+			else
+				return component( mid );
+		}
+		return NOT_FOUND;
+	}
+	
+	/**
+	 * Return the identifiers of the components that contain the nodes.
+	 * @param nodeIDs	node identifiers.
+	 * @return 			the component identifiers, in the same order, \see NOT_FOUND for the nodes that are not in the index.
+	 */
+	public long[] lookup( long[] nodeIDs )
+	{
+		long[] componentIDs = new long[nodeIDs.length];
+		for ( int i = 0; i < nodeIDs.length; i++ )
+			componentIDs[i] = lookup( nodeIDs[i] );
+		return componentIDs;
+	}
+	
+	/**
+	 * Return <c>true</c> if the two nodes belong to the same component.
+	 * @param u		first node identifier.
+	 * @param v		second node identifier.
+	 * @return 		<c>true</c> if both nodes are in the index and in the same component, <c>false</c> otherwise.
+	 */
+	public boolean connected( long u, long v )
+	{
+		long componentID = lookup( u );
+		return ( componentID != NOT_FOUND ) && ( componentID == lookup( v ) );
+	}
+	
+	/**
+	 * Return the number of nodes of the index.
+	 * @return 	number of nodes.
+	 */
+	public long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Close the index file. The mapped segments are released by the garbage collector.
+	 * @throws IOException
+	 */
+	public void close() throws IOException
+	{
+		this.file.close();
+	}
+	
+	/**
+	 * Run of pairs <nodeID, componentID> sorted in memory by \see build, stored into two parallel arrays of primitive longs.
+	 * The arrays grow up to the maximum number of pairs, so a small index does not allocate a whole run.
+	 */
+	private static class Run implements IndexedSortable
+	{
+		/** Initial number of pairs of the arrays. */
+		private static final int INITIAL_CAPACITY = 1 << 10;
+		
+		private final int capacity;
+		private long[] nodes, components;
+		private int size = 0;
+		
+		/**
+		* Initializes a new instance of the Run class.
+		* @param capacity	maximum number of pairs.
+		*/
+		public Run( int capacity )
+		{
+			this.capacity = capacity;
+			this.nodes = new long[Math.min( capacity, INITIAL_CAPACITY )];
+			this.components = new long[this.nodes.length];
+		}
+		
+		/**
+		* Add a pair to the run, doubling the arrays when they are full.
+		* @param node			node identifier.
+		* @param component		component identifier.
+		*/
+		public void add( long node, long component )
+		{
+			if ( this.size == this.nodes.length )
+			{
+				int length = (int) Math.min( this.capacity, 2L * this.nodes.length );
+				this.nodes = Arrays.copyOf( this.nodes, length );
+				this.components = Arrays.copyOf( this.components, length );
+			}
+			this.nodes[this.size] = node;
+			this.components[this.size++] = component;
+		}
+		
+		/**
+		* Check if the run cannot contain more pairs.
+		* @return	<c>true</c> if the run is full, <c>false</c> otherwise.
+		*/
+		public boolean isFull()
+		{
+			return this.size == this.capacity;
+		}
+		
+		/**
+		* Return the number of pairs of the run.
+		* @return	number of pairs.
+		*/
+		public int size()
+		{
+			return this.size;
+		}
+		
+		/** Remove all the pairs. */
+		public void clear()
+		{
+			this.size = 0;
+		}
+		
+		/**
+		* Compare the nodes of two pairs.
+		* @param i		first pair.
+		* @param j		second pair.
+		* @return		<c>0</c> if the nodes are equal, <c>-1</c> if the first one is smaller, <c>1</c> otherwise.
+		*/
+		public int compare( int i, int j )
+		{
+			return NodeWritable.compare( this.nodes[i], this.nodes[j] );
+		}
+		
+		/**
+		* Swap two pairs, moving the components together with their nodes.
+		* @param i		first pair.
+		* @param j		second pair.
+		*/
+		public void swap( int i, int j )
+		{
+			long node = this.nodes[i], component = this.components[i];
+			this.nodes[i] = this.nodes[j];
+			this.components[i] = this.components[j];
+			this.nodes[j] = node;
+			this.components[j] = component;
+		}
+		
+		/**
+		* Write the pairs, in their order, eight bytes for each identifier.
+		* @param out	where to write the pairs.
+		* @throws IOException
+		*/
+		public void write( DataOutputStream out ) throws IOException
+		{
+			for ( int i = 0; i < this.size; i++ )
+			{
+				out.writeLong( this.nodes[i] );
+				out.writeLong( this.components[i] );
+			}
+		}
+	}
+	
+	/** Reader of the temporary file of a sorted run, ordered by the node of its current pair. */
+	private static class RunReader implements Comparable<RunReader>, Closeable
+	{
+		private final DataInputStream in;
+		private long remaining;
+		/** Current pair. */
+		public long node, component;
+		
+		/**
+		* Initializes a new instance of the RunReader class.
+		* @param file	temporary file of the run.
+		* @throws IOException
+		*/
+		public RunReader( File file ) throws IOException
+		{
+			this.in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), BUFFER_SIZE ) );
+			this.remaining = file.length() / PAIR_SIZE;
+		}
+		
+		/**
+		* Read the next pair.
+		* @return	<c>false</c> if the run is over, <c>true</c> otherwise.
+		* @throws IOException
+		*/
+		public boolean next() throws IOException
+		{
+			if ( this.remaining == 0 )
+				return false;
+			this.remaining--;
+			this.node = this.in.readLong();
+			this.component = this.in.readLong();
+			return true;
+		}
+		
+		/**
+		* Compare the current pairs of two runs.
+		* @param other	the other run.
+		* @return		<c>0</c> if the nodes are equal, <c>-1</c> if the node of this run is smaller, <c>1</c> otherwise.
+		*/
+		public int compareTo( RunReader other )
+		{
+			return NodeWritable.compare( this.node, other.node );
+		}
+		
+		/**
+		* Close the temporary file.
+		* @throws IOException
+		*/
+		public void close() throws IOException
+		{
+			this.in.close();
+		}
+	}
+	
+	/**
+	 * Main of the \see ComponentIndex class.
+	 * <code>build</code> writes the index of the clusters, <code>query</code> answers the component of each node
+	 * or, given two nodes, if they are connected, <code>serve</code> starts the \see ComponentIndexServer.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		if ( args.length >= 3 && args[0].equals( "build" ) )
+		{
+			System.out.println( "Start ComponentIndex build." );
+			long numNodes = build( FileSystem.get( new Configuration() ), new Configuration(), new Path( args[1] ), new File( args[2] ) );
+			System.out.println( "End ComponentIndex build." );
+			System.out.println( "Number of nodes: " + numNodes );
+		}
+		else if ( args.length >= 3 && args[0].equals( "query" ) )
+		{
+			ComponentIndex index = new ComponentIndex( new File( args[1] ) );
+			try
+			{
+				if ( args.length == 4 )
+					System.out.println( index.connected( Long.parseLong( args[2] ), Long.parseLong( args[3] ) ) );
+				else
+					System.out.println( index.lookup( Long.parseLong( args[2] ) ) );
+			}
+			finally
+			{
+				index.close();
+			}
+		}
+		else if ( args.length == 3 && args[0].equals( "serve" ) )
+		{
+			ComponentIndex index = new ComponentIndex( new File( args[1] ) );
+			System.out.println( "Start ComponentIndexServer." );
+			new ComponentIndexServer( index, Integer.parseInt( args[2] ) ).run();
+		}
+		else
+		{
+			System.out.println( "Usage: ComponentIndex build <clusters> <index>" );
+			System.out.println( "       ComponentIndex query <index> <node> [node]" );
+			System.out.println( "       ComponentIndex serve <index> <port>" );
+			System.exit(1);
+		}
+	}
+}
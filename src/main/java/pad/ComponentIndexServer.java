@@ -0,0 +1,193 @@
+/**
+ *	@file ComponentIndexServer.java
+ *	@brief Local server that answers the queries on a \see ComponentIndex.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local server that answers the queries on a \see ComponentIndex, listening on the loopback interface.
+ * Each connection is served by its own thread and sends one query for each line:
+ * - <NodeID>								->	the component of the node;
+ * - <NodeID1><SPACE><NodeID2>				->	<c>true</c> if the two nodes are connected, <c>false</c> otherwise;
+ * - <NodeID1>,<NodeID2>,...				->	the components of the nodes, separated by commas.
+ * The answer is a line, or a line starting with <c>ERROR</c> if the query is malformed.
+ * A node that is not in the index has component \see ComponentIndex.NOT_FOUND.
+ */
+public class ComponentIndexServer implements Runnable
+{
+	private final ComponentIndex index;
+	private final int port;
+	private volatile boolean running;
+	
+	/**
+	* Initializes a new instance of the ComponentIndexServer class.
+	* @param index		index to query, shared by all the connections.
+	* @param port		port of the local socket.
+	*/
+	public ComponentIndexServer( ComponentIndex index, int port )
+	{
+		this.index = index;
+		this.port = port;
+	}
+	
+	/**
+	 * Accept the connections until \see stop is called.
+	 */
+	public void run()
+	{
+		this.running = true;
+		ExecutorService connections = Executors.newCachedThreadPool();
+		try
+		{
+			ServerSocket server = new ServerSocket( this.port, 50, InetAddress.getLoopbackAddress() );
+			// Wake up periodically in order to check if the server has been stopped.
+			server.setSoTimeout( 1000 );
+			try
+			{
+				while ( this.running )
+				{
+					final Socket socket;
+					try
+					{
+						socket = server.accept();
+					}
+					catch ( java.net.SocketTimeoutException e )
+					{
+						continue;
+					}
+					
+					connections.submit( new Runnable()
+					{
+						public void run()
+						{
+							serve( socket );
+						}
+					} );
+				}
+			}
+			finally
+			{
+				server.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "ComponentIndexServer failed: " + e.getMessage() );
+		}
+		finally
+		{
+			connections.shutdown();
+		}
+	}
+	
+	/**
+	 * Stop accepting new connections.
+	 */
+	public void stop()
+	{
+		this.running = false;
+	}
+	
+	/**
+	 * Answer the queries of a connection, until it is closed.
+	 * @param socket	socket of the connection.
+	 */
+	private void serve( Socket socket )
+	{
+		try
+		{
+			BufferedReader in = new BufferedReader( new InputStreamReader( socket.getInputStream(), "UTF-8" ) );
+			Writer out = new BufferedWriter( new OutputStreamWriter( socket.getOutputStream(), "UTF-8" ) );
+			try
+			{
+				String line;
+				while ( ( line = in.readLine() ) != null )
+				{
+					out.write( answer( line.trim() ) );
+					out.write( '\n' );
+					// Flush only when the client has no more pipelined queries.
+					if ( !in.ready() )
+						out.flush();
+				}
+			}
+			finally
+			{
+				out.close();
+				in.close();
+			}
+		}
+		catch ( IOException e )
+		{
+			System.err.println( "Connection closed: " + e.getMessage() );
+		}
+	}
+	
+	/**
+	 * Answer a query.
+	 * @param query		the query.
+	 * @return 			the answer.
+	 */
+	String answer( String query )
+	{
+		try
+		{
+			if ( query.indexOf( ',' ) >= 0 )
+			{
+				String nodes[] = query.split( "," );
+				long[] nodeIDs = new long[nodes.length];
+				for ( int i = 0; i < nodes.length; i++ )
+					nodeIDs[i] = Long.parseLong( nodes[i].trim() );
+				
+				long[] componentIDs = this.index.lookup( nodeIDs );
+				StringBuilder answer = new StringBuilder();
+				for ( int i = 0; i < componentIDs.length; i++ )
+				{
+					if ( i > 0 )
+						answer.append( ',' );
+					answer.append( componentIDs[i] );
+				}
+				return answer.toString();
+			}
+			
+			String nodes[] = query.split( " +" );
+			if ( nodes.length == 2 )
+				return String.valueOf( this.index.connected( Long.parseLong( nodes[0] ), Long.parseLong( nodes[1] ) ) );
+			if ( nodes.length == 1 )
+				return String.valueOf( this.index.lookup( Long.parseLong( nodes[0] ) ) );
+			return "ERROR too many nodes";
+		}
+		catch ( NumberFormatException e )
+		{
+			return "ERROR " + e.getMessage();
+		}
+	}
+}
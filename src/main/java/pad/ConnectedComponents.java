@@ -22,36 +22,213 @@
 package pad;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import pad.DictionaryDriver.DictionaryDriverType;
+import pad.HashToMinDriver.HashToMinDriverType;
 import pad.InitializationDriver.InputType;
 import pad.StarDriver.StarDriverType;
 
 /**	This class orchestrates all the driver jobs in order to get a file with the recognized clusters of the input graph. */
 public class ConnectedComponents
 {
+	/**
+	 * The iterations can be executed as a chain of MapReduce Jobs (\see StarDriver)
+	 * or in the memory of this machine (\see InMemoryDriver), if the graph fits in the heap.
+	 * Otherwise, they can be replaced by a single concurrent union-find pass (\see UnionFindDriver)
+	 * or by the Hash-to-Min algorithm (\see HashToMinDriver).
+	 */
+	public enum Backend { MAPREDUCE, IN_MEMORY, UNION_FIND, HASH_TO_MIN };
+	
 	private static final int MAX_ITERATIONS = 30;
 	private final Path input, output;
 	private final FileSystem fs;
+	private final Backend backend;
+	private long localMaxBytes = 0, localMaxChanges = 0;
+	private double hubFraction = 0;
+	private int inMapperCapacity = 0;
+	private boolean pruning = true;
+	private boolean starExpansion = false;
+	private InputType inputType = null;
+	private Path previous = null;
+	private Path dictionary = null;
+	private NodePermutation permutation = null;
+	private boolean resume = false;
+	private long unchangedNodes, unchangedClusters;
+	private ConvergenceStrategy strategy = new AlternatingStrategy();
 	private InputType type;
-	private long numCliques, numInitialNodes, numNodes, numClusters;
-	private boolean testOk;
+	private long numCliques, numInitialNodes, initialChecksum, numNodes, numClusters;
+	private int numIterations;
+	private List<Long> numChanges = new ArrayList<Long>();
+	private List<JobReport> reports = new ArrayList<JobReport>();
+	private boolean finishedLocally, testOk;
 	
 	/**
-	* Initializes a new instance of the ConnectedComponents class.
+	* Initializes a new instance of the ConnectedComponents class, that uses the MapReduce backend.
 	* @param input		path of the input graph stored on hdfs.
 	* @param output		path of the output folder.
 	*/
 	public ConnectedComponents( Path input, Path output ) throws IOException
+	{		
+		this( input, output, Backend.MAPREDUCE );
+	}
+	
+	/**
+	* Initializes a new instance of the ConnectedComponents class.
+	* @param input		path of the input graph stored on hdfs.
+	* @param output		path of the output folder.
+	* @param backend	where to execute the iterations of the algorithm.
+	*/
+	public ConnectedComponents( Path input, Path output, Backend backend ) throws IOException
 	{		
 		this.input =  input;
 		this.output =  output;
+		this.backend = backend;
 		this.fs = FileSystem.get( new Configuration() );
 	}
 	
+	/**
+	* Enable the hybrid mode of the MAPREDUCE backend: as soon as the edges list produced by an iteration
+	* is smaller than <em>maxBytes</em>, or the iteration has produced less than <em>maxChanges</em> changes,
+	* the remaining iterations are executed in memory by the \see InMemoryDriver.
+	* By default both the thresholds are zero, so the hybrid mode is disabled.
+	* @param maxBytes		threshold on the size of the edges list, in bytes.
+	* @param maxChanges		threshold on the number of changes of the Large-Star and Small-Star operations.
+	*/
+	public void setLocalThresholds( long maxBytes, long maxChanges )
+	{
+		this.localMaxBytes = maxBytes;
+		this.localMaxChanges = maxChanges;
+	}
+	
+	/**
+	* Choose the schedule of the Star operations executed by the MAPREDUCE backend.
+	* By default it is the \see AlternatingStrategy; the others are the \see TwoPhaseStrategy and the \see FusedStrategy.
+	* @param strategy	the schedule of the Star operations.
+	*/
+	public void setStrategy( ConvergenceStrategy strategy )
+	{
+		this.strategy = strategy;
+	}
+	
+	/**
+	* Enable the skew-aware partitioning of the Star operations executed by the MAPREDUCE backend:
+	* the neighbourhood of the nodes that appear in more than <em>hubFraction</em> of the edges
+	* is split across all the Reducers ( \see StarDriver.setHubFraction ).
+	* By default the fraction is zero, so the skew-aware partitioning is disabled.
+	* @param hubFraction	a node is a hub if it appears in more than this fraction of the edges.
+	*/
+	public void setHubFraction( double hubFraction )
+	{
+		this.hubFraction = hubFraction;
+	}
+	
+	/**
+	* Enable the in-mapper combining of the Star operations executed by the MAPREDUCE backend
+	* ( \see StarDriver.setInMapperCapacity ). By default the capacity is zero, so the in-mapper combining is disabled.
+	* @param capacity	maximum number of pairs kept in memory by each Mapper.
+	*/
+	public void setInMapperCapacity( int capacity )
+	{
+		this.inMapperCapacity = capacity;
+	}
+	
+	/**
+	* Enable or disable the pruning of the finished stars of the MAPREDUCE backend ( \see StarDriver.setPruning ):
+	* when a star is a whole connected component, its edges are not processed by the next iterations.
+	* By default the pruning is enabled.
+	* @param pruning	<c>true</c> in order to enable the pruning.
+	*/
+	public void setPruning( boolean pruning )
+	{
+		this.pruning = pruning;
+	}
+	
+	/**
+	* Enable or disable the star expansion of the cliques list ( \see InitializationDriver.setStarExpansion ):
+	* each clique produces only the edges towards its minimum node. By default the star expansion is disabled.
+	* @param starExpansion	<c>true</c> in order to enable the star expansion.
+	*/
+	public void setStarExpansion( boolean starExpansion )
+	{
+		this.starExpansion = starExpansion;
+	}
+	
+	/**
+	* Set the format of the input, instead of detecting it ( \see InitializationDriver.detectInputType ).
+	* It is required for a binary edges list, since the width of its records cannot be detected:
+	* \see InputType.BINARY_EDGES for 32-bit identifiers and \see InputType.BINARY_EDGES_LONG for 64-bit identifiers.
+	* By default it is <c>null</c>, so the text format of the input is detected. It cannot be used with the dictionary mode,
+	* whose input is always a text of tokens.
+	* @param inputType	the format of the input, or <c>null</c>.
+	*/
+	public void setInputType( InputType inputType )
+	{
+		this.inputType = inputType;
+	}
+	
+	/**
+	* Enable the incremental mode: the input contains only the new edges, in the adjacency or cliques format,
+	* and <em>previous</em> is the cluster output of an earlier run. The clusters that contain a node of the new edges
+	* are transformed into stars rooted at their minimum node and processed together with the new edges,
+	* while the other clusters are copied unchanged into the output ( \see IncrementalDriver ).
+	* By default the path is <c>null</c>, so the incremental mode is disabled.
+	* @param previous	path of the previous cluster output, or <c>null</c>.
+	*/
+	public void setPrevious( Path previous )
+	{
+		this.previous = previous;
+	}
+	
+	/**
+	* Enable the dictionary mode: the input is an adjacency list or cliques list whose node identifiers are arbitrary tokens,
+	* e.g. strings, UUIDs or sparse longs. Before the initialization, the \see DictionaryDriver assigns them dense identifiers,
+	* writing the dictionary in <em>dictionary</em>; the output folder contains the clusters of the dense identifiers,
+	* which are translated back into lines of tokens in the <em>output_external</em> folder ( \see getExternalPath ).
+	* By default the path is <c>null</c>, so the dictionary mode is disabled. It cannot be used with the incremental mode,
+	* since the dense identifiers of the previous output belong to another dictionary.
+	* @param dictionary	path of the dictionary, or <c>null</c>.
+	*/
+	public void setDictionary( Path dictionary )
+	{
+		this.dictionary = dictionary;
+	}
+	
+	/**
+	* Relabel the nodes with the seeded pseudo-random bijection <em>permutation</em> ( \see NodePermutation ):
+	* the \see InitializationDriver applies it and the driver that writes the clusters inverts it, so the output
+	* does not change, while the number of iterations no longer depends on the order of the input identifiers.
+	* By default it is <c>null</c>, so the nodes are not relabelled. It cannot be used with the incremental mode,
+	* since the previous output and the new edges would have different labels.
+	* @param permutation	the permutation, or <c>null</c>.
+	*/
+	public void setPermutation( NodePermutation permutation )
+	{
+		this.permutation = permutation;
+	}
+	
+	/**
+	* Enable the resume mode: if a previous run has failed leaving its manifest ( \see getManifestPath ),
+	* the iterations restart from the newest edges list recorded in it, without running the InitializationDriver
+	* and the operations already completed. The manifest also restores the counters of the initialization
+	* and the permutation of the nodes, while the backend and the strategy must be the same of the failed run.
+	* Without a manifest the run starts from the beginning. By default the resume mode is disabled,
+	* so a new run deletes what a failed run has left.
+	* @param resume	<c>true</c> in order to enable the resume mode.
+	*/
+	public void setResume( boolean resume )
+	{
+		this.resume = resume;
+	}
+	
 	/**
 	 * Execute all the Driver Job orchestration necessary to construct the array of \see Cluster.
 	 * The pseudo code is the following:
@@ -66,75 +243,547 @@ public class ConnectedComponents
 	 *	TerminationDriver()
 	 *	CheckDriver()
 	 * </code>
+	 * The schedule of the Star operations is chosen by the \see ConvergenceStrategy ( \see setStrategy ).
+	 * With the IN_MEMORY backend, the iterations and the TerminationDriver are replaced by the \see InMemoryDriver,
+	 * with the UNION_FIND backend by the \see UnionFindDriver, with the HASH_TO_MIN backend by the \see HashToMinDriver.
+	 * With the MAPREDUCE backend, the \see InMemoryDriver finishes the convergence when the edges list becomes
+	 * small ( \see setLocalThresholds ) or after MAX_ITERATIONS iterations, so that the result is never partial.
+	 * The CheckDriver runs only if the number and the checksum of the nodes found by the termination differ from the ones
+	 * found by the InitializationDriver, or with the IN_MEMORY and UNION_FIND backends, which do not compute them.
+	 * In the incremental mode ( \see setPrevious ), the \see IncrementalDriver runs after the InitializationDriver.
+	 * In the dictionary mode ( \see setDictionary ), the \see DictionaryDriver runs before the InitializationDriver
+	 * and after the CheckDriver.
+	 * Before the iterations, and after each iteration Job of the MAPREDUCE and HASH_TO_MIN backends, the progress
+	 * is recorded in an \see IterationManifest; when a Job fails, its input is kept, so that the run can be resumed
+	 * ( \see setResume ).
 	 * @return 	<c>false</c> if the orchestration failed, <c>true</c> otherwise. 
 	 * @throws Exception
 	 */
 	public boolean run() throws Exception
 	{	
+		if ( this.dictionary != null && this.previous != null )
+			throw new IllegalStateException( "The dictionary mode cannot be used with the incremental mode" );
+		if ( this.permutation != null && this.previous != null )
+			throw new IllegalStateException( "The permutation of the nodes cannot be used with the incremental mode" );
+		if ( this.dictionary != null && this.inputType != null )
+			throw new IllegalStateException( "The format of the input cannot be set in the dictionary mode" );
+		
+		// Resume the failed run, or delete what it has left.
+		this.reports.clear();
+		IterationManifest manifest = IterationManifest.read( this.fs, getManifestPath() );
+		if ( manifest != null && this.resume )
+			restore( manifest );
+		else
+		{
+			if ( manifest != null )
+				deleteCheckpoint( manifest );
+			manifest = null;
+			if ( !initialize() )
+				return false;
+		}
+		
+		boolean completed = iterate( manifest );
+		if ( this.previous != null && ( completed || !this.fs.exists( getManifestPath() ) ) )
+			this.fs.delete( this.output.suffix( "_unchanged" ), true );
+		return completed;
+	}
+	
+	/**
+	 * Run the InitializationDriver, preceded by the DictionaryDriver in the dictionary mode
+	 * and followed by the IncrementalDriver in the incremental mode, and set up the counters of the initialization.
+	 * @return 	<c>false</c> if a Job failed, <c>true</c> otherwise. 
+	 * @throws Exception
+	 */
+	private boolean initialize() throws Exception
+	{
 		// Run initialization in order to transform the adjacency list or cliques list into a edges list <nodeID, neighborID>.
-		InitializationDriver init = new InitializationDriver( this.input, this.input.suffix( "_0" ), false );
-		if ( init.run( null ) != 0 )
+		InitializationDriver init;
+		if ( this.dictionary == null && this.inputType != null )
+			init = new InitializationDriver( this.input, this.input.suffix( "_0" ), this.inputType, false );
+		else if ( this.dictionary == null )
+			init = new InitializationDriver( this.input, this.input.suffix( "_0" ), false );
+		else
+		{
+			// Translate the tokens into a binary edges list of dense identifiers.
+			DictionaryDriver encode = new DictionaryDriver( DictionaryDriverType.ENCODE, this.input, this.input.suffix( "_dense" ), this.dictionary, false );
+			if ( encode.run( null ) != 0 )
+			{
+				this.fs.delete( this.input.suffix( "_dense" ), true );
+				return false;
+			}
+			this.reports.addAll( encode.getReports() );
+			init = new InitializationDriver( this.input.suffix( "_dense" ), this.input.suffix( "_0" ), encode.getInputType(), false );
+		}
+		init.setStarExpansion( this.starExpansion );
+		init.setPermutation( this.permutation );
+		boolean initialized = ( init.run( null ) == 0 );
+		if ( this.dictionary != null )
+			this.fs.delete( this.input.suffix( "_dense" ), true );
+		if ( !initialized )
+		{
+			this.fs.delete( this.input.suffix( "_0" ), true );
+			return false;
+		}
+		this.reports.add( init.getReport() );
+		this.type = init.getInputType();
+		this.numCliques = init.getNumCliques();
+		this.numInitialNodes = init.getNumInitialNodes();
+		this.initialChecksum = init.getInitialChecksum();
+		
+		this.unchangedNodes = this.unchangedClusters = 0;
+		if ( this.previous == null )
+			return true;
+		
+		// Add the affected clusters to the new edges list and put aside the unchanged ones
+		IncrementalDriver incremental = new IncrementalDriver( this.previous, this.input.suffix( "_0" ), this.output.suffix( "_unchanged" ), false );
+		if ( incremental.run( null ) != 0 )
 		{
 			this.fs.delete( this.input.suffix( "_0" ), true );
+			this.fs.delete( this.output.suffix( "_unchanged" ), true );
 			return false;
 		}
+		this.reports.add( incremental.getReport() );
+		this.unchangedNodes = incremental.getNumNodes();
+		this.unchangedClusters = incremental.getNumClusters();
+		return true;
+	}
+	
+	/**
+	 * Set up the counters of the initialization and the permutation of the nodes from the manifest of a failed run.
+	 * @param manifest	the manifest of the failed run.
+	 */
+	private void restore( IterationManifest manifest )
+	{
+		if ( !manifest.Backend.equals( this.backend.name() ) )
+			throw new IllegalStateException( "The failed run used the " + manifest.Backend + " backend" );
+		if ( !manifest.Strategy.equals( this.strategy.getClass().getName() ) )
+			throw new IllegalStateException( "The failed run used the " + manifest.Strategy + " strategy" );
+		if ( this.previous == null && ( manifest.UnchangedNodes != 0 || manifest.UnchangedClusters != 0 ) )
+			throw new IllegalStateException( "The failed run used the incremental mode" );
+		
+		this.type = manifest.Type;
+		this.numCliques = manifest.NumCliques;
+		this.numInitialNodes = manifest.NumInitialNodes;
+		this.initialChecksum = manifest.InitialChecksum;
+		this.unchangedNodes = manifest.UnchangedNodes;
+		this.unchangedClusters = manifest.UnchangedClusters;
+		this.permutation = manifest.Permutation;
+	}
+	
+	/**
+	 * Delete the manifest of a failed run and the edges list, the finished stars and the certificates of the leaves
+	 * kept for resuming it, so that a new run can start from the beginning.
+	 * @param manifest	the manifest of the failed run.
+	 * @throws IOException
+	 */
+	private void deleteCheckpoint( IterationManifest manifest ) throws IOException
+	{
+		deletePartial( manifest );
+		this.fs.delete( this.input.suffix( "_" + manifest.Operations ), true );
+		deletePruned( this.input.suffix( "_finished" ), manifest.Leaves );
+		this.fs.delete( this.output.suffix( "_unchanged" ), true );
+		IterationManifest.delete( this.fs, getManifestPath() );
+	}
+	
+	/**
+	 * Delete what the operation that follows the manifest of a failed run has left, if it was stopped
+	 * without the chance to clean up: its edges list, its certificates of the leaves and its finished stars.
+	 * @param manifest	the manifest of the failed run.
+	 * @throws IOException
+	 */
+	private void deletePartial( IterationManifest manifest ) throws IOException
+	{
+		int i = manifest.Operations;
+		this.fs.delete( this.input.suffix( "_" + (i+1) ), true );
+		this.fs.delete( this.input.suffix( "_" + (i+1) + "_leaves" ), true );
+		Path finished = this.input.suffix( "_finished" );
+		if ( this.fs.exists( finished ) )
+			for ( FileStatus file : this.fs.globStatus( new Path( finished, "part-" + i + "-*" ) ) )
+				this.fs.delete( file.getPath(), true );
+	}
+	
+	/**
+	 * Record the progress of the iterations in the manifest, before deleting the input of the completed operation.
+	 * @param manifest	the manifest to update.
+	 * @param i			number of Star operations completed.
+	 * @param round		number of iterations completed.
+	 * @param roundChanges	number of changes of the operations of the current iteration.
+	 * @param inputRecords	number of records of the newest edges list.
+	 * @param leaves	path of the certificates of the leaves written by the last Large-Star, or <c>null</c>.
+	 * @throws IOException
+	 */
+	private void saveManifest( IterationManifest manifest, int i, int round, long roundChanges, long inputRecords, Path leaves ) throws IOException
+	{
+		manifest.Operations = i;
+		manifest.Rounds = round;
+		manifest.RoundChanges = roundChanges;
+		manifest.InputRecords = inputRecords;
+		manifest.Leaves = leaves;
+		manifest.NumChanges.clear();
+		manifest.NumChanges.addAll( this.numChanges );
+		manifest.save( this.fs, getManifestPath() );
+	}
+	
+	/**
+	 * Execute the iterations on the result of the initialization with the chosen backend,
+	 * then the termination and the CheckDriver.
+	 * @param manifest	the manifest of the failed run to resume, or <c>null</c> in order to start from the initialization.
+	 * @return 	<c>false</c> if the orchestration failed, <c>true</c> otherwise. 
+	 * @throws Exception
+	 */
+	private boolean iterate( IterationManifest manifest ) throws Exception
+	{
+		this.numChanges.clear();
+		this.finishedLocally = false;
+		if ( manifest == null )
+		{
+			// Record the completed initialization.
+			manifest = new IterationManifest();
+			manifest.Backend = this.backend.name();
+			manifest.Strategy = this.strategy.getClass().getName();
+			manifest.Type = this.type;
+			manifest.NumCliques = this.numCliques;
+			manifest.NumInitialNodes = this.numInitialNodes;
+			manifest.InitialChecksum = this.initialChecksum;
+			manifest.UnchangedNodes = this.unchangedNodes;
+			manifest.UnchangedClusters = this.unchangedClusters;
+			manifest.Permutation = this.permutation;
+			manifest.save( this.fs, getManifestPath() );
+		}
+		else
+		{
+			// The failed run may have been stopped while writing the clusters
+			deletePartial( manifest );
+			this.fs.delete( this.output, true );
+		}
+		this.numChanges.addAll( manifest.NumChanges );
+		
+		if ( this.backend == Backend.IN_MEMORY )
+			return finishInMemory( 0, 0 );
 		
-		StarDriver largeStar, smallStar;
-		int i = 0;
-		do
+		if ( this.backend == Backend.UNION_FIND )
 		{
-			largeStar = new StarDriver( StarDriverType.LARGE, this.input.suffix( "_" + i ), this.input.suffix( "_" + (i+1) ), i, false );
-			if ( largeStar.run( null ) != 0 )
+			UnionFindDriver uf = new UnionFindDriver( this.input.suffix( "_0" ), this.output, false );
+			uf.setPermutation( this.permutation );
+			long start = System.currentTimeMillis();
+			if ( uf.run( null ) != 0 )
 			{
-				this.fs.delete( this.input.suffix( "_" + i ), true );
-				this.fs.delete( this.input.suffix( "_" + (i+1) ), true );
+				// Keep the initialization output for the resume
+				this.fs.delete( this.output, true );
 				return false;
 			}
+			this.reports.add( new JobReport( "UnionFindDriver", System.currentTimeMillis() - start ) );
 			
-			// Delete previous output
-			this.fs.delete( this.input.suffix( "_" + i ), true );
-			i++;
+			// Delete the manifest and the initialization output
+			IterationManifest.delete( this.fs, getManifestPath() );
+			this.fs.delete( this.input.suffix( "_0" ), true );
 			
-			smallStar = new StarDriver( StarDriverType.SMALL, this.input.suffix( "_" + i ), this.input.suffix( "_" + (i+1) ), i, false );
-			if ( smallStar.run( null ) != 0 )
+			this.numIterations = 0;
+			return check( uf.getNumNodes(), uf.getNumClusters(), false );
+		}
+		
+		if ( this.backend == Backend.HASH_TO_MIN )
+			return runHashToMin( manifest );
+		
+		boolean finishLocally = manifest.FinishLocally;
+		Path finished = this.input.suffix( "_finished" ), leaves = manifest.Leaves;
+		int i = manifest.Operations, round = manifest.Rounds;
+		long roundChanges = manifest.RoundChanges, inputRecords = manifest.InputRecords;
+		
+		// Replay the completed operations, in order to bring the strategy to the next one
+		this.strategy.reset();
+		StarDriverType starType = this.strategy.nextOperation( 0 );
+		for ( long changes : manifest.NumChanges )
+			starType = this.strategy.nextOperation( changes );
+		
+		while ( !finishLocally && starType != null )
+		{
+			StarDriver star = new StarDriver( starType, this.input.suffix( "_" + i ), this.input.suffix( "_" + (i+1) ), i, false );
+			star.setHubFraction( this.hubFraction );
+			star.setInputRecords( inputRecords );
+			star.setInMapperCapacity( this.inMapperCapacity );
+			if ( this.pruning && ( starType == StarDriverType.LARGE ) )
+				star.setPruning( finished, leaves );
+			if ( star.run( null ) != 0 )
 			{
-				this.fs.delete( this.input.suffix( "_" + i ), true );
+				// Keep the input, the finished stars and the certificates of the leaves for the resume
 				this.fs.delete( this.input.suffix( "_" + (i+1) ), true );
+				this.fs.delete( star.getLeavesPath(), true );
 				return false;
 			}
+			this.reports.add( star.getReport() );
 			
-			// Delete previous output
-			this.fs.delete( this.input.suffix( "_" + i ), true );
+			Path readLeaves = null;
+			if ( this.pruning && ( starType == StarDriverType.LARGE ) )
+			{
+				readLeaves = leaves;
+				leaves = star.getLeavesPath();
+			}
+			this.numChanges.add( star.getNumChanges() );
+			roundChanges += star.getNumChanges();
+			inputRecords = star.getNumOutputRecords();
 			i++;
+			
+			boolean endOfRound = this.strategy.endsIteration();
+			starType = this.strategy.nextOperation( star.getNumChanges() );
+			if ( endOfRound )
+			{
+				round++;
+				// Finish in memory when the remaining work is small, or instead of stopping without convergence.
+				finishLocally = ( starType != null ) && ( round >= MAX_ITERATIONS || roundChanges < this.localMaxChanges
+								|| this.fs.getContentSummary( this.input.suffix( "_" + i ) ).getLength() < this.localMaxBytes );
+				if ( !finishLocally )
+					roundChanges = 0;
+			}
+			
+			// Record the completed operation, then delete previous output and the certificates of the leaves read by this Large-Star
+			saveManifest( manifest, i, round, roundChanges, inputRecords, leaves );
+			this.fs.delete( this.input.suffix( "_" + (i-1) ), true );
+			if ( readLeaves != null )
+				this.fs.delete( readLeaves, true );
+		}
+		
+		if ( finishLocally )
+		{
+			// Record the switch, so that a resumed run finishes in memory too
+			manifest.FinishLocally = true;
+			saveManifest( manifest, i, round, roundChanges, inputRecords, leaves );
+			
+			// The finished stars are still stars for the InMemoryDriver, so they are moved together with the edges
+			if ( this.fs.exists( finished ) )
+				for ( FileStatus file : this.fs.listStatus( finished ) )
+					this.fs.rename( file.getPath(), new Path( this.input.suffix( "_" + i ), file.getPath().getName() ) );
+			deletePruned( finished, leaves );
+			return finishInMemory( i, round );
 		}
-		while ( (largeStar.getNumChanges() + smallStar.getNumChanges() != 0) && (i < 2*MAX_ITERATIONS) );
 		
 		// Run it in order to transform the edges list <nodeID, neighborID> into sets of nodes (clusters)
 		TerminationDriver term = new TerminationDriver( this.input.suffix( "_" + i ), this.output, false );
+		term.setFinished( finished );
+		term.setPermutation( this.permutation );
 		if ( term.run( null ) != 0 )
 		{
-			this.fs.delete( this.input.suffix( "_" + i ), true );
+			// Keep the last iteration and the finished stars for the resume
 			this.fs.delete( this.output, true );
 			return false;
 		}
-
-		// Delete last iteration
+		this.reports.add( term.getReport() );
+		
+		// Delete the manifest and the last iteration
+		IterationManifest.delete( this.fs, getManifestPath() );
 		this.fs.delete(  this.input.suffix( "_" + i ), true );
+		deletePruned( finished, leaves );
+		
+		this.numIterations = round;
+		return check( term.getNumNodes(), term.getNumClusters(), matchesInitialNodes( term.getNumNodes(), term.getChecksum() ) );
+	}
+	
+	/**
+	 * Execute the Hash-to-Min algorithm on the result of the initialization, then run the CheckDriver.
+	 * <code>
+	 *	HashToMinDriver( INITIALIZATION )
+	 *	repeat
+	 * 	|	HashToMinDriver( ITERATION )
+	 *  until Convercence()
+	 *	HashToMinDriver( TERMINATION )
+	 * </code>
+	 * @param manifest	the manifest of the iterations, updated after each completed Job.
+	 * @return 	<c>false</c> if the orchestration failed, <c>true</c> otherwise. 
+	 * @throws Exception
+	 */
+	private boolean runHashToMin( IterationManifest manifest ) throws Exception
+	{
+		HashToMinDriver hashToMin;
+		int i = manifest.Operations;
+		if ( i == 0 )
+		{
+			// Transform the edges list into the initial clusters of the nodes.
+			hashToMin = new HashToMinDriver( HashToMinDriverType.INITIALIZATION, this.input.suffix( "_0" ), this.input.suffix( "_1" ), 0, false );
+			if ( hashToMin.run( null ) != 0 )
+			{
+				// Keep the initialization output for the resume
+				this.fs.delete( this.input.suffix( "_1" ), true );
+				return false;
+			}
+			this.reports.add( hashToMin.getReport() );
+			i = 1;
+			saveManifest( manifest, i, 0, 0, -1, null );
+			this.fs.delete( this.input.suffix( "_0" ), true );
+		}
+		
+		// The last recorded iteration has not produced changes, if the failed run was writing the clusters
+		boolean converged = !this.numChanges.isEmpty() && ( this.numChanges.get( this.numChanges.size() - 1 ) == 0 );
+		while ( !converged )
+		{
+			hashToMin = new HashToMinDriver( HashToMinDriverType.ITERATION, this.input.suffix( "_" + i ), this.input.suffix( "_" + (i+1) ), i, false );
+			if ( hashToMin.run( null ) != 0 )
+			{
+				// Keep the input for the resume
+				this.fs.delete( this.input.suffix( "_" + (i+1) ), true );
+				return false;
+			}
+			this.reports.add( hashToMin.getReport() );
+			this.numChanges.add( hashToMin.getNumChanges() );
+			converged = ( hashToMin.getNumChanges() == 0 );
+			i++;
+			
+			// Record the completed iteration, then delete previous output
+			saveManifest( manifest, i, i - 1, 0, -1, null );
+			this.fs.delete( this.input.suffix( "_" + (i-1) ), true );
+		}
 		
-		CheckDriver check = new CheckDriver( this.output, false );
-		if ( check.run( null ) != 0)
+		// Write the clusters of the minimum nodes.
+		hashToMin = new HashToMinDriver( HashToMinDriverType.TERMINATION, this.input.suffix( "_" + i ), this.output, i, false );
+		hashToMin.setPermutation( this.permutation );
+		if ( hashToMin.run( null ) != 0 )
+		{
+			// Keep the last iteration for the resume
+			this.fs.delete( this.output, true );
 			return false;
+		}
+		this.reports.add( hashToMin.getReport() );
 		
-		this.type = init.getInputType();
-		this.numCliques = init.getNumCliques();
-		this.numInitialNodes = init.getNumInitialNodes();
-		this.numClusters = term.getNumClusters();
-		this.numNodes = term.getNumNodes();
-		this.testOk = check.isTestOk();
+		// Delete the manifest and the last iteration
+		IterationManifest.delete( this.fs, getManifestPath() );
+		this.fs.delete( this.input.suffix( "_" + i ), true );
+		
+		this.numIterations = i - 1;
+		return check( hashToMin.getNumNodes(), hashToMin.getNumClusters(), matchesInitialNodes( hashToMin.getNumNodes(), hashToMin.getChecksum() ) );
+	}
+	
+	/**
+	 * Delete the folders written by the pruning of the finished stars.
+	 * @param finished	path of the folder that collects the edges of the finished stars.
+	 * @param leaves	path of the certificates of the leaves, or <c>null</c>.
+	 * @throws IOException
+	 */
+	private void deletePruned( Path finished, Path leaves ) throws IOException
+	{
+		this.fs.delete( finished, true );
+		if ( leaves != null )
+			this.fs.delete( leaves, true );
+	}
+	
+	/**
+	 * Run the \see InMemoryDriver on the edges list produced by the i-th operation, in order to execute the remaining
+	 * iterations and write the clusters in the output folder, then run the CheckDriver.
+	 * @param i			number of Star operations already executed.
+	 * @param rounds	number of iterations already executed.
+	 * @return 	<c>false</c> if the orchestration failed, <c>true</c> otherwise. 
+	 * @throws Exception
+	 */
+	private boolean finishInMemory( int i, int rounds ) throws Exception
+	{
+		InMemoryDriver mem = new InMemoryDriver( this.input.suffix( "_" + i ), this.output, false );
+		mem.setPermutation( this.permutation );
+		long start = System.currentTimeMillis();
+		if ( mem.run( null ) != 0 )
+		{
+			// Keep the last iteration for the resume
+			this.fs.delete( this.output, true );
+			return false;
+		}
+		this.reports.add( new JobReport( "InMemoryDriver", System.currentTimeMillis() - start ) );
+		
+		// Delete the manifest and the last iteration
+		IterationManifest.delete( this.fs, getManifestPath() );
+		this.fs.delete( this.input.suffix( "_" + i ), true );
+		
+		this.finishedLocally = ( i > 0 );
+		this.numIterations = rounds + mem.getNumIterations();
+		this.numChanges.addAll( mem.getNumChanges() );
+		return check( mem.getNumNodes(), mem.getNumClusters(), false );
+	}
+	
+	/**
+	 * Check if the nodes found by the termination are exactly the initial nodes, comparing their number and their checksum
+	 * ( \see NodeWritable.checksum ) with the ones computed by the \see InitializationDriver.
+	 * A node missing or repeated in the clusters changes both aggregates, so they agree only if every node
+	 * belongs to exactly one cluster, apart from a negligible probability of collision.
+	 * In the incremental mode the termination sees only the affected clusters, so the aggregates are not comparable.
+	 * @param numNodes		number of nodes found by the termination.
+	 * @param checksum		checksum of the nodes found by the termination.
+	 * @return 	<c>true</c> if the aggregates agree, <c>false</c> otherwise.
+	 */
+	private boolean matchesInitialNodes( long numNodes, long checksum )
+	{
+		return ( this.previous == null && numNodes == this.numInitialNodes && checksum == this.initialChecksum );
+	}
+	
+	/**
+	 * Run the CheckDriver on the output folder, unless the aggregates of the termination already prove that the clusters
+	 * are well formed ( \see matchesInitialNodes ), and set up the private variables.
+	 * @param numNodes		number of nodes found.
+	 * @param numClusters	number of clusters found.
+	 * @param verified		<c>true</c> if the aggregates of the termination agree with the ones of the initialization.
+	 * @return 	<c>false</c> if the CheckDriver failed, <c>true</c> otherwise. 
+	 * @throws Exception
+	 */
+	private boolean check( long numNodes, long numClusters, boolean verified ) throws Exception
+	{
+		// In the incremental mode, the unchanged clusters complete the output
+		if ( this.previous != null )
+			for ( FileStatus file : this.fs.globStatus( new Path( this.output.suffix( "_unchanged" ), "part*" ) ) )
+				this.fs.rename( file.getPath(), new Path( this.output, "part-unchanged-" + file.getPath().getName().substring( 5 ) ) );
+		
+		// The full shuffle of the CheckDriver is needed only if the aggregates disagree
+		this.testOk = verified;
+		if ( !verified )
+		{
+			CheckDriver check = new CheckDriver( this.output, false );
+			if ( check.run( null ) != 0)
+				return false;
+			this.reports.add( check.getReport() );
+			this.testOk = check.isTestOk();
+		}
+		
+		// In the dictionary mode, translate the clusters back into the tokens.
+		if ( this.dictionary != null )
+		{
+			DictionaryDriver decode = new DictionaryDriver( DictionaryDriverType.DECODE, this.output, getExternalPath(), this.dictionary, false );
+			if ( decode.run( null ) != 0 )
+			{
+				this.fs.delete( getExternalPath(), true );
+				return false;
+			}
+			this.reports.addAll( decode.getReports() );
+		}
+		writeReport();
+		
+		this.numClusters = numClusters + this.unchangedClusters;
+		this.numNodes = numNodes + this.unchangedNodes;
 		
 		return true;
 	}
 	
+	/**
+	 * Write the performance reports of all the phases next to the output folder,
+	 * in the JSON format ( \see getReportPath ) and in the CSV format ( same path with the <em>.csv</em> extension ).
+	 * @throws IOException
+	 */
+	private void writeReport() throws IOException
+	{
+		FSDataOutputStream json = this.fs.create( getReportPath(), true );
+		try
+		{
+			json.write( JobReport.toJson( this.reports ).getBytes( "UTF-8" ) );
+		}
+		finally
+		{
+			json.close();
+		}
+		
+		FSDataOutputStream csv = this.fs.create( this.output.suffix( "_report.csv" ), true );
+		try
+		{
+			csv.write( JobReport.toCsv( this.reports ).getBytes( "UTF-8" ) );
+		}
+		finally
+		{
+			csv.close();
+		}
+	}
+	
 	/**
 	 * Return the type of format of the input file.
 	 * @return 	the type of format of the input file.
@@ -180,6 +829,75 @@ public class ConnectedComponents
 		return this.numClusters;
 	}
 	
+	/**
+	 * Return the number of iterations, i.e. the number of Large-Star and Small-Star pairs, executed.
+	 * @return 	number of iterations.
+	 */
+	public int getNumIterations()
+	{
+		return this.numIterations;
+	}
+	
+	/**
+	 * Return the number of changes occurred during each iteration Job ( \see StarDriver, \see HashToMinDriver ),
+	 * or each in memory operation, in order of execution.
+	 * @return 	number of changes of each operation.
+	 */
+	public List<Long> getNumChanges()
+	{
+		return this.numChanges;
+	}
+	
+	/**
+	 * Return the performance reports of the phases executed by the last run, in order of execution:
+	 * the initialization, each iteration Job or local execution, the termination and the check.
+	 * @return 	the reports of the phases.
+	 */
+	public List<JobReport> getReports()
+	{
+		return this.reports;
+	}
+	
+	/**
+	 * Return the path of the JSON performance report, written next to the output folder.
+	 * The CSV report has the same path with the <em>.csv</em> extension.
+	 * @return 	path of the JSON report.
+	 */
+	public Path getReportPath()
+	{
+		return this.output.suffix( "_report.json" );
+	}
+	
+	/**
+	 * Return the path of the manifest of the iterations ( \see IterationManifest ), written next to the input
+	 * together with the edges lists of the iterations. It is deleted as soon as the clusters are written.
+	 * @return 	path of the manifest.
+	 */
+	public Path getManifestPath()
+	{
+		return this.input.suffix( "_manifest" );
+	}
+	
+	/**
+	 * Return the path of the clusters translated back into the tokens of the input, written next to the output folder
+	 * in the dictionary mode ( \see setDictionary ). Each line is a cluster, i.e. its tokens separated by a space.
+	 * @return 	path of the clusters of tokens.
+	 */
+	public Path getExternalPath()
+	{
+		return this.output.suffix( "_external" );
+	}
+	
+	/**
+	 * Return <code>true</code> if the MAPREDUCE backend has switched to the \see InMemoryDriver
+	 * in order to finish the convergence, <code>false</code> otherwise.
+	 * @return 	<code>true</code> if the last iterations have been executed in memory.
+	 */
+	public boolean isFinishedLocally()
+	{
+		return this.finishedLocally;
+	}
+	
 	/**
 	 * Return <code>false</code> if the checking phase has found that at least one Cluster is malformed,
 	 * <code>true</code> otherwise.
@@ -197,16 +915,39 @@ public class ConnectedComponents
 	 */
 	public static void main( String[] args ) throws Exception 
 	{
-		if ( args.length != 2 )
+		// The format of a binary input is the optional last argument.
+		InputType type = null;
+		if ( args.length >= 3 && ( args[args.length - 1].equals( "binary" ) || args[args.length - 1].equals( "binary64" ) ) )
+		{
+			type = args[args.length - 1].equals( "binary64" ) ? InputType.BINARY_EDGES_LONG : InputType.BINARY_EDGES;
+			args = Arrays.copyOf( args, args.length - 1 );
+		}
+		if ( args.length < 2 || args.length > 5 )
 		{
-			System.out.println( "Usage: ConnectedComponents <input> <output>" );
+			System.out.println( "Usage: ConnectedComponents <input> <output> [mapreduce|memory|unionfind|hashtomin] [alternating|twophase|fused] [previous|resume] [binary|binary64]" );
 			System.exit(1);
 		}
 		
 		Path input = new Path( args[0] );
 		Path output = new Path( args[1] );
+		Backend backend = Backend.MAPREDUCE;
+		if ( args.length >= 3 && args[2].toLowerCase().equals( "memory" ) )
+			backend = Backend.IN_MEMORY;
+		else if ( args.length >= 3 && args[2].toLowerCase().equals( "unionfind" ) )
+			backend = Backend.UNION_FIND;
+		else if ( args.length >= 3 && args[2].toLowerCase().equals( "hashtomin" ) )
+			backend = Backend.HASH_TO_MIN;
 		System.out.println( "Start ConnectedComponents." );
-		ConnectedComponents cc = new ConnectedComponents( input, output );
+		ConnectedComponents cc = new ConnectedComponents( input, output, backend );
+		cc.setInputType( type );
+		if ( args.length >= 4 && args[3].toLowerCase().equals( "twophase" ) )
+			cc.setStrategy( new TwoPhaseStrategy() );
+		else if ( args.length >= 4 && args[3].toLowerCase().equals( "fused" ) )
+			cc.setStrategy( new FusedStrategy() );
+		if ( args.length == 5 && args[4].toLowerCase().equals( "resume" ) )
+			cc.setResume( true );
+		else if ( args.length == 5 )
+			cc.setPrevious( new Path( args[4] ) );
 		if ( !cc.run() )
 			System.exit( 1 );
 		System.out.println( "End ConnectedComponents." );
@@ -216,7 +957,10 @@ public class ConnectedComponents
 		System.out.println( "Number of Cliques: \033[1;94m" + cc.getNumCliques() + "\033[0m." );
 		System.out.println( "Number of final nodes: \033[1;94m" + cc.getNumNodes() + "\033[0m." );
 		System.out.println( "Number of Clusters: \033[1;94m" + cc.getNumClusters() + "\033[0m." );
+		System.out.println( "Number of iterations: \033[1;94m" + cc.getNumIterations() + "\033[0m." );
+		System.out.println( "Number of iteration Jobs: \033[1;94m" + cc.getNumChanges().size() + "\033[0m." );
 		System.out.println( "TestOK: \033[1;94m" + String.valueOf( cc.isTestOk() ) + "\033[0m." );
+		System.out.println( "Report: \033[1;94m" + cc.getReportPath() + "\033[0m." );
 		
 		System.exit( 0 );
 	}
@@ -0,0 +1,49 @@
+/**
+ *	@file ConvergenceStrategy.java
+ *	@brief Schedule of the Star operations executed by \see ConnectedComponents until convergence.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import pad.StarDriver.StarDriverType;
+
+/**
+ * Schedule of the Star operations executed by \see ConnectedComponents until convergence.
+ * The orchestration asks the strategy which \see StarDriver Job to run next, giving it the number of changes
+ * produced by the previous one, until the strategy answers that the graph has converged into a set of stars.
+ * The Jobs are grouped in iterations, used to count the rounds and to decide when to finish in memory.
+ */
+public interface ConvergenceStrategy
+{
+	/** Prepare the strategy for a new execution, starting from the first operation. */
+	public void reset();
+	
+	/**
+	* Return the next operation to execute.
+	* @param changes	number of changes produced by the previous operation; not used at the first call after \see reset.
+	* @return 			the type of the next \see StarDriver Job, or <c>null</c> if the graph has converged.
+	*/
+	public StarDriverType nextOperation( long changes );
+	
+	/**
+	* Return <c>true</c> if the operation last returned by \see nextOperation is the last one of an iteration.
+	* @return 			<c>true</c> if the operation ends an iteration, <c>false</c> otherwise.
+	*/
+	public boolean endsIteration();
+}
@@ -0,0 +1,55 @@
+/**
+ *	@file DictionaryClusterMapper.java
+ *	@brief Mapper task of the first Job of the \see DictionaryDriver, in the DECODE mode, for the clusters.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**	Mapper task of the first Job of the \see DictionaryDriver, in the DECODE mode, for the clusters. */
+public class DictionaryClusterMapper extends Mapper<ClusterWritable, NullWritable, NodesPairWritable, Text>
+{
+	// The empty value tells that the node belongs to the cluster of the NeighbourID.
+	private static final Text EMPTY = new Text();
+	private NodesPairWritable pair = new NodesPairWritable();
+	
+	/**
+	* Map method of the this DictionaryClusterMapper class.
+	* For each node of the cluster, we emit the pair <NodeID, ClusterID>, where the ClusterID is the first node of the cluster.
+	* Thanks to the secondary sort, the \see DictionaryTranslateReducer receives the token of the NodeID before these pairs.
+	* @param cluster	the cluster, with the dense identifiers of its nodes.
+	* @param _			not used.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( ClusterWritable cluster, NullWritable _, Context context ) throws IOException, InterruptedException
+	{
+		pair.NeighbourID = cluster.get( 0 );
+		for ( int i = 0; i < cluster.size(); i++ )
+		{
+			pair.NodeID = cluster.get( i );
+			context.write( pair, EMPTY );
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ *	@file DictionaryClusterReducer.java
+ *	@brief Reducer task of the second Job of the \see DictionaryDriver, in the DECODE mode.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import pad.UtilCounters;
+
+/**	Reducer task of the second Job of the \see DictionaryDriver, in the DECODE mode. */
+public class DictionaryClusterReducer extends Reducer<NodeWritable, Text, Text, NullWritable>
+{
+	private static final NullWritable NULL = NullWritable.get();
+	private static final byte[] SPACE = { ' ' };
+	private Text line = new Text();
+	
+	/**
+	* Reduce method of the this DictionaryClusterReducer class.
+	* Write the tokens of the cluster in a line, separated by a space, i.e. in the cliques format.
+	* Than we increment the NUM_NODES and NUM_CLUSTERS of \see UtilCounters.
+	* @param clusterID	identifier of the cluster, not used in this method.
+	* @param tokens		the tokens of the nodes of the cluster.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( NodeWritable clusterID, Iterable<Text> tokens, Context context ) throws IOException, InterruptedException
+	{
+		line.clear();
+		long numNodes = 0;
+		for ( Text token : tokens )
+		{
+			if ( numNodes++ > 0 )
+				line.append( SPACE, 0, 1 );
+			line.append( token.getBytes(), 0, token.getLength() );
+		}
+		
+		context.getCounter( UtilCounters.NUM_NODES ).increment( numNodes );
+		context.getCounter( UtilCounters.NUM_CLUSTERS ).increment( 1 );
+		context.write( line, NULL );
+	}
+}
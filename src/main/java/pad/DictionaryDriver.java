@@ -0,0 +1,363 @@
+/**
+ *	@file DictionaryDriver.java
+ *	@brief Driver of the Jobs responsible for translating arbitrary external node identifiers into dense identifiers and back.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+import pad.InitializationDriver.InputType;
+
+/**
+ * Driver of the Jobs responsible for translating arbitrary external node identifiers, e.g. strings, UUIDs or sparse longs,
+ * into dense identifiers, i.e. the consecutive longs from zero, and back.
+ * The dense identifiers make the rest of the algorithm cheaper: the \see NodeWritable of small values are shorter,
+ * the \see NodePartitioner spreads them uniformly and the drivers that index arrays by node ( \see UnionFindDriver )
+ * can be used. The dictionary, i.e. the pairs <ID, Token>, is stored as a SequenceFile.
+ */
+public class DictionaryDriver extends Configured implements Tool
+{
+	/**
+	 * The DictionaryDriver can be of type:
+	 * - ENCODE: translates an adjacency list or cliques list of tokens into a binary edges list of dense identifiers
+	 *   ( \see BinaryEdgeOutputFormat ), and writes the dictionary;
+	 * - DECODE: translates the clusters of dense identifiers ( \see ClusterWritable ) into text lines of tokens.
+	 */
+	public enum DictionaryDriverType { ENCODE, DECODE };
+	/** Directory name for the dictionary written by the second Job of the ENCODE mode. */
+	public static final String MOS_OUTPUT_NAME = "dictionary";
+	/** Base output path for the dictionary. */
+	public static final String MOS_BASEOUTPUTPATH = MOS_OUTPUT_NAME + "/part";
+	/** Directory name for the number of tokens found by each Reducer of the first Job of the ENCODE mode. */
+	public static final String COUNTS_FOLDER = "_counts";
+	/** Name of the property that stores the offset of each Reducer of the first Job of the ENCODE mode. */
+	public static final String OFFSETS = "dictionary.offsets";
+	
+	private final DictionaryDriverType type;
+	private final Path input, output, dictionary;
+	private final boolean verbose;
+	private List<JobReport> reports = new ArrayList<JobReport>();
+	private long numNodes, numClusters;
+	
+	/**
+	* Initializes a new instance of the DictionaryDriver class.
+	* @param type		identify which kind of translation execute.
+	* @param input		path of the input graph of tokens (ENCODE), or of the clusters of dense identifiers (DECODE).
+	* @param output		path of the binary edges list (ENCODE), or of the clusters of tokens (DECODE).
+	* @param dictionary	path of the dictionary, written by ENCODE and read by DECODE.
+	* @param verbose	if <c>true</c> shows on screen the messages of the Job execution.
+	*/
+	public DictionaryDriver( DictionaryDriverType type, Path input, Path output, Path dictionary, boolean verbose )
+	{
+		this.type = type;
+		this.input = input;
+		this.output = output;
+		this.dictionary = dictionary;
+		this.verbose = verbose;
+	}
+	
+	/**
+	 * Execute the Jobs of the DictionaryDriver.
+	 * 
+	 * In the ENCODE mode, the first Job ( \see DictionaryMapper, \see DictionaryReducer ) groups the edges by token:
+	 * each Reducer numbers its tokens and sends the number of each token to all its neighbours.
+	 * The number of tokens of each Reducer gives its offset, so the second Job ( \see DictionaryJoinReducer )
+	 * receives each token with its number and the numbers of the tokens that reference it, thanks to the secondary sort
+	 * of \see TokenWritable, and it writes the dense edges list and the dictionary.
+	 * The edges list uses 32-bit identifiers if they are enough, 64-bit identifiers otherwise ( \see getInputType ).
+	 * 
+	 * In the DECODE mode, the first Job joins the clusters ( \see DictionaryClusterMapper ) with the dictionary
+	 * ( \see DictionaryEntryMapper ) by dense identifier, with the secondary sort of \see NodesPairWritable,
+	 * and the \see DictionaryTranslateReducer emits the token of each node with the identifier of its cluster;
+	 * the second Job groups them back into clusters ( \see DictionaryClusterReducer ).
+	 * 
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if a Job failed its execution; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		this.reports.clear();
+		return ( this.type == DictionaryDriverType.ENCODE ) ? encode( conf ) : decode( conf );
+	}
+	
+	/**
+	 * Execute the two Jobs of the ENCODE mode.
+	 * @param conf		configuration of the Jobs.
+	 * @return 			<c>1</c> if a Job failed its execution; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	private int encode( Configuration conf ) throws Exception
+	{
+		FileSystem fs = FileSystem.get( conf );
+		Path tokens = this.output.suffix( "_tokens" );
+		
+		// Number the tokens and send the numbers to the neighbours.
+		Job job = new Job( conf, "DictionaryDriver numbering" );
+		job.setJarByClass( DictionaryDriver.class );
+		job.setMapOutputKeyClass( Text.class );
+		job.setMapOutputValueClass( Text.class );
+		job.setOutputKeyClass( TokenWritable.class );
+		job.setOutputValueClass( NodeWritable.class );
+		job.setMapperClass( DictionaryMapper.class );
+		job.setReducerClass( DictionaryReducer.class );
+		job.setInputFormatClass( TextInputFormat.class );
+		job.setOutputFormatClass( SequenceFileOutputFormat.class );
+		FileInputFormat.addInputPath( job, this.input );
+		FileOutputFormat.setOutputPath( job, tokens );
+		
+		long start = System.currentTimeMillis();
+		if ( !job.waitForCompletion( this.verbose ) )
+		{
+			fs.delete( tokens, true );
+			return 1;
+		}
+		this.reports.add( new JobReport( job, System.currentTimeMillis() - start ) );
+		
+		// The offset of each Reducer is the number of tokens found by the previous ones.
+		int numPartitions = job.getNumReduceTasks();
+		long[] counts = new long[numPartitions];
+		for ( FileStatus file : fs.listStatus( new Path( tokens, COUNTS_FOLDER ) ) )
+		{
+			FSDataInputStream in = fs.open( file.getPath() );
+			try
+			{
+				counts[Integer.parseInt( file.getPath().getName() )] = in.readLong();
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		StringBuilder offsets = new StringBuilder();
+		this.numNodes = 0;
+		for ( int p = 0; p < numPartitions; p++ )
+		{
+			offsets.append( ( p == 0 ) ? "" : "," ).append( this.numNodes );
+			this.numNodes += counts[p];
+		}
+		conf.set( OFFSETS, offsets.toString() );
+		conf.setBoolean( BinaryEdgeInputFormat.LONG_IDS, getInputType() == InputType.BINARY_EDGES_LONG );
+		
+		// Join each token with the numbers of the tokens that reference it.
+		job = new Job( conf, "DictionaryDriver join" );
+		job.setJarByClass( DictionaryDriver.class );
+		job.setMapOutputKeyClass( TokenWritable.class );
+		job.setMapOutputValueClass( NodeWritable.class );
+		job.setOutputKeyClass( NodeWritable.class );
+		job.setOutputValueClass( NodeWritable.class );
+		job.setMapperClass( Mapper.class );
+		job.setPartitionerClass( TokenWritable.TokenPartitioner.class );
+		job.setSortComparatorClass( TokenWritable.Comparator.class );
+		job.setGroupingComparatorClass( TokenWritable.TokenGroupingComparator.class );
+		job.setReducerClass( DictionaryJoinReducer.class );
+		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setOutputFormatClass( BinaryEdgeOutputFormat.class );
+		MultipleOutputs.addNamedOutput( job, MOS_OUTPUT_NAME, SequenceFileOutputFormat.class, NodeWritable.class, Text.class );
+		FileInputFormat.addInputPath( job, tokens );
+		FileOutputFormat.setOutputPath( job, this.output );
+		
+		start = System.currentTimeMillis();
+		boolean completed = job.waitForCompletion( this.verbose );
+		fs.delete( tokens, true );
+		if ( !completed )
+			return 1;
+		this.reports.add( new JobReport( job, System.currentTimeMillis() - start ) );
+		
+		// Move the dictionary out of the edges list.
+		fs.delete( this.dictionary, true );
+		fs.rename( new Path( this.output, MOS_OUTPUT_NAME ), this.dictionary );
+		return 0;
+	}
+	
+	/**
+	 * Execute the two Jobs of the DECODE mode.
+	 * @param conf		configuration of the Jobs.
+	 * @return 			<c>1</c> if a Job failed its execution; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	private int decode( Configuration conf ) throws Exception
+	{
+		FileSystem fs = FileSystem.get( conf );
+		Path tokens = this.output.suffix( "_tokens" );
+		
+		// Join the nodes of the clusters with their tokens.
+		Job job = new Job( conf, "DictionaryDriver translation" );
+		job.setJarByClass( DictionaryDriver.class );
+		job.setMapOutputKeyClass( NodesPairWritable.class );
+		job.setMapOutputValueClass( Text.class );
+		job.setOutputKeyClass( NodeWritable.class );
+		job.setOutputValueClass( Text.class );
+		MultipleInputs.addInputPath( job, this.input, SequenceFileInputFormat.class, DictionaryClusterMapper.class );
+		MultipleInputs.addInputPath( job, this.dictionary, SequenceFileInputFormat.class, DictionaryEntryMapper.class );
+		job.setPartitionerClass( NodePartitioner.class );
+		job.setSortComparatorClass( NodesPairWritable.Comparator.class );
+		job.setGroupingComparatorClass( NodeGroupingComparator.class );
+		job.setReducerClass( DictionaryTranslateReducer.class );
+		job.setOutputFormatClass( SequenceFileOutputFormat.class );
+		FileOutputFormat.setOutputPath( job, tokens );
+		
+		long start = System.currentTimeMillis();
+		if ( !job.waitForCompletion( this.verbose ) )
+		{
+			fs.delete( tokens, true );
+			return 1;
+		}
+		this.reports.add( new JobReport( job, System.currentTimeMillis() - start ) );
+		
+		// Group the tokens by cluster.
+		job = new Job( conf, "DictionaryDriver clusters" );
+		job.setJarByClass( DictionaryDriver.class );
+		job.setMapOutputKeyClass( NodeWritable.class );
+		job.setMapOutputValueClass( Text.class );
+		job.setOutputKeyClass( Text.class );
+		job.setOutputValueClass( NullWritable.class );
+		job.setMapperClass( Mapper.class );
+		job.setReducerClass( DictionaryClusterReducer.class );
+		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setOutputFormatClass( TextOutputFormat.class );
+		FileInputFormat.addInputPath( job, tokens );
+		FileOutputFormat.setOutputPath( job, this.output );
+		
+		start = System.currentTimeMillis();
+		boolean completed = job.waitForCompletion( this.verbose );
+		fs.delete( tokens, true );
+		if ( !completed )
+			return 1;
+		this.reports.add( new JobReport( job, System.currentTimeMillis() - start ) );
+		
+		// Set up the private variables looking to the counters value
+		this.numNodes = job.getCounters().findCounter( UtilCounters.NUM_NODES ).getValue();
+		this.numClusters = job.getCounters().findCounter( UtilCounters.NUM_CLUSTERS ).getValue();
+		return 0;
+	}
+	
+	/**
+	 * Read the offsets of the Reducers of the first Job of the ENCODE mode from the configuration.
+	 * @param conf		configuration of the Job.
+	 * @return 			the offset of each Reducer.
+	 */
+	public static long[] readOffsets( Configuration conf )
+	{
+		String[] values = conf.get( OFFSETS ).split( "," );
+		long[] offsets = new long[values.length];
+		for ( int i = 0; i < values.length; i++ )
+			offsets[i] = Long.parseLong( values[i] );
+		return offsets;
+	}
+	
+	/**
+	 * Return the format of the binary edges list written by the ENCODE mode, with 32-bit identifiers
+	 * if all the dense identifiers fit them, with 64-bit identifiers otherwise.
+	 * @return 	the format of the edges list, to be passed to the \see InitializationDriver.
+	 */
+	public InputType getInputType()
+	{
+		return ( this.numNodes - 1 > Integer.MAX_VALUE ) ? InputType.BINARY_EDGES_LONG : InputType.BINARY_EDGES;
+	}
+	
+	/**
+	 * Return the number of distinct tokens (ENCODE), or the number of nodes of the clusters (DECODE).
+	 * @return 	number of nodes.
+	 */
+	public long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Return the number of clusters translated by the DECODE mode.
+	 * @return 	number of clusters.
+	 */
+	public long getNumClusters()
+	{
+		return this.numClusters;
+	}
+	
+	/**
+	 * Return the performance reports of the Jobs, in order of execution.
+	 * @return 	the reports of the Jobs.
+	 */
+	public List<JobReport> getReports()
+	{
+		return this.reports;
+	}
+	
+	/**
+	 * Main of the \see DictionaryDriver class.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception 
+	{
+		if ( args.length != 4 || ( !args[0].toLowerCase().equals( "encode" ) && !args[0].toLowerCase().equals( "decode" ) ) )
+		{
+			System.out.println( "Usage: DictionaryDriver encode <input> <output> <dictionary>" );
+			System.out.println( "       DictionaryDriver decode <clusters> <output> <dictionary>" );
+			System.exit(1);
+		}
+		
+		DictionaryDriverType type = args[0].toLowerCase().equals( "encode" ) ? DictionaryDriverType.ENCODE : DictionaryDriverType.DECODE;
+		Path input = new Path( args[1] );
+		Path output = new Path( args[2] );
+		Path dictionary = new Path( args[3] );
+		System.out.println( "Start DictionaryDriver " + type.toString() + "." );
+		DictionaryDriver dict = new DictionaryDriver( type, input, output, dictionary, true );
+		if ( dict.run( null ) != 0 )
+		{
+			FileSystem fs = FileSystem.get( new Configuration() );
+			fs.delete( output, true );
+			if ( type == DictionaryDriverType.ENCODE )
+				fs.delete( dictionary, true );
+			System.exit( 1 );
+		}
+		System.out.println( "End DictionaryDriver " + type.toString() + "." );
+		System.out.println( "Number of nodes: \033[1;94m" + dict.getNumNodes() + "\033[0m." );
+		if ( type == DictionaryDriverType.DECODE )
+			System.out.println( "Number of Clusters: \033[1;94m" + dict.getNumClusters() + "\033[0m." );
+		
+		System.exit( 0 );
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ *	@file DictionaryEntryMapper.java
+ *	@brief Mapper task of the first Job of the \see DictionaryDriver, in the DECODE mode, for the dictionary.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**	Mapper task of the first Job of the \see DictionaryDriver, in the DECODE mode, for the dictionary. */
+public class DictionaryEntryMapper extends Mapper<NodeWritable, Text, NodesPairWritable, Text>
+{
+	private NodesPairWritable pair = new NodesPairWritable();
+	
+	/**
+	* Map method of the this DictionaryEntryMapper class.
+	* For each dictionary entry, we emit the pair <NodeID, -1> with the token as value:
+	* minus one is smaller than every ClusterID, so the token is the first value received by the Reducer.
+	* @param nodeID		the dense identifier.
+	* @param token		the external identifier.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( NodeWritable nodeID, Text token, Context context ) throws IOException, InterruptedException
+	{
+		pair.NodeID = nodeID.get();
+		pair.NeighbourID = -1;
+		context.write( pair, token );
+	}
+}
@@ -0,0 +1,115 @@
+/**
+ *	@file DictionaryJoinReducer.java
+ *	@brief Reducer task of the second Job of the \see DictionaryDriver, in the ENCODE mode.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+/**	Reducer task of the second Job of the \see DictionaryDriver, in the ENCODE mode. */
+public class DictionaryJoinReducer extends Reducer<TokenWritable, NodeWritable, NodeWritable, NodeWritable>
+{
+	// Minus one indicates that a node is alone.
+	private static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable neighbourID = new NodeWritable();
+	private MultipleOutputs<NodeWritable, NodeWritable> mos = null;
+	private long[] offsets;
+	
+	/**
+	 * Setup method of the this DictionaryJoinReducer class.
+	 * Read the offsets of the Reducers of the first Job and set up the multiple outputs variable,
+	 * used to write the dictionary into its special folder.
+	 * @param context	context of this Job.
+	 * @throws IOException, InterruptedException
+	 */
+	protected void setup( Context context ) throws IOException, InterruptedException
+	{
+		this.offsets = DictionaryDriver.readOffsets( context.getConfiguration() );
+		this.mos = new MultipleOutputs<NodeWritable, NodeWritable>( context );
+	}
+	
+	/**
+	* Translate the identifier assigned by a Reducer of the first Job into the dense identifier.
+	* @param localID	identifier assigned by \see DictionaryReducer.
+	* @return			the dense identifier.
+	*/
+	private long getDenseID( long localID )
+	{
+		return this.offsets[(int) ( localID % this.offsets.length )] + localID / this.offsets.length;
+	}
+	
+	/**
+	* Reduce method of the this DictionaryJoinReducer class.
+	* Thanks to the secondary sort ( \see TokenWritable ), the first value is the identifier of the token itself,
+	* which is written into the dictionary as <ID, Token>; the other values are the identifiers of the tokens
+	* that reference it, so for each of them we emit the edge <ID, NeighbourID>.
+	* If the token is referenced only by itself, it is an alone node and we emit <ID, -1>.
+	* @param token		the token.
+	* @param values		the identifier of the token, followed by the identifiers of the tokens that reference it.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( TokenWritable token, Iterable<NodeWritable> values, Context context ) throws IOException, InterruptedException
+	{
+		Iterator<NodeWritable> iterator = values.iterator();
+		long localID = iterator.next().get();
+		if ( token.Tag != TokenWritable.ENTRY )
+			throw new IOException( "The token \"" + token.Token + "\" has no dictionary entry" );
+		
+		// Write the dictionary entry.
+		nodeID.set( getDenseID( localID ) );
+		mos.write( DictionaryDriver.MOS_OUTPUT_NAME, nodeID, token.Token, DictionaryDriver.MOS_BASEOUTPUTPATH );
+		
+		// Emit the edges towards the tokens that reference this one.
+		boolean referenced = false, selfReferenced = false;
+		while ( iterator.hasNext() )
+		{
+			long neighbour = iterator.next().get();
+			if ( neighbour == localID )
+			{
+				selfReferenced = true;
+				continue;
+			}
+			neighbourID.set( getDenseID( neighbour ) );
+			context.write( nodeID, neighbourID );
+			referenced = true;
+		}
+		
+		// The tokens without neighbours reference themselves, but they can be referenced by other tokens.
+		if ( selfReferenced && !referenced )
+			context.write( nodeID, MINUS_ONE );
+	}
+	
+	/**
+	 * Cleanup method of the this DictionaryJoinReducer class.
+	 * Close the multiple output file.
+	 * @param context	context of this Job.
+	 * @throws IOException, InterruptedException
+	 */
+	protected void cleanup( Context context ) throws IOException, InterruptedException
+	{
+		this.mos.close();
+	}
+}
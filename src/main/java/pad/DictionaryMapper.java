@@ -0,0 +1,87 @@
+/**
+ *	@file DictionaryMapper.java
+ *	@brief Mapper task of the first Job of the \see DictionaryDriver, in the ENCODE mode.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**	Mapper task of the first Job of the \see DictionaryDriver, in the ENCODE mode. */
+public class DictionaryMapper extends Mapper<LongWritable, Text, Text, Text>
+{
+	// The empty value only tells that the token exists.
+	private static final Text EMPTY = new Text();
+	private Text node = new Text();
+	private Text neighbour = new Text();
+	
+	/**
+	* Map method of the this DictionaryMapper class.
+	* Each line is in the adjacency format, NodeID<TAB>NeighborID1,NeighborID2,..., or in the cliques format,
+	* NodeID1 NodeID2 ..., where the identifiers are arbitrary tokens, e.g. strings, UUIDs or sparse longs.
+	* For each edge we emit the pair <NodeID, NeighbourID>, so the Reducer of NodeID can send to NeighbourID
+	* the dense identifier of NodeID; each node of a clique is linked to the first node of the line.
+	* All the edges of an adjacency list are kept, so it does not need to be symmetric.
+	* For each neighbour, or alone node, we emit the pair <NeighbourID, EMPTY>, so every token has a Reducer call.
+	* @param _			offset of the line read, not used in this method.
+	* @param value		text of the line read.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( LongWritable _, Text value, Context context ) throws IOException, InterruptedException
+	{
+		String line = value.toString();
+		int tab = line.indexOf( '\t' );
+		String nodeID;
+		String[] tokens;
+		if ( tab >= 0 )
+		{
+			nodeID = line.substring( 0, tab ).trim();
+			tokens = line.substring( tab + 1 ).split( "," );
+		}
+		else
+		{
+			tokens = line.trim().split( " +" );
+			nodeID = tokens[0];
+		}
+		if ( nodeID.isEmpty() )
+			return;
+		node.set( nodeID );
+		
+		boolean alone = true;
+		for ( int i = ( tab >= 0 ) ? 0 : 1; i < tokens.length; i++ )
+		{
+			String token = tokens[i].trim();
+			// Skip the empty neighbourhoods and the self-loops.
+			if ( token.isEmpty() || token.equals( nodeID ) )
+				continue;
+			neighbour.set( token );
+			context.write( node, neighbour );
+			context.write( neighbour, EMPTY );
+			alone = false;
+		}
+		
+		if ( alone )
+			context.write( node, EMPTY );
+	}
+}
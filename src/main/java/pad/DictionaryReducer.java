@@ -0,0 +1,113 @@
+/**
+ *	@file DictionaryReducer.java
+ *	@brief Reducer task of the first Job of the \see DictionaryDriver, in the ENCODE mode.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+/**	Reducer task of the first Job of the \see DictionaryDriver, in the ENCODE mode. */
+public class DictionaryReducer extends Reducer<Text, Text, TokenWritable, NodeWritable>
+{
+	private TokenWritable token = new TokenWritable();
+	private NodeWritable localID = new NodeWritable();
+	private int partition, numPartitions;
+	private long numTokens = 0;
+	
+	/**
+	 * Setup method of the this DictionaryReducer class.
+	 * Read the identifier of this Reducer task and the number of Reducer tasks.
+	 * @param context	context of this Job.
+	 */
+	protected void setup( Context context )
+	{
+		this.partition = context.getTaskAttemptID().getTaskID().getId();
+		this.numPartitions = context.getNumReduceTasks();
+	}
+	
+	/**
+	* Reduce method of the this DictionaryReducer class.
+	* Each distinct token receives the identifier <em>n * numPartitions + partition</em>, where <em>n</em> counts the
+	* tokens already seen by this Reducer: it is unique without any coordination, and the second Job makes it dense
+	* adding the number of tokens of the previous Reducers ( \see DictionaryJoinReducer ).
+	* We emit the dictionary entry <Token, ID> and, for each neighbour, the reference <NeighbourID, ID>,
+	* so that the second Job can build the edges with the identifiers of both nodes.
+	* If the token has no neighbour, it references itself: the second Job emits it as an alone node,
+	* unless another token references it.
+	* @param nodeID			the token.
+	* @param neighbourhood	list of neighbours, plus the empty values that only tell that the token exists.
+	* @param context		context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( Text nodeID, Iterable<Text> neighbourhood, Context context ) throws IOException, InterruptedException
+	{
+		localID.set( this.numTokens * this.numPartitions + this.partition );
+		this.numTokens++;
+		
+		// Emit the dictionary entry.
+		token.set( nodeID, TokenWritable.ENTRY );
+		context.write( token, localID );
+		
+		// Emit a reference for each neighbour.
+		boolean alone = true;
+		for ( Text neighbour : neighbourhood )
+		{
+			if ( neighbour.getLength() == 0 )
+				continue;
+			token.set( neighbour, TokenWritable.REFERENCE );
+			context.write( token, localID );
+			alone = false;
+		}
+		
+		if ( alone )
+		{
+			token.set( nodeID, TokenWritable.REFERENCE );
+			context.write( token, localID );
+		}
+	}
+	
+	/**
+	 * Cleanup method of the this DictionaryReducer class.
+	 * Write the number of tokens found by this Reducer into the <em>_counts</em> folder of the output,
+	 * so that the DictionaryDriver can compute the offset of each Reducer.
+	 * A counter per Reducer would be simpler, but the number of counters of a Job is limited.
+	 * @param context	context of this Job.
+	 * @throws IOException
+	 */
+	protected void cleanup( Context context ) throws IOException
+	{
+		Path path = new Path( FileOutputFormat.getOutputPath( context ), DictionaryDriver.COUNTS_FOLDER + "/" + this.partition );
+		FSDataOutputStream out = path.getFileSystem( context.getConfiguration() ).create( path, true );
+		try
+		{
+			out.writeLong( this.numTokens );
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+}
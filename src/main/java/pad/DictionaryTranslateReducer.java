@@ -0,0 +1,59 @@
+/**
+ *	@file DictionaryTranslateReducer.java
+ *	@brief Reducer task of the first Job of the \see DictionaryDriver, in the DECODE mode.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**	Reducer task of the first Job of the \see DictionaryDriver, in the DECODE mode. */
+public class DictionaryTranslateReducer extends Reducer<NodesPairWritable, Text, NodeWritable, Text>
+{
+	private NodeWritable clusterID = new NodeWritable();
+	private Text token = new Text();
+	
+	/**
+	* Reduce method of the this DictionaryTranslateReducer class.
+	* Thanks to the secondary sort, the first value is the token of the NodeID, followed by an empty value
+	* for each cluster that contains the node. For each of them we emit the pair <ClusterID, Token>.
+	* @param pair		pair used to implement the secondary sort, \see NodesPairWritable.
+	* @param values		the token of the node, followed by the empty values of its clusters.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( NodesPairWritable pair, Iterable<Text> values, Context context ) throws IOException, InterruptedException
+	{
+		Iterator<Text> iterator = values.iterator();
+		token.set( iterator.next() );
+		if ( pair.NeighbourID != -1 )
+			throw new IOException( "The node " + pair.NodeID + " has no dictionary entry" );
+		
+		while ( iterator.hasNext() )
+		{
+			iterator.next();
+			clusterID.set( pair.NeighbourID );
+			context.write( clusterID, token );
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ *	@file FusedStrategy.java
+ *	@brief Repeat the Fused-Star operation until convergence.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import pad.StarDriver.StarDriverType;
+
+/**
+ * Repeat the Fused-Star operation until convergence.
+ * Each iteration is made of a single Fused-Star Job ( \see StarDriverType ), and the graph
+ * has converged when it does not produce changes.
+ */
+public class FusedStrategy implements ConvergenceStrategy
+{
+	private StarDriverType last;
+	
+	/** Prepare the strategy for a new execution, starting from the first operation. */
+	public void reset()
+	{
+		this.last = null;
+	}
+	
+	/**
+	* Return the Fused-Star until it does not produce changes.
+	* @param changes	number of changes produced by the previous operation.
+	* @return 			the type of the next \see StarDriver Job, or <c>null</c> if the graph has converged.
+	*/
+	public StarDriverType nextOperation( long changes )
+	{
+		this.last = ( this.last == null || changes != 0 ) ? StarDriverType.FUSED : null;
+		return this.last;
+	}
+	
+	/**
+	* Return <c>true</c>, since each Fused-Star is a whole iteration.
+	* @return 			<c>true</c> if the operation ends an iteration, <c>false</c> otherwise.
+	*/
+	public boolean endsIteration()
+	{
+		return true;
+	}
+}
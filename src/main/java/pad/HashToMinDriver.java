@@ -0,0 +1,259 @@
+/**
+ *	@file HashToMinDriver.java
+ *	@brief Driver of the Jobs responsible for executing the Hash-to-Min algorithm on the input graph.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+/**
+ * Driver of the Jobs responsible for executing the Hash-to-Min algorithm on the input graph.
+ * Each node v keeps a cluster C(v), initially made of v and its neighbours. In each iteration,
+ * v sends C(v) to its minimum node and the minimum node to all the other nodes of C(v);
+ * then each node replaces its cluster with the union of the received ones.
+ * At convergence, the minimum node of each connected component keeps the whole component,
+ * while the other nodes keep only the minimum node. It needs O(log n) iterations.
+ */
+public class HashToMinDriver extends Configured implements Tool
+{
+	/**
+	 * The HashToMinDriver can be of type:
+	 * - INITIALIZATION: transforms the edges list <nodeID, neighbourID> into the clusters <nodeID, C(nodeID)>;
+	 * - ITERATION: executes an iteration of the Hash-to-Min algorithm;
+	 * - TERMINATION: writes the clusters of the minimum nodes, in the same format of \see TerminationDriver.
+	 */
+	public enum HashToMinDriverType { INITIALIZATION, ITERATION, TERMINATION };
+	
+	private final String title;
+	private final HashToMinDriverType type;
+	private final Path input, output;
+	private final boolean verbose;
+	private JobReport report;
+	private NodePermutation permutation = null;
+	private long numChanges, numNodes, numClusters, checksum;
+	
+	/**
+	* Initializes a new instance of the HashToMinDriver class.
+	* @param type		identify which kind of job execute.
+	* @param input		path of the result folder of \see InitializationDriver or \see HashToMinDriver Job.
+	* @param output		path of the output folder.
+	* @param iteration	used to build the title of this Job.
+	* @param verbose	if <c>true</c> shows on screen the messages of the Job execution.
+	*/
+	public HashToMinDriver( HashToMinDriverType type, Path input, Path output, int iteration, boolean verbose )
+	{
+		this.type = type;
+		this.title = ( type == HashToMinDriverType.ITERATION ) ? "Hash-to-Min" + iteration : "Hash-to-Min " + type.toString().toLowerCase();
+		this.input = input;
+		this.output = output;
+		this.verbose = verbose;
+	}
+	
+	/**
+	* Set the permutation of the node identifiers applied by the \see InitializationDriver:
+	* the \see HashToMinTerminationMapper translates the clusters back to the original identifiers.
+	* By default it is <c>null</c>, i.e. the nodes are not relabelled.
+	* @param permutation	the permutation, or <c>null</c>.
+	*/
+	public void setPermutation( NodePermutation permutation )
+	{
+		this.permutation = permutation;
+	}
+	
+	/**
+	 * Execute the HashToMinDriver Job.
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if the HashToMinDriver Job failed its execution; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		NodePermutation.set( conf, this.permutation );
+		// The initialization uses the Large-Star Mapper to send each edge in both directions.
+		conf.set( "type", StarDriver.StarDriverType.LARGE.toString() );
+		Job job = new Job( conf, this.title );
+		job.setJarByClass( HashToMinDriver.class );
+		
+		switch ( this.type )
+		{
+			case INITIALIZATION:
+				job.setMapOutputKeyClass( NodesPairWritable.class );
+				job.setMapOutputValueClass( NodeWritable.class );
+				job.setOutputKeyClass( NodeWritable.class );
+				job.setOutputValueClass( ClusterWritable.class );
+				
+				job.setMapperClass( StarMapper.class );
+				job.setCombinerClass( StarCombiner.class );
+				job.setPartitionerClass( NodePartitioner.class );
+				job.setSortComparatorClass( NodesPairWritable.Comparator.class );
+				job.setGroupingComparatorClass( NodeGroupingComparator.class );
+				job.setReducerClass( HashToMinInitializationReducer.class );
+				break;
+			case ITERATION:
+				job.setOutputKeyClass( NodeWritable.class );
+				job.setOutputValueClass( ClusterWritable.class );
+				
+				job.setMapperClass( HashToMinMapper.class );
+				job.setReducerClass( HashToMinReducer.class );
+				break;
+			case TERMINATION:
+				job.setOutputKeyClass( ClusterWritable.class );
+				job.setOutputValueClass( NullWritable.class );
+				
+				job.setMapperClass( HashToMinTerminationMapper.class );
+				job.setNumReduceTasks( 0 );
+				break;
+		}
+		
+		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setOutputFormatClass( SequenceFileOutputFormat.class );
+		
+		FileInputFormat.addInputPath( job, this.input );
+		FileOutputFormat.setOutputPath( job, this.output );
+		
+		long start = System.currentTimeMillis();
+		if ( !job.waitForCompletion( verbose ) )
+			return 1;
+		this.report = new JobReport( job, System.currentTimeMillis() - start );
+		
+		// Set up the private variables looking to the counters value
+		this.numChanges = job.getCounters().findCounter( UtilCounters.NUM_CHANGES ).getValue();
+		this.numNodes = job.getCounters().findCounter( UtilCounters.NUM_NODES ).getValue();
+		this.checksum = job.getCounters().findCounter( UtilCounters.NODES_CHECKSUM ).getValue();
+		this.numClusters = job.getCounters().findCounter( UtilCounters.NUM_CLUSTERS ).getValue();
+		return 0;
+	}
+	
+	/**
+	 * Return the number of nodes whose cluster changed during the iteration.
+	 * @return 	number of changes.
+	 */
+	public long getNumChanges()
+	{
+		return this.numChanges;
+	}
+	
+	/**
+	 * Return the number of nodes found by the termination.
+	 * @return 	number of nodes.
+	 */
+	public long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Return the checksum of the nodes found by the termination ( \see NodeWritable.checksum ), computed before translating them back
+	 * to their original identifiers, so that it can be compared with the checksum of \see InitializationDriver.
+	 * @return 	checksum of the nodes.
+	 */
+	public long getChecksum()
+	{
+		return this.checksum;
+	}
+	
+	/**
+	 * Return the number of clusters found by the termination.
+	 * @return 	number of clusters.
+	 */
+	public long getNumClusters()
+	{
+		return this.numClusters;
+	}
+	
+	/**
+	 * Return the performance report of the Job.
+	 * @return 	the report of the Job.
+	 */
+	public JobReport getReport()
+	{
+		return this.report;
+	}
+	
+	/**
+	 * Main of the \see HashToMinDriver class.
+	 * It executes the whole algorithm: initialization, iterations until convergence and termination.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception 
+	{	
+		if ( args.length != 2 )
+		{
+			System.out.println( "Usage: HashToMinDriver <input> <output>" );
+			System.exit(1);
+		}
+		
+		Path input = new Path( args[0] );
+		Path output = new Path( args[1] );
+		FileSystem fs = FileSystem.get( new Configuration() );
+		System.out.println( "Start Hash-to-Min." );
+		
+		HashToMinDriver hashToMin = new HashToMinDriver( HashToMinDriverType.INITIALIZATION, input, output.suffix( "_0" ), 0, true );
+		if ( hashToMin.run( null ) != 0 )
+		{
+			fs.delete( output.suffix( "_0" ), true );
+			System.exit( 1 );
+		}
+		
+		int i = 0;
+		do
+		{
+			hashToMin = new HashToMinDriver( HashToMinDriverType.ITERATION, output.suffix( "_" + i ), output.suffix( "_" + (i+1) ), i, true );
+			if ( hashToMin.run( null ) != 0 )
+			{
+				fs.delete( output.suffix( "_" + i ), true );
+				fs.delete( output.suffix( "_" + (i+1) ), true );
+				System.exit( 1 );
+			}
+			fs.delete( output.suffix( "_" + i ), true );
+			i++;
+		}
+		while ( hashToMin.getNumChanges() != 0 );
+		
+		hashToMin = new HashToMinDriver( HashToMinDriverType.TERMINATION, output.suffix( "_" + i ), output, i, true );
+		if ( hashToMin.run( null ) != 0 )
+		{
+			fs.delete( output.suffix( "_" + i ), true );
+			fs.delete( output, true );
+			System.exit( 1 );
+		}
+		fs.delete( output.suffix( "_" + i ), true );
+		System.out.println( "End Hash-to-Min." );
+		
+		System.out.println( "Number of iterations: " + i );
+		System.out.println( "Number of Clusters: " + hashToMin.getNumClusters() );
+		System.exit( 0 );
+	}
+}
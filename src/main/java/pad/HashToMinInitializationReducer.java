@@ -0,0 +1,75 @@
+/**
+ *	@file HashToMinInitializationReducer.java
+ *	@brief Reducer task of the \see HashToMinDriver Job of type INITIALIZATION.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Reducer;
+
+/** Reducer task of the \see HashToMinDriver Job of type INITIALIZATION. */
+public class HashToMinInitializationReducer extends Reducer<NodesPairWritable, NodeWritable, NodeWritable, ClusterWritable> 
+{
+	private NodeWritable nodeID = new NodeWritable();
+	private ClusterWritable cluster = new ClusterWritable();
+	
+	/**
+	* Reduce method of the this HashToMinInitializationReducer class.
+	* It builds the initial cluster of the node, made of the node itself and its neighbours.
+	* The neighbours are sorted thanks to the secondary sort, so we only need to insert the node in the right position.
+	* @param pair			pair used to implement the secondary sort, \see NodesPair.
+	* @param neighbourhood	list of neighbours.
+	* @param context		context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( NodesPairWritable pair, Iterable<NodeWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
+	{
+		cluster.clear();
+		nodeID.set( pair.NodeID );
+		
+		// If the node is not alone
+		if ( pair.NeighbourID != -1 )
+		{
+			// Do not exists a node with ID equal to minus one, it is only used to indicate loneliness
+			long lastNodeSeen = -1;
+			for ( NodeWritable neighbour : neighbourhood )
+			{
+				// Skip the duplicate nodes.
+				if ( neighbour.get() == lastNodeSeen )
+					continue;
+				
+				// Insert the node before its first greater neighbour.
+				if ( lastNodeSeen < pair.NodeID && neighbour.get() > pair.NodeID )
+					cluster.add( pair.NodeID );
+				cluster.add( neighbour.get() );
+				
+				// Store the last neighbourId that we have processed.
+				lastNodeSeen = neighbour.get();
+			}
+		}
+		
+		// The node is greater than all its neighbours, or it is alone.
+		if ( cluster.isEmpty() || cluster.get( cluster.size() - 1 ) < pair.NodeID )
+			cluster.add( pair.NodeID );
+		
+		context.write( nodeID, cluster );
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ *	@file HashToMinMapper.java
+ *	@brief Mapper task of the \see HashToMinDriver Job of type ITERATION.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Mapper;
+
+/** Mapper task of the \see HashToMinDriver Job of type ITERATION. */
+public class HashToMinMapper extends Mapper<NodeWritable, ClusterWritable, NodeWritable, ClusterWritable> 
+{
+	/** First element of the message that carries the old cluster of a node that is not the minimum of its cluster. */
+	public static final int OLD_CLUSTER = -2;
+	/** First element of the message that carries the old size of the cluster of a node that is the minimum of its cluster. */
+	public static final int OLD_SIZE = -3;
+	
+	private NodeWritable receiverID = new NodeWritable();
+	private ClusterWritable message = new ClusterWritable();
+	
+	/**
+	* Map method of the this HashToMinMapper class.
+	* Given the node v and its cluster C(v), sorted in ascending order, it sends C(v) to the minimum node m
+	* and the cluster {m} to all the other nodes of C(v).
+	* In order to detect the changes, the node also sends to itself the old cluster or, if it is the minimum node
+	* and therefore it receives its own cluster, only the old size, since its cluster can only grow.
+	* @param nodeID		identifier of the node.
+	* @param cluster	cluster of the node.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( NodeWritable nodeID, ClusterWritable cluster, Context context ) throws IOException, InterruptedException 
+	{
+		long minNodeID = cluster.get( 0 );
+		
+		// Send the whole cluster to the minimum node.
+		receiverID.set( minNodeID );
+		context.write( receiverID, cluster );
+		
+		// Send the minimum node to the other nodes of the cluster.
+		message.clear();
+		message.add( minNodeID );
+		for ( int i = 1; i < cluster.size(); i++ )
+		{
+			receiverID.set( cluster.get( i ) );
+			context.write( receiverID, message );
+		}
+		
+		// Send the old state to the node itself.
+		message.clear();
+		if ( minNodeID == nodeID.get() )
+		{
+			message.add( OLD_SIZE );
+			message.add( cluster.size() );
+		}
+		else
+		{
+			message.add( OLD_CLUSTER );
+			message.addAll( cluster );
+		}
+		context.write( nodeID, message );
+	}
+}
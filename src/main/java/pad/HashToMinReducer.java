@@ -0,0 +1,77 @@
+/**
+ *	@file HashToMinReducer.java
+ *	@brief Reducer task of the \see HashToMinDriver Job of type ITERATION.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Reducer;
+
+import pad.UtilCounters;
+
+/** Reducer task of the \see HashToMinDriver Job of type ITERATION. */
+public class HashToMinReducer extends Reducer<NodeWritable, ClusterWritable, NodeWritable, ClusterWritable> 
+{
+	private ClusterWritable cluster = new ClusterWritable();
+	private ClusterWritable oldCluster = new ClusterWritable();
+	
+	/**
+	* Reduce method of the this HashToMinReducer class.
+	* The new cluster of the node is the union of the received clusters, sorted in ascending order.
+	* If it differs from the old one, we increment the NUM_CHANGES of \see UtilCounters by one.
+	* @param nodeID		identifier of the node.
+	* @param messages	clusters received by the node, plus its old state ( \see HashToMinMapper ).
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( NodeWritable nodeID, Iterable<ClusterWritable> messages, Context context ) throws IOException, InterruptedException 
+	{
+		cluster.clear();
+		oldCluster.clear();
+		long oldSize = -1;
+		
+		// The framework reuses the same object for all the values, so we copy their nodes.
+		for ( ClusterWritable message : messages )
+		{
+			if ( message.get( 0 ) == HashToMinMapper.OLD_SIZE )
+				oldSize = message.get( 1 );
+			else if ( message.get( 0 ) == HashToMinMapper.OLD_CLUSTER )
+				oldCluster.addAll( message, 1 );
+			else
+				cluster.addAll( message );
+		}
+		
+		// Sort the nodes and remove the duplicates.
+		cluster.sort();
+		int size = 0;
+		for ( int i = 0; i < cluster.size(); i++ )
+			if ( size == 0 || cluster.get( i ) != cluster.get( size - 1 ) )
+				cluster.set( size++, cluster.get( i ) );
+		cluster.truncate( size );
+		
+		// The cluster of a minimum node can only grow, so it is enough to compare the sizes.
+		boolean changed = ( oldSize != -1 ) ? ( cluster.size() != oldSize ) : !cluster.equals( oldCluster );
+		if ( changed )
+			context.getCounter( UtilCounters.NUM_CHANGES ).increment( 1 );
+		
+		context.write( nodeID, cluster );
+	}
+}
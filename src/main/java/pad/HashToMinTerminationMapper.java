@@ -0,0 +1,69 @@
+/**
+ *	@file HashToMinTerminationMapper.java
+ *	@brief Mapper task of the \see HashToMinDriver Job of type TERMINATION.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import pad.UtilCounters;
+
+/** Mapper task of the \see HashToMinDriver Job of type TERMINATION. */
+public class HashToMinTerminationMapper extends Mapper<NodeWritable, ClusterWritable, ClusterWritable, NullWritable> 
+{
+	private static final NullWritable NULL = NullWritable.get();
+	private NodePermutation permutation;
+	
+	/**
+	 * Setup method of the this HashToMinTerminationMapper class.
+	 * Read the permutation of the node identifiers applied by the \see InitializationDriver, if any.
+	 * @param context	context of this Job.
+	 */
+	protected void setup( Context context )
+	{
+		this.permutation = NodePermutation.get( context.getConfiguration() );
+	}
+	
+	/**
+	* Map method of the this HashToMinTerminationMapper class.
+	* At convergence, the minimum node of each connected component keeps the whole component,
+	* so we emit only the clusters whose minimum node is the node itself.
+	* Than we increment the NUM_NODES, NODES_CHECKSUM and NUM_CLUSTERS of \see UtilCounters.
+	* @param nodeID		identifier of the node.
+	* @param cluster	cluster of the node.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( NodeWritable nodeID, ClusterWritable cluster, Context context ) throws IOException, InterruptedException 
+	{
+		if ( cluster.get( 0 ) != nodeID.get() )
+			return;
+		
+		context.getCounter( UtilCounters.NUM_NODES ).increment( cluster.size() );
+		context.getCounter( UtilCounters.NODES_CHECKSUM ).increment( cluster.checksum() );
+		context.getCounter( UtilCounters.NUM_CLUSTERS ).increment( 1 );
+		if ( this.permutation != null )
+			this.permutation.invert( cluster );
+		context.write( cluster, NULL );
+	}
+}
@@ -0,0 +1,257 @@
+/**
+ *	@file HubDriver.java
+ *	@brief Driver of the Job responsible for finding the hub nodes of the graph and their minimum neighbours.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+/**
+ * Driver of the Job responsible for finding the hub nodes of the graph and their minimum neighbours.
+ * A hub sends its whole neighbourhood to one \see StarReducer, which becomes the straggler of the Job.
+ * First a sample of the edges list is read, in order to find the nodes that appear in more than
+ * <em>hubFraction</em> of the edges; then the Hub-Minimum Job computes the minimum neighbour of these nodes.
+ * Its output is broadcast through the DistributedCache to the \see NodePartitioner, which splits
+ * the neighbourhood of a hub across all the Reducers, and to the \see StarReducer, that uses
+ * the broadcast minimum instead of the first neighbour of its part of the neighbourhood.
+ */
+public class HubDriver extends Configured implements Tool
+{
+	/** Name of the configuration property that contains the path of the hubs file. */
+	public static final String HUBS = "hubs";
+	/** Name of the configuration property that contains the list of hubs found by the sample. */
+	static final String HUBS_LIST = "hubs.list";
+	/** Number of edges read from each part file of the input. */
+	private static final int SAMPLE_SIZE = 10000;
+	/** Number of positions of each part file from which the edges are read. */
+	private static final int SAMPLE_POSITIONS = 10;
+	
+	private final Path input, output;
+	private final double hubFraction;
+	private final boolean verbose;
+	private long numHubs;
+	
+	/**
+	* Initializes a new instance of the HubDriver class.
+	* @param input			path of the result folder of \see InitializationDriver or \see StarDriver Job.
+	* @param output			path of the output folder.
+	* @param hubFraction	a node is a hub if it appears in more than this fraction of the edges.
+	* @param verbose		if <c>true</c> shows on screen the messages of the Job execution.
+	*/
+	public HubDriver( Path input, Path output, double hubFraction, boolean verbose )
+	{
+		this.input = input;
+		this.output = output;
+		this.hubFraction = hubFraction;
+		this.verbose = verbose;
+	}
+	
+	/**
+	 * Execute the HubDriver Job.
+	 * If the sample does not contain any hub, the Hub-Minimum Job is not executed and no output is produced.
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if the HubDriver Job failed its execution; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		
+		// Without hubs in the sample, the Hub-Minimum Job is not needed
+		List<Long> hubs = sample( FileSystem.get( conf ), conf );
+		this.numHubs = hubs.size();
+		if ( this.numHubs == 0 )
+			return 0;
+		
+		// The list is sorted, so that the \see HubMinimumMapper fills its \see HubTable in ascending order
+		Collections.sort( hubs );
+		
+		StringBuilder hubsList = new StringBuilder();
+		for ( long hub : hubs )
+			hubsList.append( hubsList.length() == 0 ? "" : "," ).append( hub );
+		conf.set( HUBS_LIST, hubsList.toString() );
+		Job job = new Job( conf, "Hub-Minimum" );
+		job.setJarByClass( HubDriver.class );
+		
+		job.setOutputKeyClass( NodeWritable.class );
+		job.setOutputValueClass( NodeWritable.class );
+		
+		job.setMapperClass( HubMinimumMapper.class );
+		job.setCombinerClass( HubMinimumReducer.class );
+		job.setReducerClass( HubMinimumReducer.class );
+		job.setNumReduceTasks( 1 );
+		
+		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setOutputFormatClass( SequenceFileOutputFormat.class );
+		
+		FileInputFormat.addInputPath( job, this.input );
+		FileOutputFormat.setOutputPath( job, this.output );
+		
+		if ( !job.waitForCompletion( this.verbose ) )
+			return 1;
+		return 0;
+	}
+	
+	/**
+	 * Read SAMPLE_SIZE edges from each part file of the input, starting from SAMPLE_POSITIONS
+	 * equidistant positions, and count how many times each node appears.
+	 * Since every edge has two endpoints, a node that appears <em>c</em> times in <em>n</em> edges
+	 * receives about c / 2n of the records shuffled by a Star operation.
+	 * @param fs	file system of the input.
+	 * @param conf	configuration of the Job.
+	 * @return 		the list of hub nodes.
+	 * @throws IOException
+	 */
+	private List<Long> sample( FileSystem fs, Configuration conf ) throws IOException
+	{
+		Map<Long, Integer> degrees = new HashMap<Long, Integer>();
+		NodeWritable nodeID = new NodeWritable(), neighbourID = new NodeWritable();
+		long numEdges = 0;
+		
+		for ( FileStatus status : fs.globStatus( new Path( this.input, "part*" ) ) )
+		{
+			SequenceFile.Reader reader = new SequenceFile.Reader( conf, SequenceFile.Reader.file( status.getPath() ) );
+			try
+			{
+				long start = reader.getPosition();
+				for ( int i = 0; i < SAMPLE_POSITIONS; i++ )
+				{
+					// Move to the first record after the i-th position, the first one follows the header
+					if ( i > 0 )
+						reader.sync( start + ( status.getLen() - start ) / SAMPLE_POSITIONS * i );
+					for ( int j = 0; j < SAMPLE_SIZE / SAMPLE_POSITIONS && reader.next( nodeID, neighbourID ); j++ )
+					{
+						if ( neighbourID.get() == -1 )
+							continue;
+						
+						numEdges++;
+						for ( long node : new long[] { nodeID.get(), neighbourID.get() } )
+						{
+							Integer degree = degrees.get( node );
+							degrees.put( node, ( degree == null ) ? 1 : degree + 1 );
+						}
+					}
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		
+		List<Long> hubs = new ArrayList<Long>();
+		for ( Map.Entry<Long, Integer> entry : degrees.entrySet() )
+			if ( entry.getValue() > 2 * this.hubFraction * numEdges )
+				hubs.add( entry.getKey() );
+		return hubs;
+	}
+	
+	/**
+	 * Broadcast the output of the HubDriver Job to the tasks of the given Job through the DistributedCache.
+	 * @param output	path of the output folder of the HubDriver Job.
+	 * @param job		the Job that uses the hubs.
+	 * @throws IOException
+	 */
+	public static void addHubs( Path output, Job job ) throws IOException
+	{
+		Configuration conf = job.getConfiguration();
+		FileSystem fs = output.getFileSystem( conf );
+		for ( FileStatus status : fs.globStatus( new Path( output, "part*" ) ) )
+		{
+			URI uri = fs.makeQualified( status.getPath() ).toUri();
+			DistributedCache.addCacheFile( uri, conf );
+		}
+		conf.set( HUBS, fs.makeQualified( output ).toString() );
+	}
+	
+	/**
+	 * Read the hubs, and their minimum neighbours, broadcast by \see addHubs.
+	 * The local copies of the DistributedCache are used, when available, otherwise the files are read from the file system.
+	 * @param conf	configuration of the Job.
+	 * @return 		the table of the hubs and their minimum neighbours; it is empty if the Job does not use the hubs.
+	 * @throws IOException
+	 */
+	public static HubTable readHubs( Configuration conf ) throws IOException
+	{
+		HubTable hubs = new HubTable();
+		if ( conf.get( HUBS ) == null )
+			return hubs;
+		
+		FileSystem fs = FileSystem.getLocal( conf );
+		Path[] files = DistributedCache.getLocalCacheFiles( conf );
+		if ( files == null )
+		{
+			Path output = new Path( conf.get( HUBS ) );
+			fs = output.getFileSystem( conf );
+			FileStatus[] status = fs.globStatus( new Path( output, "part*" ) );
+			files = new Path[status.length];
+			for ( int i = 0; i < status.length; i++ )
+				files[i] = status[i].getPath();
+		}
+		
+		NodeWritable hub = new NodeWritable(), minNeighbourID = new NodeWritable();
+		for ( Path file : files )
+		{
+			SequenceFile.Reader reader = new SequenceFile.Reader( conf, SequenceFile.Reader.file( fs.makeQualified( file ) ) );
+			try
+			{
+				while ( reader.next( hub, minNeighbourID ) )
+					hubs.add( hub.get(), minNeighbourID.get() );
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		return hubs;
+	}
+	
+	/**
+	 * Return the number of hubs found in the sample.
+	 * @return 	number of hubs.
+	 */
+	public long getNumHubs()
+	{
+		return this.numHubs;
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ *	@file HubMinimumMapper.java
+ *	@brief Mapper task of the \see HubDriver Job.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Mapper;
+
+/** Mapper task of the \see HubDriver Job. */
+public class HubMinimumMapper extends Mapper<NodeWritable, NodeWritable, NodeWritable, NodeWritable> 
+{
+	private HubTable hubs = new HubTable();
+	
+	/**
+	* Setup method of the this HubMinimumMapper class.
+	* Extract the list of hubs found by the sample, sorted in ascending order, from the context configuration.
+	* Their minimum neighbours are not known yet, so they are set to minus one.
+	* @param context	context of this Job.
+	*/
+	public void setup( Context context )
+	{
+		for ( String hub : context.getConfiguration().get( HubDriver.HUBS_LIST ).split( "," ) )
+			hubs.add( Long.parseLong( hub ), -1 );
+	}
+	
+	/**
+	* Map method of the this HubMinimumMapper class.
+	* For each endpoint of the edge that is a hub, it emits the pair <hub, other endpoint>.
+	* @param nodeID			identifier of the node.
+	* @param neighbourID	identifier of the neighbour.
+	* @param context		context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( NodeWritable nodeID, NodeWritable neighbourID, Context context ) throws IOException, InterruptedException 
+	{
+		// Isolated nodes are not hubs
+		if ( neighbourID.get() == -1 )
+			return;
+		
+		if ( hubs.contains( nodeID.get() ) )
+			context.write( nodeID, neighbourID );
+		if ( hubs.contains( neighbourID.get() ) )
+			context.write( neighbourID, nodeID );
+	}
+}
@@ -0,0 +1,50 @@
+/**
+ *	@file HubMinimumReducer.java
+ *	@brief Combiner and Reducer task of the \see HubDriver Job.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Reducer;
+
+/** Combiner and Reducer task of the \see HubDriver Job. */
+public class HubMinimumReducer extends Reducer<NodeWritable, NodeWritable, NodeWritable, NodeWritable> 
+{
+	private NodeWritable minNeighbourID = new NodeWritable();
+	
+	/**
+	* Reduce method of the this HubMinimumReducer class.
+	* It emits the pair <hub, minimum neighbour>.
+	* @param hub			identifier of the hub.
+	* @param neighbours		list of neighbours of the hub.
+	* @param context		context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void reduce( NodeWritable hub, Iterable<NodeWritable> neighbours, Context context ) throws IOException, InterruptedException 
+	{
+		long min = Long.MAX_VALUE;
+		for ( NodeWritable neighbour : neighbours )
+			min = Math.min( min, neighbour.get() );
+		
+		minNeighbourID.set( min );
+		context.write( hub, minNeighbourID );
+	}
+}
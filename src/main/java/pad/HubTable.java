@@ -0,0 +1,94 @@
+/**
+ *	@file HubTable.java
+ *	@brief Table of the hubs found by the \see HubDriver and of their minimum neighbours.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.util.Arrays;
+
+/**
+ * Table of the hubs found by the \see HubDriver and of their minimum neighbours, looked up for every record
+ * by the \see NodePartitioner and for every group by the \see StarReducer.
+ * The hubs are stored sorted into an array of primitive longs and searched by binary search,
+ * so a lookup does not allocate any object; the hubs are few, so the search is short.
+ */
+public class HubTable
+{
+	private long[] hubs = new long[16], minNeighbours = new long[16];
+	private int size = 0;
+	
+	/**
+	* Add a hub to the table. The hubs have to be added in ascending order.
+	* @param hub			identifier of the hub.
+	* @param minNeighbourID	identifier of its minimum neighbour.
+	*/
+	public void add( long hub, long minNeighbourID )
+	{
+		if ( this.size > 0 && hub <= this.hubs[this.size - 1] )
+			throw new IllegalArgumentException( "The hubs have to be added in ascending order" );
+		if ( this.size == this.hubs.length )
+		{
+			this.hubs = Arrays.copyOf( this.hubs, 2 * this.size );
+			this.minNeighbours = Arrays.copyOf( this.minNeighbours, 2 * this.size );
+		}
+		this.hubs[this.size] = hub;
+		this.minNeighbours[this.size] = minNeighbourID;
+		this.size++;
+	}
+	
+	/**
+	* Return the position of a node in the table.
+	* @param node	identifier of the node.
+	* @return		the position of the node, or a negative value if it is not a hub.
+	*/
+	public int indexOf( long node )
+	{
+		return ( this.size == 0 ) ? -1 : Arrays.binarySearch( this.hubs, 0, this.size, node );
+	}
+	
+	/**
+	* Check if a node is a hub.
+	* @param node	identifier of the node.
+	* @return		<c>true</c> if the node is a hub, <c>false</c> otherwise.
+	*/
+	public boolean contains( long node )
+	{
+		return indexOf( node ) >= 0;
+	}
+	
+	/**
+	* Return the minimum neighbour of the hub in the given position.
+	* @param index	position of the hub, returned by \see indexOf.
+	* @return		identifier of the minimum neighbour.
+	*/
+	public long getMinNeighbour( int index )
+	{
+		return this.minNeighbours[index];
+	}
+	
+	/**
+	* Return the number of hubs.
+	* @return	number of hubs.
+	*/
+	public int size()
+	{
+		return this.size;
+	}
+}
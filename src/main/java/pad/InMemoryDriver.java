@@ -0,0 +1,540 @@
+/**
+ *	@file InMemoryDriver.java
+ *	@brief Driver responsible for executing the whole alternating algorithm in memory,
+ *		   using all the cores of the local machine.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+import pad.StarDriver.StarDriverType;
+
+/**
+ * Driver responsible for executing the whole alternating algorithm in memory.
+ * It reads the edges list <nodeID, neighbourID> produced by \see InitializationDriver or \see StarDriver,
+ * repeats the Large-Star and Small-Star operations, with the same semantic of \see StarMapper and \see StarReducer,
+ * until convergence and writes the clusters in the same format produced by \see TerminationDriver.
+ * The node identifiers are renamed into dense indexes, preserving their order, and the edges are stored
+ * into a primitive array where each pair is packed into a long value, so that the operations become
+ * passes over arrays executed in parallel by a ForkJoinPool.
+ * This is convenient only when the edges list fits in the memory of one JVM.
+ */
+public class InMemoryDriver extends Configured implements Tool
+{
+	/** Minimum number of edges processed by a single fork-join task. */
+	private static final int GRAIN = 1 << 14;
+	
+	private final Path input, output;
+	private final boolean verbose;
+	private final int parallelism;
+	private long numNodes, numClusters;
+	private int numIterations;
+	private List<Long> numChanges = new ArrayList<Long>();
+	private NodePermutation permutation = null;
+	
+	/**
+	* Initializes a new instance of the InMemoryDriver class, that uses all the available processors.
+	* @param input		path of the result folder of \see InitializationDriver or \see StarDriver Job.
+	* @param output		path of the output folder.
+	* @param verbose	if <c>true</c> shows on screen the messages of the execution.
+	*/
+	public InMemoryDriver( Path input, Path output, boolean verbose )
+	{
+		this( input, output, Runtime.getRuntime().availableProcessors(), verbose );
+	}
+	
+	/**
+	* Initializes a new instance of the InMemoryDriver class.
+	* @param input			path of the result folder of \see InitializationDriver or \see StarDriver Job.
+	* @param output			path of the output folder.
+	* @param parallelism	number of threads used to execute the operations.
+	* @param verbose		if <c>true</c> shows on screen the messages of the execution.
+	*/
+	public InMemoryDriver( Path input, Path output, int parallelism, boolean verbose )
+	{
+		this.input = input;
+		this.output = output;
+		this.parallelism = parallelism;
+		this.verbose = verbose;
+	}
+	
+	/**
+	* Set the permutation of the node identifiers applied by the \see InitializationDriver, so that the clusters
+	* are written with the original identifiers ( \see NodePermutation ).
+	* By default it is <c>null</c>, i.e. the nodes are not relabelled.
+	* @param permutation	the permutation, or <c>null</c>.
+	*/
+	public void setPermutation( NodePermutation permutation )
+	{
+		this.permutation = permutation;
+	}
+	
+	/**
+	 * Execute the alternating algorithm in memory.
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if the execution failed; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		FileSystem fs = FileSystem.get( conf );
+		
+		if ( fs.exists( this.output ) )
+			throw new IOException( "Output directory " + this.output + " already exists" );
+		
+		ForkJoinPool pool = new ForkJoinPool( this.parallelism );
+		try
+		{
+			EdgeList list = readEdges( fs, conf, this.input );
+			long[] ids = list.denseIdentifiers();
+			long[] edges = list.denseEdges( ids );
+			int[] min = new int[ids.length];
+			
+			this.numChanges.clear();
+			this.numIterations = 0;
+			long changes;
+			do
+			{
+				long largeChanges = star( pool, StarDriverType.LARGE, edges, min );
+				edges = unique( edges );
+				long smallChanges = star( pool, StarDriverType.SMALL, edges, min );
+				edges = unique( edges );
+				
+				this.numChanges.add( largeChanges );
+				this.numChanges.add( smallChanges );
+				this.numIterations++;
+				changes = largeChanges + smallChanges;
+				
+				if ( this.verbose )
+					System.out.println( "Iteration " + this.numIterations + ": " + edges.length + " edges, "
+									  + largeChanges + " Large-Star changes, " + smallChanges + " Small-Star changes." );
+			}
+			while ( changes != 0 );
+			
+			writeClusters( conf, this.output, ids, edges );
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return 0;
+	}
+	
+	/**
+	 * Return the number of nodes found.
+	 * @return 	number of nodes.
+	 */
+	public long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Return the number of clusters found.
+	 * @return 	number of clusters.
+	 */
+	public long getNumClusters()
+	{
+		return this.numClusters;
+	}
+	
+	/**
+	 * Return the number of iterations, i.e. the number of Large-Star and Small-Star pairs, executed.
+	 * @return 	number of iterations.
+	 */
+	public int getNumIterations()
+	{
+		return this.numIterations;
+	}
+	
+	/**
+	 * Return the number of changes occurred during each operation, in order of execution:
+	 * the Large-Star operations are in the even positions, the Small-Star operations in the odd ones.
+	 * @return 	number of changes of each operation.
+	 */
+	public List<Long> getNumChanges()
+	{
+		return this.numChanges;
+	}
+	
+	/**
+	 * Read all the pairs <nodeID, neighbourID> stored in the SequenceFiles of a folder.
+	 * @param fs		file system where the folder is stored.
+	 * @param conf		configuration used to open the files.
+	 * @param folder	result folder of a \see InitializationDriver or \see StarDriver Job.
+	 * @return			the edges list and the isolated nodes.
+	 * @throws IOException
+	 */
+	private static EdgeList readEdges( FileSystem fs, Configuration conf, Path folder ) throws IOException
+	{
+		EdgeList list = new EdgeList();
+		NodeWritable nodeID = new NodeWritable();
+		NodeWritable neighbourID = new NodeWritable();
+		
+		for ( FileStatus fileStatus : fs.listStatus( folder ) )
+		{
+			// Skip the _SUCCESS and _logs entries.
+			if ( !fileStatus.getPath().getName().startsWith( "part" ) )
+				continue;
+			
+			SequenceFile.Reader reader = new SequenceFile.Reader( conf, SequenceFile.Reader.file( fileStatus.getPath() ) );
+			try
+			{
+				while ( reader.next( nodeID, neighbourID ) )
+					list.add( nodeID.get(), neighbourID.get() );
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		return list;
+	}
+	
+	/**
+	 * Execute a Small-Star or Large-Star operation.
+	 * The edges are sorted by <max(u,v), min(u,v)>, so the first edge of each group has the minimum neighbour
+	 * smaller than the node; the result replaces, one by one, the edges of the array.
+	 * @param pool		pool of threads.
+	 * @param type		operation to execute.
+	 * @param edges		sorted and unique edges <max(u,v), min(u,v)>, overwritten with the result.
+	 * @param min		array used to store the minimum label of each neighbourhood.
+	 * @return			number of changes occurred during the operation.
+	 */
+	private static long star( ForkJoinPool pool, StarDriverType type, long[] edges, int[] min )
+	{
+		// Every node is initially the minimum of its neighbourhood.
+		for ( int i = 0; i < min.length; i++ )
+			min[i] = i;
+		pool.invoke( new StarTask( StarTask.MINIMUM, type, edges, min, 0, edges.length ) );
+		return pool.invoke( new StarTask( StarTask.EMIT, type, edges, min, 0, edges.length ) );
+	}
+	
+	/**
+	 * Sort the edges and remove the duplicates.
+	 * @param edges		edges to process.
+	 * @return			the sorted array of unique edges.
+	 */
+	private static long[] unique( long[] edges )
+	{
+		Arrays.parallelSort( edges );
+		int size = 0;
+		for ( int i = 0; i < edges.length; i++ )
+			if ( size == 0 || edges[i] != edges[size - 1] )
+				edges[size++] = edges[i];
+		return ( size == edges.length ) ? edges : Arrays.copyOf( edges, size );
+	}
+	
+	/**
+	 * Write the clusters into the output folder with the same format of \see TerminationReducer.
+	 * At convergence, each edge <u, v> connects the node u to the minimum node v of its cluster.
+	 * @param conf		configuration used to create the file.
+	 * @param folder	output folder.
+	 * @param ids		original identifiers of the dense nodes.
+	 * @param edges		edges of the converged graph.
+	 * @throws IOException
+	 */
+	private void writeClusters( Configuration conf, Path folder, long[] ids, long[] edges ) throws IOException
+	{
+		// Sort the edges by <min(u,v), max(u,v)>, so that each cluster is a contiguous group.
+		boolean[] leaf = new boolean[ids.length];
+		for ( int i = 0; i < edges.length; i++ )
+		{
+			leaf[high( edges[i] )] = true;
+			edges[i] = pack( low( edges[i] ), high( edges[i] ) );
+		}
+		Arrays.parallelSort( edges );
+		
+		this.numNodes = 0;
+		this.numClusters = 0;
+		ClusterWritable cluster = new ClusterWritable();
+		SequenceFile.Writer writer = SequenceFile.createWriter( conf, SequenceFile.Writer.file( folder.suffix( "/part-r-00000" ) ),
+				SequenceFile.Writer.keyClass( ClusterWritable.class ), SequenceFile.Writer.valueClass( NullWritable.class ) );
+		try
+		{
+			int e = 0;
+			for ( int node = 0; node < ids.length; node++ )
+			{
+				// The node belongs to the cluster of a smaller node.
+				if ( leaf[node] )
+					continue;
+				
+				cluster.clear();
+				cluster.add( ids[node] );
+				for ( ; e < edges.length && high( edges[e] ) == node; e++ )
+					cluster.add( ids[low( edges[e] )] );
+				
+				if ( this.permutation != null )
+					this.permutation.invert( cluster );
+				this.numNodes += cluster.size();
+				this.numClusters++;
+				writer.append( cluster, NullWritable.get() );
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Pack a pair of dense nodes into a long value, ordered by the first node and then by the second one.
+	 * @param first		first node.
+	 * @param second	second node.
+	 * @return			the packed pair.
+	 */
+	private static long pack( int first, int second )
+	{
+		return ( (long) first << 32 ) | ( second & 0xFFFFFFFFL );
+	}
+	
+	/**
+	 * Extract the first node of a packed pair.
+	 * @param pair		packed pair.
+	 * @return			the first node.
+	 */
+	private static int high( long pair )
+	{
+		return (int) ( pair >>> 32 );
+	}
+	
+	/**
+	 * Extract the second node of a packed pair.
+	 * @param pair		packed pair.
+	 * @return			the second node.
+	 */
+	private static int low( long pair )
+	{
+		return (int) pair;
+	}
+	
+	/** Growable list of the pairs <nodeID, neighbourID> read from the input. */
+	private static class EdgeList
+	{
+		private long[] nodes = new long[1024];
+		private long[] neighbours = new long[1024];
+		private int size = 0;
+		
+		/**
+		* Append a pair to the list.
+		* @param nodeID			identifier of the node.
+		* @param neighbourID	identifier of the neighbour, minus one if the node is alone.
+		*/
+		public void add( long nodeID, long neighbourID )
+		{
+			if ( this.size == this.nodes.length )
+			{
+				this.nodes = Arrays.copyOf( this.nodes, 2 * this.size );
+				this.neighbours = Arrays.copyOf( this.neighbours, 2 * this.size );
+			}
+			this.nodes[this.size] = nodeID;
+			this.neighbours[this.size] = neighbourID;
+			this.size++;
+		}
+		
+		/**
+		* Return the sorted array of the distinct node identifiers.
+		* The position of a node in this array is its dense index.
+		* @return			the sorted identifiers.
+		*/
+		public long[] denseIdentifiers()
+		{
+			long[] ids = new long[2 * this.size];
+			int count = 0;
+			for ( int i = 0; i < this.size; i++ )
+			{
+				ids[count++] = this.nodes[i];
+				// Minus one indicates that the node is alone.
+				if ( this.neighbours[i] != -1 )
+					ids[count++] = this.neighbours[i];
+			}
+			Arrays.parallelSort( ids, 0, count );
+			
+			int distinct = 0;
+			for ( int i = 0; i < count; i++ )
+				if ( distinct == 0 || ids[i] != ids[distinct - 1] )
+					ids[distinct++] = ids[i];
+			return Arrays.copyOf( ids, distinct );
+		}
+		
+		/**
+		* Return the sorted array of unique edges <max(u,v), min(u,v)>, expressed with dense indexes.
+		* The isolated nodes and the self loops are not present in the result.
+		* @param ids		the sorted identifiers, \see denseIdentifiers.
+		* @return			the array of packed edges.
+		*/
+		public long[] denseEdges( long[] ids )
+		{
+			long[] edges = new long[this.size];
+			int count = 0;
+			for ( int i = 0; i < this.size; i++ )
+			{
+				if ( this.neighbours[i] == -1 || this.neighbours[i] == this.nodes[i] )
+					continue;
+				int u = Arrays.binarySearch( ids, this.nodes[i] );
+				int v = Arrays.binarySearch( ids, this.neighbours[i] );
+				edges[count++] = pack( Math.max( u, v ), Math.min( u, v ) );
+			}
+			// Release the memory of the original pairs.
+			this.nodes = this.neighbours = null;
+			return unique( Arrays.copyOf( edges, count ) );
+		}
+	}
+	
+	/**
+	 * Fork-join task that executes a pass of a Star operation over a range of the sorted edges <max(u,v), min(u,v)>.
+	 * The MINIMUM pass stores, for each node, the minimum among the node and its smaller neighbours.
+	 * The EMIT pass replaces each edge with the pair emitted by \see StarReducer and counts the changes.
+	 */
+	private static class StarTask extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+		public static final int MINIMUM = 0, EMIT = 1;
+		
+		private final int pass;
+		private final StarDriverType type;
+		private final long[] edges;
+		private final int[] min;
+		private final int from, to;
+		
+		/**
+		* Initializes a new instance of the StarTask class.
+		* @param pass		MINIMUM or EMIT.
+		* @param type		operation to execute: Small-Star or Large-Star.
+		* @param edges		sorted and unique edges.
+		* @param min		minimum label of each node.
+		* @param from		first edge of the range (inclusive).
+		* @param to			last edge of the range (exclusive).
+		*/
+		public StarTask( int pass, StarDriverType type, long[] edges, int[] min, int from, int to )
+		{
+			this.pass = pass;
+			this.type = type;
+			this.edges = edges;
+			this.min = min;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		* Split the range until it is small enough, then process it.
+		* @return	number of changes occurred in the range.
+		*/
+		protected Long compute()
+		{
+			if ( this.to - this.from <= GRAIN )
+				return process();
+			
+			int middle = ( this.from + this.to ) >>> 1;
+			StarTask left = new StarTask( this.pass, this.type, this.edges, this.min, this.from, middle );
+			StarTask right = new StarTask( this.pass, this.type, this.edges, this.min, middle, this.to );
+			left.fork();
+			long changes = right.compute();
+			return changes + left.join();
+		}
+		
+		/**
+		* Process the edges of the range.
+		* @return	number of changes occurred in the range.
+		*/
+		private long process()
+		{
+			long changes = 0;
+			for ( int i = this.from; i < this.to; i++ )
+			{
+				int u = high( this.edges[i] ), v = low( this.edges[i] );
+				
+				if ( this.pass == MINIMUM )
+				{
+					// The first edge of a group contains the smallest neighbour of u.
+					if ( i == 0 || high( this.edges[i - 1] ) != u )
+						this.min[u] = v;
+				}
+				// Large-Star: the Reducer of v emits <u, m(v)> since u > v.
+				else if ( this.type == StarDriverType.LARGE )
+				{
+					this.edges[i] = pack( u, this.min[v] );
+					if ( this.min[v] != v )
+						changes++;
+				}
+				// Small-Star: the Reducer of u emits <u, m(u)> once and <v, m(u)> for the other neighbours.
+				else
+				{
+					if ( v == this.min[u] )
+						this.edges[i] = pack( u, this.min[u] );
+					else
+					{
+						this.edges[i] = pack( v, this.min[u] );
+						changes++;
+					}
+				}
+			}
+			return changes;
+		}
+	}
+	
+	/**
+	 * Main of the \see InMemoryDriver class.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception 
+	{	
+		if ( args.length != 2 )
+		{
+			System.out.println( "Usage: InMemoryDriver <input> <output>" );
+			System.exit(1);
+		}
+		
+		Path input = new Path( args[0] );
+		Path output = new Path( args[1] );
+		System.out.println( "Start InMemoryDriver. " );
+		InMemoryDriver mem = new InMemoryDriver( input, output, true );
+		if ( mem.run( null ) != 0  )
+		{
+			FileSystem.get( new Configuration() ).delete( output, true  );
+			System.exit( 1 );
+		}
+		System.out.println( "End InMemoryDriver." );
+		
+		System.out.println( "Number of iterations: " + mem.getNumIterations() );
+		System.out.println( "Number of nodes: " + mem.getNumNodes() );
+		System.out.println( "Number of Clusters: " + mem.getNumClusters() );
+		System.exit( 0 );
+	}
+}
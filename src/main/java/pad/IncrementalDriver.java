@@ -0,0 +1,242 @@
+/**
+ *	@file IncrementalDriver.java
+ *	@brief Driver of the Job that splits a previous cluster output into the clusters affected by new edges and the unchanged ones.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+/**
+ * Driver of the Job that splits a previous cluster output into the clusters affected by new edges and the unchanged ones.
+ * The nodes of the new edges list, i.e. the output of the \see InitializationDriver on the new edges, are collected,
+ * sorted and broadcast through the DistributedCache to the \see IncrementalMapper.
+ * A cluster that contains at least one of these nodes is transformed into a star rooted at its minimum node,
+ * whose edges are added to the new edges list; the other clusters are copied unchanged into the output folder.
+ * So the Star operations process only the components affected by the new edges.
+ */
+public class IncrementalDriver extends Configured implements Tool
+{
+	/** Name of the side output that contains the edges of the affected clusters. */
+	public static final String AFFECTED = "affected";
+	
+	private final Path previous, edges, output;
+	private final boolean verbose;
+	private JobReport report;
+	private long numNodes, numClusters;
+	
+	/**
+	* Initializes a new instance of the IncrementalDriver class.
+	* @param previous	path of the previous cluster output, i.e. the result of \see TerminationDriver Job.
+	* @param edges		path of the new edges list, i.e. the result of \see InitializationDriver Job; the edges of the affected clusters are added to it.
+	* @param output		path of the output folder, that will contain the unchanged clusters.
+	* @param verbose	if <c>true</c> shows on screen the messages of the Job execution.
+	*/
+	public IncrementalDriver( Path previous, Path edges, Path output, boolean verbose )
+	{
+		this.previous = previous;
+		this.edges = edges;
+		this.output = output;
+		this.verbose = verbose;
+	}
+	
+	/**
+	 * Execute the IncrementalDriver Job.
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if the IncrementalDriver Job failed its execution; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		FileSystem fs = FileSystem.get( conf );
+		
+		// Broadcast the sorted nodes of the new edges
+		Path nodes = this.output.suffix( "_nodes" );
+		writeNodes( fs, conf, nodes );
+		DistributedCache.addCacheFile( fs.makeQualified( nodes ).toUri(), conf );
+		conf.set( "incremental.nodes", fs.makeQualified( nodes ).toString() );
+		
+		Job job = new Job( conf, "IncrementalDriver" );
+		job.setJarByClass( IncrementalDriver.class );
+		
+		job.setOutputKeyClass( ClusterWritable.class );
+		job.setOutputValueClass( NullWritable.class );
+		
+		// The clusters are processed independently, so we need only a Mapper task.
+		job.setMapperClass( IncrementalMapper.class );
+		job.setNumReduceTasks( 0 );
+		MultipleOutputs.addNamedOutput( job, AFFECTED, SequenceFileOutputFormat.class, NodeWritable.class, NodeWritable.class );
+		
+		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setOutputFormatClass( SequenceFileOutputFormat.class );
+		
+		FileInputFormat.addInputPath( job, this.previous );
+		FileOutputFormat.setOutputPath( job, this.output );
+		
+		long start = System.currentTimeMillis();
+		boolean completed = job.waitForCompletion( this.verbose );
+		fs.delete( nodes, true );
+		if ( !completed )
+			return 1;
+		this.report = new JobReport( job, System.currentTimeMillis() - start );
+		
+		// Move the edges of the affected clusters into the new edges list
+		for ( FileStatus file : fs.globStatus( new Path( this.output, AFFECTED + "-*" ) ) )
+			fs.rename( file.getPath(), new Path( this.edges, "part-" + file.getPath().getName() ) );
+		
+		// Set up the private variables looking to the counters value
+		this.numNodes = job.getCounters().findCounter( UtilCounters.NUM_NODES ).getValue();
+		this.numClusters = job.getCounters().findCounter( UtilCounters.NUM_CLUSTERS ).getValue();
+		return 0;
+	}
+	
+	/**
+	 * Collect the distinct nodes of the new edges list and write them, sorted, into the given file:
+	 * the number of nodes followed by the nodes.
+	 * @param fs		file system of the new edges list.
+	 * @param conf		configuration of the Job.
+	 * @param nodes		path of the file.
+	 * @throws IOException
+	 */
+	private void writeNodes( FileSystem fs, Configuration conf, Path nodes ) throws IOException
+	{
+		long[] ids = new long[1024];
+		int size = 0;
+		NodeWritable nodeID = new NodeWritable(), neighbourID = new NodeWritable();
+		for ( FileStatus status : fs.globStatus( new Path( this.edges, "part*" ) ) )
+		{
+			SequenceFile.Reader reader = new SequenceFile.Reader( conf, SequenceFile.Reader.file( status.getPath() ) );
+			try
+			{
+				while ( reader.next( nodeID, neighbourID ) )
+				{
+					if ( size + 2 > ids.length )
+						ids = Arrays.copyOf( ids, 2 * ids.length );
+					ids[size++] = nodeID.get();
+					if ( neighbourID.get() != -1 )
+						ids[size++] = neighbourID.get();
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		
+		Arrays.sort( ids, 0, size );
+		int distinct = 0;
+		for ( int i = 0; i < size; i++ )
+			if ( distinct == 0 || ids[distinct - 1] != ids[i] )
+				ids[distinct++] = ids[i];
+		
+		DataOutputStream out = fs.create( nodes, true );
+		try
+		{
+			out.writeInt( distinct );
+			for ( int i = 0; i < distinct; i++ )
+				NodeWritable.writeNode( out, ids[i] );
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+	
+	/**
+	 * Read the sorted nodes of the new edges list broadcast by the IncrementalDriver.
+	 * The local copy of the DistributedCache is used, when available, otherwise the file is read from the file system.
+	 * @param conf	configuration of the Job.
+	 * @return 		the sorted array of nodes.
+	 * @throws IOException
+	 */
+	public static long[] readNodes( Configuration conf ) throws IOException
+	{
+		FileSystem fs = FileSystem.getLocal( conf );
+		Path[] files = DistributedCache.getLocalCacheFiles( conf );
+		Path nodes = ( files != null && files.length > 0 ) ? files[0] : null;
+		if ( nodes == null )
+		{
+			nodes = new Path( conf.get( "incremental.nodes" ) );
+			fs = nodes.getFileSystem( conf );
+		}
+		
+		DataInputStream in = fs.open( nodes );
+		try
+		{
+			long[] ids = new long[in.readInt()];
+			for ( int i = 0; i < ids.length; i++ )
+				ids[i] = NodeWritable.readNode( in );
+			return ids;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Return the number of nodes of the unchanged clusters.
+	 * @return 	number of nodes.
+	 */
+	public long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Return the number of unchanged clusters.
+	 * @return 	number of clusters.
+	 */
+	public long getNumClusters()
+	{
+		return this.numClusters;
+	}
+	
+	/**
+	 * Return the performance report of the Job.
+	 * @return 	the report of the Job.
+	 */
+	public JobReport getReport()
+	{
+		return this.report;
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ *	@file IncrementalMapper.java
+ *	@brief Mapper task of the \see IncrementalDriver Job.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+/** Mapper task of the \see IncrementalDriver Job. */
+public class IncrementalMapper extends Mapper<ClusterWritable, NullWritable, ClusterWritable, NullWritable> 
+{
+	private static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
+	private long[] nodes;
+	private MultipleOutputs<ClusterWritable, NullWritable> outputs;
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable minNodeID = new NodeWritable();
+	
+	/**
+	* Setup method of the this IncrementalMapper class.
+	* Read the sorted nodes of the new edges list, broadcast by the \see IncrementalDriver.
+	* @param context	context of this Job.
+	* @throws IOException
+	*/
+	public void setup( Context context ) throws IOException
+	{
+		nodes = IncrementalDriver.readNodes( context.getConfiguration() );
+		outputs = new MultipleOutputs<ClusterWritable, NullWritable>( context );
+	}
+	
+	/**
+	* Map method of the this IncrementalMapper class.
+	* If the cluster contains a node of the new edges list, it emits to the "affected" side output
+	* the star rooted at the minimum node of the cluster, i.e. the pairs <node, minimum>, or <minimum, -1> if it is alone.
+	* Otherwise it emits the cluster unchanged, incrementing the NUM_NODES and NUM_CLUSTERS counters.
+	* @param cluster	the cluster.
+	* @param _			not used.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( ClusterWritable cluster, NullWritable _, Context context ) throws IOException, InterruptedException 
+	{
+		boolean affected = false;
+		long min = Long.MAX_VALUE;
+		for ( int i = 0; i < cluster.size(); i++ )
+		{
+			affected = affected || ( Arrays.binarySearch( nodes, cluster.get( i ) ) >= 0 );
+			min = Math.min( min, cluster.get( i ) );
+		}
+		
+		if ( !affected )
+		{
+			context.getCounter( UtilCounters.NUM_NODES ).increment( cluster.size() );
+			context.getCounter( UtilCounters.NUM_CLUSTERS ).increment( 1 );
+			context.write( cluster, _ );
+			return;
+		}
+		
+		minNodeID.set( min );
+		if ( cluster.size() == 1 )
+			outputs.write( IncrementalDriver.AFFECTED, minNodeID, MINUS_ONE );
+		for ( int i = 0; i < cluster.size(); i++ )
+		{
+			if ( cluster.get( i ) == min )
+				continue;
+			nodeID.set( cluster.get( i ) );
+			outputs.write( IncrementalDriver.AFFECTED, nodeID, minNodeID );
+		}
+	}
+	
+	/**
+	* Cleanup method of the this IncrementalMapper class.
+	* Close the side output.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void cleanup( Context context ) throws IOException, InterruptedException
+	{
+		outputs.close();
+	}
+}
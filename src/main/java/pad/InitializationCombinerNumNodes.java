@@ -23,13 +23,12 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Reducer;
 
 /**	Combiner task of the \see InitializationDriver Job. */
-public class InitializationCombinerNumNodes extends Reducer<IntWritable, IntWritable, IntWritable, IntWritable> 
+public class InitializationCombinerNumNodes extends Reducer<NodeWritable, NodeWritable, NodeWritable, NodeWritable> 
 {
-	public static final IntWritable MINUS_ONE = new IntWritable( -1 );
+	public static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
 	
 	/**
 	* Reduce method of the this InitializationCombinerNumNodes class.
@@ -39,7 +38,7 @@ public class InitializationCombinerNumNodes extends Reducer<IntWritable, IntWrit
 	* @param context	context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void reduce( IntWritable nodeID, Iterable<IntWritable> _, Context context ) throws IOException, InterruptedException 
+	public void reduce( NodeWritable nodeID, Iterable<NodeWritable> _, Context context ) throws IOException, InterruptedException 
 	{
 		// Write the node identifier only one time, so eliminating many duplicates.
 		context.write ( nodeID, MINUS_ONE );
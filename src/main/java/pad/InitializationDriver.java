@@ -1,6 +1,6 @@
 /**
  *	@file InitializationDriver.java
- *	@brief Driver of the Job responsible for transforming the adjacency list or cliques list into a list of edges <nodeID, neighborID>.
+ *	@brief Driver of the Job responsible for transforming the adjacency list, cliques list or binary edges list into a list of edges <nodeID, neighborID>.
  *  @author Federico Conte (draxent)
  *  
  *	Copyright 2015 Federico Conte
@@ -27,10 +27,10 @@ import java.io.InputStreamReader;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
@@ -40,70 +40,132 @@ import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.hadoop.util.Tool;
 
-/**	Driver of the Job responsible for transforming the adjacency list or clique list into a edges list  <nodeID, neighborID>. */
+/**	Driver of the Job responsible for transforming the adjacency list, clique list or binary edges list into a edges list  <nodeID, neighborID>. */
 public class InitializationDriver extends Configured implements Tool
 {	
-	/** The input file can be format as an adjacency list or a cliques list */
-	public enum InputType { ADJACENCY_LIST, CLIQUES_LIST };
+	/** The input file can be format as an adjacency list, a cliques list or a binary edges list, of 32-bit or 64-bit identifiers */
+	public enum InputType { ADJACENCY_LIST, CLIQUES_LIST, BINARY_EDGES, BINARY_EDGES_LONG };
 	/** Directory name for multiple output */
 	public static final String MOS_OUTPUT_NAME = "result";
 	/** Base output path for multiple output */
 	public static final String MOS_BASEOUTPUTPATH = MOS_OUTPUT_NAME + "/part";
+	/** Name of the property that enables the star expansion of the cliques. */
+	public static final String STAR_EXPANSION = "init.clique.star";
+	/** Number of bytes analyzed in order to recognize a binary edges list. */
+	private static final int BINARY_PROBE_SIZE = 64 * 1024;
 	
 	private final Path input, output;
 	private final boolean verbose;
-	private InputType type;
-	private long numCliques, numInitialNodes;
+	private JobReport report;
+	private final InputType type;
+	private long numCliques, numInitialNodes, initialChecksum, numMalformedRecords;
+	private boolean starExpansion = false;
+	private NodePermutation permutation = null;
 	
 	/**
 	* Initializes a new instance of the InitializationDriver class.
+	* The format of the input is detected analyzing the beginning of the input file ( \see detectInputType ),
+	* so this constructor accepts only the text formats.
 	* @param input		path of the input graph stored on hdfs.
 	* @param output		path of the output folder.
 	* @param verbose	if <c>true</c> shows on screen the messages of the Job execution.
 	* @throws IOException 
 	*/
 	public InitializationDriver( Path input, Path output, boolean verbose ) throws IOException
+	{
+		this( input, output, detectInputType( input ), verbose );
+	}
+	
+	/**
+	* Initializes a new instance of the InitializationDriver class, whose input has the given format.
+	* @param input		path of the input graph stored on hdfs.
+	* @param output		path of the output folder.
+	* @param type		format of the input.
+	* @param verbose	if <c>true</c> shows on screen the messages of the Job execution.
+	*/
+	public InitializationDriver( Path input, Path output, InputType type, boolean verbose )
 	{
 		this.input = input;
 		this.output = output;
+		this.type = type;
 		this.verbose = verbose;
+	}
+	
+	/**
+	 * Determine the format of the input analyzing the beginning of its first file.
+	 * If the first block of bytes contains a byte that cannot appear in the text formats, the input is a binary edges list:
+	 * this always happens when a node identifier is smaller than 2^24, since its most significant byte is zero.
+	 * Since the same bytes are valid records of 32-bit and of 64-bit identifiers, the width of the records cannot be guessed:
+	 * a binary input is an error, and its type has to be given to the constructor.
+	 * Otherwise the lines are analyzed until one of them reveals if it is an adjacency list or a cliques list;
+	 * if all the nodes are alone, the two formats are equivalent and the adjacency list is chosen.
+	 * @param input		path of the input graph stored on hdfs, a file or a folder of files.
+	 * @return 			the format of the input, \see InputType.ADJACENCY_LIST or \see InputType.CLIQUES_LIST.
+	 * @throws IOException if the input cannot be read or if it is a binary edges list.
+	 */
+	public static InputType detectInputType( Path input ) throws IOException
+	{
+		FileSystem fs = FileSystem.get( new Configuration() );
+		Path file = input;
+		if ( fs.getFileStatus( input ).isDirectory() )
+			for ( FileStatus fileStatus : fs.listStatus( input ) )
+				if ( !fileStatus.isDirectory() && !fileStatus.getPath().getName().startsWith( "_" ) && !fileStatus.getPath().getName().startsWith( "." ) )
+				{
+					file = fileStatus.getPath();
+					break;
+				}
+		
+		// Look for a byte that cannot appear in the text formats.
+		byte[] bytes = new byte[BINARY_PROBE_SIZE];
+		FSDataInputStream in = fs.open( file );
+		int length = 0;
+		try
+		{
+			for ( int read = 0; read != -1 && length < bytes.length; read = in.read( bytes, length, bytes.length - length ) )
+				length += read;
+		}
+		finally
+		{
+			in.close();
+		}
+		for ( int i = 0; i < length; i++ )
+		{
+			byte b = bytes[i];
+			if ( ( b < '0' || b > '9' ) && b != '\t' && b != ' ' && b != ',' && b != '-' && b != '\n' && b != '\r' )
+				throw new IOException( "The input " + input + " is a binary edges list: its type, BINARY_EDGES or BINARY_EDGES_LONG, has to be given" );
+		}
 		
 		// Analyze the first line of the input file in order to determine
 		// if is format as an adjacency list or a cliques list.
-        FileSystem fs = FileSystem.get( new Configuration() );
-        BufferedReader br = new BufferedReader( new InputStreamReader( fs.open( this.input ) ) );
-        
-        // Repeat until we succeed to classify the input file.
-        boolean done = false;
-        while ( !done )
-        {
-	        // Read line
-	        String line = br.readLine();
-	        // Split the line on the tab character.
-	        String userID_neighborhood[] = line.split( "\t" );
-	        // If <TAB> not found, the format of input file can be cluster format or the node is alone.
-	        if( userID_neighborhood.length == 1 )
-	        {
-				// Split the line on the space character.
-				String cliquesLists[] = line.split( " " );
-				
-				// If the node is alone we have to repeat the procedure,
-				// since we cannot understand the format analyzing this line.
-				if ( cliquesLists.length > 1 )
+		BufferedReader br = new BufferedReader( new InputStreamReader( fs.open( file ) ) );
+		try
+		{
+			// Repeat until we succeed to classify the input file.
+			String line;
+			while ( ( line = br.readLine() ) != null )
+			{
+				// Split the line on the tab character.
+				String userID_neighborhood[] = line.split( "\t" );
+				// If <TAB> not found, the format of input file can be cluster format or the node is alone.
+				if ( userID_neighborhood.length == 1 )
 				{
-					this.type = InputType.CLIQUES_LIST;
-					done = true;
+					// Split the line on the space character.
+					String cliquesLists[] = line.split( " " );
+					
+					// If the node is alone we have to repeat the procedure,
+					// since we cannot understand the format analyzing this line.
+					if ( cliquesLists.length > 1 )
+						return InputType.CLIQUES_LIST;
 				}
-	        }
-	        else
-	        {
-	        	this.type = InputType.ADJACENCY_LIST;
-	        	done = true;
-	        }
-        }
-        
-        // Close file
-        br.close();
+				else
+					return InputType.ADJACENCY_LIST;
+			}
+			return InputType.ADJACENCY_LIST;
+		}
+		finally
+		{
+			br.close();
+		}
 	}
 	
 	/**
@@ -118,10 +180,16 @@ public class InitializationDriver extends Configured implements Tool
 	 * that is equal to the number of rows of the input file.
 	 * In order to obtain a edges list from the cliques list, we use the \see InitializationMapperClique
 	 * as Mapper. We store this result into a special folder \see MOS_OUTPUT_NAME.
+	 * With the star expansion ( \see setStarExpansion ), each clique produces only the edges towards its minimum node.
 	 * Into the regular folder, this Mapper emits all the encountered nodes.
 	 * We use \see InitializationReducerNumNodes as Reducer in order to count the initial number of nodes
 	 * counting all the distinct nodes found. The combiner (\see InitializationCombinerNumNodes) reduce locally
 	 * the number of duplicated nodes.
+	 * 
+	 * If the input file format is binary edges list, the \see BinaryEdgeInputFormat decodes the records
+	 * without any text parsing and the \see InitializationMapperBinary works as the clique Mapper:
+	 * it stores the edges into the special folder and it emits the nodes in order to count them.
+	 * 
 	 * Obtained the value of the NUM_INITIAL_NODES counter ( \see UtilCounters ), we delete the empty files
 	 * produced by the Reducer and we move the real results into the main/regular folder.
 	 * 
@@ -134,13 +202,17 @@ public class InitializationDriver extends Configured implements Tool
 		Configuration conf = new Configuration();
 		// GenericOptionsParser invocation in order to suppress the hadoop warning.
 		new GenericOptionsParser( conf, args );
+		conf.setBoolean( STAR_EXPANSION, this.starExpansion );
+		NodePermutation.set( conf, this.permutation );
+		conf.setBoolean( BinaryEdgeInputFormat.LONG_IDS, this.type == InputType.BINARY_EDGES_LONG );
 		Job job = new Job( conf, "InitializationDriver" );
 		job.setJarByClass( InitializationDriver.class );
 		
-		job.setOutputKeyClass( IntWritable.class );
-		job.setOutputValueClass( IntWritable.class );
+		job.setOutputKeyClass( NodeWritable.class );
+		job.setOutputValueClass( NodeWritable.class );
 		
-		job.setInputFormatClass( TextInputFormat.class );
+		boolean binary = ( this.type == InputType.BINARY_EDGES ) || ( this.type == InputType.BINARY_EDGES_LONG );
+		job.setInputFormatClass( binary ? BinaryEdgeInputFormat.class : TextInputFormat.class );
 		job.setOutputFormatClass( SequenceFileOutputFormat.class );
 		
 		FileInputFormat.addInputPath( job, this.input );
@@ -155,24 +227,28 @@ public class InitializationDriver extends Configured implements Tool
 		else
 		{
 			// Set up the special folder.
-			MultipleOutputs.addNamedOutput( job, MOS_OUTPUT_NAME, SequenceFileOutputFormat.class, IntWritable.class, IntWritable.class );
+			MultipleOutputs.addNamedOutput( job, MOS_OUTPUT_NAME, SequenceFileOutputFormat.class, NodeWritable.class, NodeWritable.class );
 			MultipleOutputs.setCountersEnabled( job, true );
 			// In order to obtain the edges list from the cliques list, we need only a Mapper task
 			// and we save the result into the special folder.
 			// Then, we need a Reducer task in order to count the initial number of nodes
-			job.setMapperClass( InitializationMapperClique.class );
+			job.setMapperClass( binary ? InitializationMapperBinary.class : InitializationMapperClique.class );
 			job.setCombinerClass( InitializationCombinerNumNodes.class );
 			job.setReducerClass( InitializationReducerNumNodes.class  );
 		}		
 		
+		long start = System.currentTimeMillis();
 		if ( !job.waitForCompletion( verbose ) )
 			return 1;
+		this.report = new JobReport( job, System.currentTimeMillis() - start );
 		
 		// Set up the private variables looking to the counters value
 		this.numCliques = job.getCounters().findCounter( UtilCounters.NUM_CLIQUES ).getValue();
 		this.numInitialNodes = job.getCounters().findCounter( UtilCounters.NUM_INITIAL_NODES ).getValue();
+		this.initialChecksum = job.getCounters().findCounter( UtilCounters.INITIAL_NODES_CHECKSUM ).getValue();
+		this.numMalformedRecords = job.getCounters().findCounter( UtilCounters.NUM_MALFORMED_RECORDS ).getValue();
 		
-		if ( this.type == InputType.CLIQUES_LIST )
+		if ( this.type != InputType.ADJACENCY_LIST )
 		{
 			FileSystem fs = FileSystem.get( conf );
 			
@@ -194,6 +270,30 @@ public class InitializationDriver extends Configured implements Tool
 		return 0;
 	}
 	
+	/**
+	 * Enable or disable the star expansion of the cliques: each node of a clique is linked only to the minimum node
+	 * of the clique, so a clique of k nodes produces k-1 edges instead of all the k(k-1)/2 pairs.
+	 * The connected components and the NUM_CLIQUES and NUM_INITIAL_NODES counters do not change.
+	 * By default the star expansion is disabled, so every clique produces all its pairs.
+	 * @param starExpansion	<c>true</c> in order to enable the star expansion.
+	 */
+	public void setStarExpansion( boolean starExpansion )
+	{
+		this.starExpansion = starExpansion;
+	}
+	
+	/**
+	 * Relabel the nodes with a seeded pseudo-random bijection ( \see NodePermutation ), since the random labels
+	 * bound the number of iterations of the Large-Star and Small-Star operations. The driver that writes the clusters
+	 * has to receive the same permutation, in order to translate them back to the original identifiers.
+	 * By default it is <c>null</c>, i.e. the nodes are not relabelled.
+	 * @param permutation	the permutation, or <c>null</c>.
+	 */
+	public void setPermutation( NodePermutation permutation )
+	{
+		this.permutation = permutation;
+	}
+	
 	/**
 	 * Return the type of format of the input file.
 	 * @return 	the type of format of the input file.
@@ -221,6 +321,34 @@ public class InitializationDriver extends Configured implements Tool
 		return this.numInitialNodes;
 	}
 	
+	/**
+	 * Returns the checksum of the initial nodes founds in the input file ( \see NodeWritable.checksum ),
+	 * computed on the relabelled identifiers if the nodes are permuted.
+	 * @return 	checksum of the initial nodes.
+	 */
+	public long getInitialChecksum()
+	{
+		return this.initialChecksum;
+	}
+	
+	/**
+	 * Returns the number of records of the binary edges list skipped for a negative identifier.
+	 * @return 	number of malformed records.
+	 */
+	public long getNumMalformedRecords()
+	{
+		return this.numMalformedRecords;
+	}
+	
+	/**
+	 * Return the performance report of the Job.
+	 * @return 	the report of the Job.
+	 */
+	public JobReport getReport()
+	{
+		return this.report;
+	}
+	
 	/**
 	 * Main of the \see InitializationDriver class.
 	 * @param args	array of external arguments,
@@ -228,21 +356,25 @@ public class InitializationDriver extends Configured implements Tool
 	 */
 	public static void main( String[] args ) throws Exception 
 	{	
-		if ( args.length != 2 )
+		if ( args.length < 2 || args.length > 3 || ( args.length == 3 && !args[2].equals( "binary" ) && !args[2].equals( "binary64" ) ) )
 		{
-			System.out.println( "Usage: InitializationDriver <input> <output>" );
+			System.out.println( "Usage: InitializationDriver <input> <output> [binary|binary64]" );
 			System.exit(1);
 		}
 
 		Path input = new Path( args[0] );
 		Path output = new Path( args[1] );
 		System.out.println( "Start InitializationDriver. " );
-		InitializationDriver init = new InitializationDriver( input, output, true );
+		InputType type = ( args.length < 3 ) ? null : ( args[2].equals( "binary64" ) ? InputType.BINARY_EDGES_LONG : InputType.BINARY_EDGES );
+		InitializationDriver init = ( type != null ) ? new InitializationDriver( input, output, type, true )
+													 : new InitializationDriver( input, output, true );
 		if ( init.run( null ) != 0  )
 		{
 			FileSystem.get( new Configuration() ).delete( output, true  );
 			System.exit( 1 );
 		}
+		if ( init.getNumMalformedRecords() > 0 )
+			System.out.println( "Skipped " + init.getNumMalformedRecords() + " records with a negative identifier." );
 		System.out.println( "End InitializationDriver." );
 
 		System.exit( 0 );
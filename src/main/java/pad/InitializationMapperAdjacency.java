@@ -23,7 +23,6 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -31,16 +30,38 @@ import org.apache.hadoop.mapreduce.Mapper;
 import pad.UtilCounters;
 
 /**	Mapper task of the \see InitializationDriver Job. */
-public class InitializationMapperAdjacency extends Mapper<LongWritable, Text, IntWritable, IntWritable> 
+public class InitializationMapperAdjacency extends Mapper<LongWritable, Text, NodeWritable, NodeWritable> 
 {
-	public static final IntWritable MINUS_ONE = new IntWritable( -1 );
-	private IntWritable nodeID = new IntWritable();
-	private IntWritable neighbourID = new IntWritable();
+	public static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable neighbourID = new NodeWritable();
+	private TextParser parser = new TextParser();
+	private NodePermutation permutation;
+	
+	/**
+	 * Setup method of the this InitializationMapperAdjacency class.
+	 * Read the permutation of the node identifiers, if any ( \see NodePermutation ).
+	 * @param context	context of this Job.
+	 */
+	protected void setup( Context context )
+	{
+		this.permutation = NodePermutation.get( context.getConfiguration() );
+	}
+	
+	/**
+	* Return the i-th node of the parsed line, relabelled by the permutation if any.
+	* @param i		index of the node in the line.
+	* @return		the node identifier.
+	*/
+	private long get( int i )
+	{
+		return ( this.permutation == null ) ? parser.get( i ) : this.permutation.permute( parser.get( i ) );
+	}
 	
 	/**
 	* Map method of the this InitializationMapperAdjacent class.
 	* Each line has the following format: NodeID<TAB>NeighborID1,NeighborID2,...
-	* So we read a line and we split it by the <TAB> character, and the second part by the comma character.
+	* So we parse the bytes of the line with the \see TextParser, without converting it into a String.
 	* Then, for each neighbor, we produce the pair <NodeID, NeighborID>
 	* if NodeID > NeighborID since it is the connection that we need in the following operations.
 	* @param _			offset of the line read, not used in this method.
@@ -50,33 +71,28 @@ public class InitializationMapperAdjacency extends Mapper<LongWritable, Text, In
 	*/
 	public void map( LongWritable _, Text value, Context context ) throws IOException, InterruptedException 
 	{
-		// Read line.
-		String line = value.toString();
-		
-		// Increment the number of nodes, since the input file presents a new node in each line.
-		context.getCounter( UtilCounters.NUM_INITIAL_NODES ).increment( 1 );
-
-		// Split the line on the tab character.
-		String userID_neighbourhood[] = line.split( "\t" );
+		// Parse the line: the nodeID followed by its neighbours.
+		int numNodes = parser.parse( value );
 		
 		// Extract the nodeID.
-		nodeID.set( Integer.parseInt( userID_neighbourhood[0] ) );
+		nodeID.set( get( 0 ) );
+		
+		// Increment the number of nodes and their checksum, since the input file presents a new node in each line.
+		context.getCounter( UtilCounters.NUM_INITIAL_NODES ).increment( 1 );
+		context.getCounter( UtilCounters.INITIAL_NODES_CHECKSUM ).increment( NodeWritable.checksum( nodeID.get() ) );
 		
 		// If the node is alone.
-		if ( userID_neighbourhood.length == 1 )
+		if ( numNodes == 1 )
 		{
 			// NeighbourID is set to minus one, to indicate that the node is alone.
 			context.write( nodeID, MINUS_ONE );
 			return;
 		}
 		
-		// Split by "," to find the list of neighbours of nodeID.
-		String neighbours[] = userID_neighbourhood[1].split( "," );
-		
 		// Emit the pair <nodeID, neighbourID> for each neighbours.
-		for ( int i = 0; i < neighbours.length; i++ )
+		for ( int i = 1; i < numNodes; i++ )
 		{
-			neighbourID.set( Integer.parseInt( neighbours[i] ) );
+			neighbourID.set( get( i ) );
 			// only if nodeID > neighbourID
 			if ( nodeID.get() > neighbourID.get() )
 				context.write( nodeID, neighbourID );
@@ -0,0 +1,112 @@
+/**
+ *	@file InitializationMapperBinary.java
+ *	@brief Mapper task of the \see InitializationDriver Job, for the binary edges list.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+/**	Mapper task of the \see InitializationDriver Job, for the binary edges list read by \see BinaryEdgeInputFormat. */
+public class InitializationMapperBinary extends Mapper<NodeWritable, NodeWritable, NodeWritable, NodeWritable> 
+{
+	// Minus one indicates that a node is alone.
+	private static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable neighbourID = new NodeWritable();
+	private MultipleOutputs<NodeWritable, NodeWritable> mos = null;
+	private NodePermutation permutation;
+	
+	/**
+	 * Setup method of the this InitializationMapperBinary class.
+	 * Set up the multiple outputs variable, used to write the "real" result into the special folder,
+	 * and read the permutation of the node identifiers, if any ( \see NodePermutation ).
+	 * @param context	context of this Job.
+	 * @throws IOException, InterruptedException
+	 */
+	protected void setup( Context context ) throws IOException, InterruptedException
+	{
+		this.mos = new MultipleOutputs<NodeWritable, NodeWritable>( context );
+		this.permutation = NodePermutation.get( context.getConfiguration() );
+	}
+	
+	/**
+	 * Map method of the this InitializationMapperBinary class.
+	 * Each record is an edge <NodeID, NeighbourID>, already decoded by the \see BinaryEdgeInputFormat,
+	 * so no text parsing is needed.
+	 * A negative identifier would collide with the markers of the pipeline, minus one for an alone node and the negative
+	 * certificates of the pruned leaves ( \see StarLeafMapper ), so a record with a negative node, or with a negative neighbour
+	 * other than minus one, is counted into NUM_MALFORMED_RECORDS ( \see UtilCounters ) and skipped.
+	 * We store into the special folder the pair <NodeID, NeighborID> oriented so that NodeID > NeighborID,
+	 * or the pair <NodeID, -1> if the edge is a self-loop or the neighbour is minus one, i.e. the node is alone.
+	 * In the regular folder we emit the nodes of the edge, in order to count the distinct nodes.
+	 * @param node		first node of the edge.
+	 * @param neighbour	second node of the edge.
+	 * @param context	context of this Job.
+	 * @throws IOException, InterruptedException
+	 */
+	public void map( NodeWritable node, NodeWritable neighbour, Context context ) throws IOException, InterruptedException 
+	{
+		// Reject the negative identifiers, except the minus one of an alone node.
+		if ( node.get() < 0 || neighbour.get() < -1 )
+		{
+			context.getCounter( UtilCounters.NUM_MALFORMED_RECORDS ).increment( 1 );
+			return;
+		}
+		
+		// Relabel the nodes, the record objects can be modified.
+		if ( this.permutation != null )
+		{
+			node.set( this.permutation.permute( node.get() ) );
+			neighbour.set( this.permutation.permute( neighbour.get() ) );
+		}
+		
+		// Emit the encountered node.
+		context.write( node, MINUS_ONE );
+		
+		// If the node is alone.
+		if ( neighbour.get() == -1 || neighbour.get() == node.get() )
+		{
+			mos.write( node, MINUS_ONE, pad.InitializationDriver.MOS_BASEOUTPUTPATH );
+			return;
+		}
+		
+		// Emit the encountered neighbour.
+		context.write( neighbour, MINUS_ONE );
+		
+		// Emit the pair in the special folder.
+		nodeID.set( Math.max( node.get(), neighbour.get() ) );
+		neighbourID.set( Math.min( node.get(), neighbour.get() ) );
+		mos.write( nodeID, neighbourID, pad.InitializationDriver.MOS_BASEOUTPUTPATH );
+	}
+	
+	/**
+	 * Cleanup method of the this InitializationMapperBinary class.
+	 * Close the multiple output file.
+	 * @param context	context of this Job.
+	 * @throws IOException, InterruptedException
+	 */
+	protected void cleanup( Context context ) throws IOException, InterruptedException
+	{
+		this.mos.close();
+	}
+}
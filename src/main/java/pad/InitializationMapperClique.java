@@ -23,7 +23,6 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -32,32 +31,51 @@ import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import pad.UtilCounters;
 
 /**	Mapper task of the \see InitializationDriver Job. */
-public class InitializationMapperClique extends Mapper<LongWritable, Text, IntWritable, IntWritable> 
+public class InitializationMapperClique extends Mapper<LongWritable, Text, NodeWritable, NodeWritable> 
 {
 	// Minus one indicates that a node is alone.
-	private static final IntWritable MINUS_ONE = new IntWritable( -1 );
-	private IntWritable nodeID = new IntWritable();
-	private IntWritable neighbourID = new IntWritable();
-	private MultipleOutputs<IntWritable, IntWritable> mos = null;
+	private static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable neighbourID = new NodeWritable();
+	private TextParser parser = new TextParser();
+	private MultipleOutputs<NodeWritable, NodeWritable> mos = null;
+	private boolean starExpansion;
+	private NodePermutation permutation;
 	
 	/**
 	 * Setup method of the this InitializationMapperClique class.
-	 * Set up the multiple outputs variable, used to write the "real" result into the special folder.
+	 * Set up the multiple outputs variable, used to write the "real" result into the special folder,
+	 * read if the cliques are expanded into stars ( \see InitializationDriver.setStarExpansion )
+	 * and the permutation of the node identifiers, if any ( \see NodePermutation ).
 	 * @param context	context of this Job.
 	 * @throws IOException, InterruptedException
 	 */
 	protected void setup( Context context ) throws IOException, InterruptedException
 	{
-		this.mos = new MultipleOutputs<IntWritable, IntWritable>( context );
+		this.mos = new MultipleOutputs<NodeWritable, NodeWritable>( context );
+		this.starExpansion = context.getConfiguration().getBoolean( InitializationDriver.STAR_EXPANSION, false );
+		this.permutation = NodePermutation.get( context.getConfiguration() );
+	}
+	
+	/**
+	* Return the i-th node of the parsed line, relabelled by the permutation if any.
+	* @param i		index of the node in the line.
+	* @return		the node identifier.
+	*/
+	private long get( int i )
+	{
+		return ( this.permutation == null ) ? parser.get( i ) : this.permutation.permute( parser.get( i ) );
 	}
 	
 	/**
 	 * Map method of the this InitializationMapperClique class.
 	 * Each line has the following format: NodeID1<SPACE>NodeID2<SPACE>NodeID3....
 	 * This means that all the nodes in the line are strongly connected to each others.
-	 * In this case, we read a line and we split it by the <SPACE> character.
+	 * In this case, we parse the bytes of the line with the \see TextParser, without converting it into a String.
 	 * Then, we produce all the combination between two nodes found in the set and we
 	 * emit the pair <NodeID, NeighborID> if NodeID > NeighborID.
+	 * With the star expansion, since the connectivity only needs each node linked to the minimum node of the clique,
+	 * we emit only the pairs <NodeID, MinNodeID>, i.e. k-1 pairs instead of k(k-1)/2.
 	 * We store this result into the special folder.
 	 * In the regular folder we emit all the encountered nodes.
 	 * @param _			offset of the line read, not used in this method.
@@ -67,20 +85,17 @@ public class InitializationMapperClique extends Mapper<LongWritable, Text, IntWr
 	 */
 	public void map( LongWritable _, Text value, Context context ) throws IOException, InterruptedException 
 	{
-		// Read line.
-		String line = value.toString();
+		// Parse the nodes of the clique.
+		int numNodes = parser.parse( value );
 		
 		// Increment the number of cliques, since in each line there is a new cliques.
 		context.getCounter( UtilCounters.NUM_CLIQUES ).increment( 1 );
-
-		// Split the line on the space character.
-		String cliquesLists[] = line.split( " " );
 		
 		// If the node is alone.
-		if ( cliquesLists.length == 1 )
+		if ( numNodes == 1 )
 		{
 			// Extract the nodeID.
-			nodeID.set( Integer.parseInt( cliquesLists[0] ) );
+			nodeID.set( get( 0 ) );
 			// Emit the node.
 			context.write( nodeID, MINUS_ONE );
 			// Emit the node in the special folder.
@@ -88,17 +103,44 @@ public class InitializationMapperClique extends Mapper<LongWritable, Text, IntWr
 			return;
 		}
 		
+		// Link each node to the minimum node of the clique.
+		if ( this.starExpansion )
+		{
+			long minNodeID = get( 0 );
+			for ( int i = 1; i < numNodes; i++ )
+				minNodeID = Math.min( minNodeID, get( i ) );
+			
+			neighbourID.set( minNodeID );
+			boolean alone = true;
+			for ( int i = 0; i < numNodes; i++ )
+			{
+				nodeID.set( get( i ) );
+				// Emit the pair in the special folder, skipping the minimum node and its duplicates.
+				if ( nodeID.get() != minNodeID )
+				{
+					mos.write( nodeID, neighbourID, pad.InitializationDriver.MOS_BASEOUTPUTPATH );
+					alone = false;
+				}
+				// Emit the encountered node.
+				context.write( nodeID, MINUS_ONE );
+			}
+			// The line repeats the same node, which is therefore alone.
+			if ( alone )
+				mos.write( neighbourID, MINUS_ONE, pad.InitializationDriver.MOS_BASEOUTPUTPATH );
+			return;
+		}
+		
 		// The input file is format as cliques list.
 		// We produce all the combination between two nodes found in the set.
-		for ( int i = 0; i < cliquesLists.length - 1; i++ )
+		for ( int i = 0; i < numNodes - 1; i++ )
 		{
 			// Extract the nodeID.
-			int nodeX = Integer.parseInt( cliquesLists[i] );
+			long nodeX = get( i );
 			
-			for ( int j = i + 1; j < cliquesLists.length; j++ )
+			for ( int j = i + 1; j < numNodes; j++ )
 			{
 				// Extract the neighbourID.
-				int nodeY = Integer.parseInt( cliquesLists[j] );
+				long nodeY = get( j );
 				
 				nodeID.set( Math.max ( nodeX, nodeY ) );
 				neighbourID.set( Math.min ( nodeX, nodeY ) );
@@ -111,7 +153,7 @@ public class InitializationMapperClique extends Mapper<LongWritable, Text, IntWr
 			context.write( nodeID, MINUS_ONE );
 		}
 		// Emit the encountered node.
-		nodeID.set( Integer.parseInt( cliquesLists[cliquesLists.length - 1] ) );
+		nodeID.set( get( numNodes - 1 ) );
 		context.write( nodeID, MINUS_ONE );
 	}
 	
@@ -23,25 +23,26 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Reducer;
 
 import pad.UtilCounters;
 
 /**	Reducer task of the \see InitializationDriver Job. */
-public class InitializationReducerNumNodes extends Reducer<IntWritable, IntWritable, IntWritable, IntWritable> 
+public class InitializationReducerNumNodes extends Reducer<NodeWritable, NodeWritable, NodeWritable, NodeWritable> 
 {
 	/**
 	* Reduce method of the this InitializationReducerNumNodes class.
-	* Increment the NUM_INITIAL_NODES of \see UtilCounters by one for each distinct node found.
+	* Increment the NUM_INITIAL_NODES of \see UtilCounters by one for each distinct node found,
+	* and the INITIAL_NODES_CHECKSUM by its checksum ( \see NodeWritable.checksum ).
 	* @param nodeID		node identifier.
 	* @param _			not used.
 	* @param context	context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void reduce( IntWritable nodeID, Iterable<IntWritable> _, Context context ) throws IOException, InterruptedException 
+	public void reduce( NodeWritable nodeID, Iterable<NodeWritable> _, Context context ) throws IOException, InterruptedException 
 	{
 		// Increment the number of initial nodes by one for each distinct node.
 		context.getCounter( UtilCounters.NUM_INITIAL_NODES ).increment( 1 );
+		context.getCounter( UtilCounters.INITIAL_NODES_CHECKSUM ).increment( NodeWritable.checksum( nodeID.get() ) );
 	}
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+/**
+ *	@file IterationManifest.java
+ *	@brief Checkpoint of the iterations of \see ConnectedComponents, used to resume a failed run.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Writable;
+
+import pad.InitializationDriver.InputType;
+
+/**
+ * Checkpoint of the iterations of \see ConnectedComponents: it records the last completed operation,
+ * whose output is the newest durable edges list, together with the counters needed to go on from there,
+ * i.e. the counters of the initialization and the number of changes of every operation.
+ * The state of the \see ConvergenceStrategy is not stored, since it is rebuilt replaying the number of changes.
+ */
+public class IterationManifest implements Writable
+{
+	/** Version of the file format, increased when the fields change. */
+	private static final int VERSION = 2;
+	
+	/** Name of the backend that has written the manifest. */
+	public String Backend = "";
+	/** Class name of the \see ConvergenceStrategy of the MAPREDUCE backend. */
+	public String Strategy = "";
+	/** The type of format of the input file. */
+	public InputType Type = InputType.ADJACENCY_LIST;
+	/** Counters of the \see InitializationDriver. */
+	public long NumCliques, NumInitialNodes, InitialChecksum;
+	/** Counters of the \see IncrementalDriver, zero if the incremental mode is disabled. */
+	public long UnchangedNodes, UnchangedClusters;
+	/** The permutation of the node identifiers, or <c>null</c>. */
+	public NodePermutation Permutation = null;
+	/** Number of Star operations completed: the newest edges list is <em>input_Operations</em>. */
+	public int Operations;
+	/** Number of iterations completed. */
+	public int Rounds;
+	/** Number of changes of the operations of the current iteration. */
+	public long RoundChanges;
+	/** Number of records of the newest edges list, or minus one if unknown. */
+	public long InputRecords = -1;
+	/** Path of the certificates of the leaves written by the last Large-Star, or <c>null</c>. */
+	public Path Leaves = null;
+	/** <c>true</c> if the remaining iterations have to be executed by the \see InMemoryDriver. */
+	public boolean FinishLocally;
+	/** Number of changes of each completed operation, in order of execution. */
+	public List<Long> NumChanges = new ArrayList<Long>();
+	
+	/**
+	* Deserializes the manifest.
+	* @param in		source for raw byte representation.
+	* @throws IOException
+	*/
+	public void readFields( DataInput in ) throws IOException
+	{
+		int version = in.readInt();
+		if ( version != VERSION )
+			throw new IOException( "Unsupported version " + version + " of the iteration manifest" );
+		this.Backend = in.readUTF();
+		this.Strategy = in.readUTF();
+		this.Type = InputType.valueOf( in.readUTF() );
+		this.NumCliques = in.readLong();
+		this.NumInitialNodes = in.readLong();
+		this.InitialChecksum = in.readLong();
+		this.UnchangedNodes = in.readLong();
+		this.UnchangedClusters = in.readLong();
+		this.Permutation = in.readBoolean() ? new NodePermutation( in.readLong(), in.readInt() ) : null;
+		this.Operations = in.readInt();
+		this.Rounds = in.readInt();
+		this.RoundChanges = in.readLong();
+		this.InputRecords = in.readLong();
+		this.Leaves = in.readBoolean() ? new Path( in.readUTF() ) : null;
+		this.FinishLocally = in.readBoolean();
+		int size = in.readInt();
+		this.NumChanges.clear();
+		for ( int i = 0; i < size; i++ )
+			this.NumChanges.add( in.readLong() );
+	}
+	
+	/**
+	* Serializes the manifest.
+	* @param out	where to write the raw byte representation.
+	* @throws IOException
+	*/
+	public void write( DataOutput out ) throws IOException
+	{
+		out.writeInt( VERSION );
+		out.writeUTF( this.Backend );
+		out.writeUTF( this.Strategy );
+		out.writeUTF( this.Type.name() );
+		out.writeLong( this.NumCliques );
+		out.writeLong( this.NumInitialNodes );
+		out.writeLong( this.InitialChecksum );
+		out.writeLong( this.UnchangedNodes );
+		out.writeLong( this.UnchangedClusters );
+		out.writeBoolean( this.Permutation != null );
+		if ( this.Permutation != null )
+		{
+			out.writeLong( this.Permutation.getSeed() );
+			out.writeInt( this.Permutation.getBits() );
+		}
+		out.writeInt( this.Operations );
+		out.writeInt( this.Rounds );
+		out.writeLong( this.RoundChanges );
+		out.writeLong( this.InputRecords );
+		out.writeBoolean( this.Leaves != null );
+		if ( this.Leaves != null )
+			out.writeUTF( this.Leaves.toString() );
+		out.writeBoolean( this.FinishLocally );
+		out.writeInt( this.NumChanges.size() );
+		for ( long changes : this.NumChanges )
+			out.writeLong( changes );
+	}
+	
+	/**
+	* Write the manifest into <em>path</em>. It is first written next to it and then renamed,
+	* so that a failure while writing does not destroy the previous manifest ( \see read ).
+	* @param fs		file system of the manifest.
+	* @param path	path of the manifest.
+	* @throws IOException
+	*/
+	public void save( FileSystem fs, Path path ) throws IOException
+	{
+		Path tmp = path.suffix( ".tmp" );
+		FSDataOutputStream out = fs.create( tmp, true );
+		try
+		{
+			write( out );
+		}
+		finally
+		{
+			out.close();
+		}
+		fs.delete( path, true );
+		if ( !fs.rename( tmp, path ) )
+			throw new IOException( "Unable to rename " + tmp + " into " + path );
+	}
+	
+	/**
+	* Read the manifest stored in <em>path</em>, or in its temporary copy if the last \see save has been interrupted
+	* after deleting the previous manifest.
+	* @param fs		file system of the manifest.
+	* @param path	path of the manifest.
+	* @return		the manifest, or <c>null</c> if it does not exist.
+	* @throws IOException
+	*/
+	public static IterationManifest read( FileSystem fs, Path path ) throws IOException
+	{
+		if ( !fs.exists( path ) )
+		{
+			path = path.suffix( ".tmp" );
+			if ( !fs.exists( path ) )
+				return null;
+		}
+		
+		IterationManifest manifest = new IterationManifest();
+		FSDataInputStream in = fs.open( path );
+		try
+		{
+			manifest.readFields( in );
+		}
+		finally
+		{
+			in.close();
+		}
+		return manifest;
+	}
+	
+	/**
+	* Delete the manifest and its temporary copy.
+	* @param fs		file system of the manifest.
+	* @param path	path of the manifest.
+	* @throws IOException
+	*/
+	public static void delete( FileSystem fs, Path path ) throws IOException
+	{
+		fs.delete( path, true );
+		fs.delete( path.suffix( ".tmp" ), true );
+	}
+	
+	/**
+	* Convert the object into a string.
+	* @return	the resulting string.
+	*/
+	public String toString()
+	{
+		return this.Backend + " operations=" + this.Operations + " rounds=" + this.Rounds + " changes=" + this.NumChanges
+				+ ( this.FinishLocally ? " local" : "" );
+	}
+}
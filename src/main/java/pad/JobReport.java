@@ -0,0 +1,310 @@
+/**
+ *	@file JobReport.java
+ *	@brief Performance report of a Job, or of a phase executed locally, of the \see ConnectedComponents orchestration.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.JobID;
+import org.apache.hadoop.mapred.Task;
+import org.apache.hadoop.mapred.TaskReport;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+
+/**
+ * Performance report of a Job, or of a phase executed locally, of the \see ConnectedComponents orchestration.
+ * It contains the wall time, the main counters of the Job and the duration of the fastest, median and slowest
+ * Reduce tasks, which reveals the stragglers. The values that are not available are equal to minus one.
+ */
+public class JobReport
+{
+	/** Header of the CSV format, \see toCsv. */
+	public static final String CSV_HEADER = "phase,wallTime,mapInputRecords,mapOutputRecords,reduceInputRecords,reduceOutputRecords,"
+										  + "shuffleBytes,spilledRecords,numChanges,numReduceTasks,minReduceTime,medianReduceTime,maxReduceTime";
+	
+	private final String phase;
+	private final long wallTime;
+	private long mapInputRecords = -1, mapOutputRecords = -1, reduceInputRecords = -1, reduceOutputRecords = -1;
+	private long shuffleBytes = -1, spilledRecords = -1, numChanges = -1;
+	private long minReduceTime = -1, medianReduceTime = -1, maxReduceTime = -1;
+	private int numReduceTasks = -1;
+	
+	/**
+	* Initializes a new instance of the JobReport class, for a phase executed without MapReduce.
+	* @param phase		name of the phase.
+	* @param wallTime	wall time of the phase, in milliseconds.
+	*/
+	public JobReport( String phase, long wallTime )
+	{
+		this.phase = phase;
+		this.wallTime = wallTime;
+	}
+	
+	/**
+	* Initializes a new instance of the JobReport class, reading the counters and the Reduce tasks of a completed Job.
+	* The local job runner does not report the Reduce tasks, so their durations are not available.
+	* @param job		the completed Job.
+	* @param wallTime	wall time of the Job, in milliseconds.
+	* @throws IOException
+	*/
+	public JobReport( Job job, long wallTime ) throws IOException
+	{
+		this( job.getJobName(), wallTime );
+		Counters counters = job.getCounters();
+		this.mapInputRecords = counters.findCounter( Task.Counter.MAP_INPUT_RECORDS ).getValue();
+		this.mapOutputRecords = counters.findCounter( Task.Counter.MAP_OUTPUT_RECORDS ).getValue();
+		this.reduceInputRecords = counters.findCounter( Task.Counter.REDUCE_INPUT_RECORDS ).getValue();
+		this.reduceOutputRecords = counters.findCounter( Task.Counter.REDUCE_OUTPUT_RECORDS ).getValue();
+		this.shuffleBytes = counters.findCounter( Task.Counter.REDUCE_SHUFFLE_BYTES ).getValue();
+		this.spilledRecords = counters.findCounter( Task.Counter.SPILLED_RECORDS ).getValue();
+		this.numChanges = counters.findCounter( UtilCounters.NUM_CHANGES ).getValue();
+		this.numReduceTasks = job.getNumReduceTasks();
+		
+		// Close the client, otherwise each report leaks its connection to the cluster.
+		JobClient client = new JobClient( new JobConf( job.getConfiguration() ) );
+		TaskReport[] tasks;
+		try
+		{
+			tasks = client.getReduceTaskReports( JobID.downgrade( job.getJobID() ) );
+		}
+		finally
+		{
+			client.close();
+		}
+		if ( tasks == null || tasks.length == 0 )
+			return;
+		long[] durations = new long[tasks.length];
+		for ( int i = 0; i < tasks.length; i++ )
+			durations[i] = tasks[i].getFinishTime() - tasks[i].getStartTime();
+		Arrays.sort( durations );
+		this.minReduceTime = durations[0];
+		this.medianReduceTime = durations[durations.length / 2];
+		this.maxReduceTime = durations[durations.length - 1];
+	}
+	
+	/**
+	* Return the report as a line of the CSV format, whose columns are described by CSV_HEADER.
+	* The name of the phase is quoted if it contains a comma, a quote or a line break.
+	* @return	the CSV line.
+	*/
+	public String toCsv()
+	{
+		String name = phase;
+		if ( name.indexOf( ',' ) >= 0 || name.indexOf( '"' ) >= 0 || name.indexOf( '\n' ) >= 0 || name.indexOf( '\r' ) >= 0 )
+			name = "\"" + name.replace( "\"", "\"\"" ) + "\"";
+		return name + "," + wallTime + "," + mapInputRecords + "," + mapOutputRecords + "," + reduceInputRecords + "," + reduceOutputRecords
+			 + "," + shuffleBytes + "," + spilledRecords + "," + numChanges + "," + numReduceTasks
+			 + "," + minReduceTime + "," + medianReduceTime + "," + maxReduceTime;
+	}
+	
+	/**
+	* Return the report as a JSON object, with the same fields of the CSV format:
+	* the name of the phase is an escaped string, while the other fields are numbers.
+	* @return	the JSON object.
+	*/
+	public String toJson()
+	{
+		StringBuilder json = new StringBuilder( "{ \"phase\": " );
+		appendJsonString( json, phase );
+		json.append( ", \"wallTime\": " ).append( wallTime )
+			.append( ", \"mapInputRecords\": " ).append( mapInputRecords )
+			.append( ", \"mapOutputRecords\": " ).append( mapOutputRecords )
+			.append( ", \"reduceInputRecords\": " ).append( reduceInputRecords )
+			.append( ", \"reduceOutputRecords\": " ).append( reduceOutputRecords )
+			.append( ", \"shuffleBytes\": " ).append( shuffleBytes )
+			.append( ", \"spilledRecords\": " ).append( spilledRecords )
+			.append( ", \"numChanges\": " ).append( numChanges )
+			.append( ", \"numReduceTasks\": " ).append( numReduceTasks )
+			.append( ", \"minReduceTime\": " ).append( minReduceTime )
+			.append( ", \"medianReduceTime\": " ).append( medianReduceTime )
+			.append( ", \"maxReduceTime\": " ).append( maxReduceTime );
+		return json.append( " }" ).toString();
+	}
+	
+	/**
+	* Append a string to a JSON text, quoted and with the quotes, the backslashes and the control characters escaped.
+	* @param json		the JSON text.
+	* @param value		the string.
+	*/
+	private static void appendJsonString( StringBuilder json, String value )
+	{
+		json.append( '"' );
+		for ( int i = 0; i < value.length(); i++ )
+		{
+			char c = value.charAt( i );
+			if ( c == '"' || c == '\\' )
+				json.append( '\\' ).append( c );
+			else if ( c < 0x20 )
+				json.append( String.format( Locale.ROOT, "\\u%04x", (int) c ) );
+			else
+				json.append( c );
+		}
+		json.append( '"' );
+	}
+	
+	/**
+	* Return the reports as a JSON array, one object per line.
+	* @param reports	list of reports.
+	* @return			the JSON array.
+	*/
+	public static String toJson( List<JobReport> reports )
+	{
+		StringBuilder json = new StringBuilder( "[\n" );
+		for ( int i = 0; i < reports.size(); i++ )
+			json.append( "\t" ).append( reports.get( i ).toJson() ).append( ( i < reports.size() - 1 ) ? ",\n" : "\n" );
+		return json.append( "]\n" ).toString();
+	}
+	
+	/**
+	* Return the reports in the CSV format, header included.
+	* @param reports	list of reports.
+	* @return			the CSV text.
+	*/
+	public static String toCsv( List<JobReport> reports )
+	{
+		StringBuilder csv = new StringBuilder( CSV_HEADER + "\n" );
+		for ( JobReport report : reports )
+			csv.append( report.toCsv() ).append( "\n" );
+		return csv.toString();
+	}
+	
+	/**
+	 * Return the name of the phase, i.e. the name of the Job.
+	 * @return 	name of the phase.
+	 */
+	public String getPhase()
+	{
+		return this.phase;
+	}
+	
+	/**
+	 * Return the wall time of the phase.
+	 * @return 	wall time, in milliseconds.
+	 */
+	public long getWallTime()
+	{
+		return this.wallTime;
+	}
+	
+	/**
+	 * Return the number of records read by the Mappers.
+	 * @return 	number of map input records.
+	 */
+	public long getMapInputRecords()
+	{
+		return this.mapInputRecords;
+	}
+	
+	/**
+	 * Return the number of records written by the Mappers.
+	 * @return 	number of map output records.
+	 */
+	public long getMapOutputRecords()
+	{
+		return this.mapOutputRecords;
+	}
+	
+	/**
+	 * Return the number of records read by the Reducers.
+	 * @return 	number of reduce input records.
+	 */
+	public long getReduceInputRecords()
+	{
+		return this.reduceInputRecords;
+	}
+	
+	/**
+	 * Return the number of records written by the Reducers.
+	 * @return 	number of reduce output records.
+	 */
+	public long getReduceOutputRecords()
+	{
+		return this.reduceOutputRecords;
+	}
+	
+	/**
+	 * Return the number of bytes shuffled from the Mappers to the Reducers.
+	 * @return 	number of shuffle bytes.
+	 */
+	public long getShuffleBytes()
+	{
+		return this.shuffleBytes;
+	}
+	
+	/**
+	 * Return the number of records spilled to disk by the Mappers and the Reducers.
+	 * @return 	number of spilled records.
+	 */
+	public long getSpilledRecords()
+	{
+		return this.spilledRecords;
+	}
+	
+	/**
+	 * Return the number of changes occurred during the Job.
+	 * @return 	number of changes.
+	 */
+	public long getNumChanges()
+	{
+		return this.numChanges;
+	}
+	
+	/**
+	 * Return the number of Reduce tasks of the Job.
+	 * @return 	number of Reduce tasks.
+	 */
+	public int getNumReduceTasks()
+	{
+		return this.numReduceTasks;
+	}
+	
+	/**
+	 * Return the duration of the fastest Reduce task.
+	 * @return 	duration, in milliseconds.
+	 */
+	public long getMinReduceTime()
+	{
+		return this.minReduceTime;
+	}
+	
+	/**
+	 * Return the median duration of the Reduce tasks.
+	 * @return 	duration, in milliseconds.
+	 */
+	public long getMedianReduceTime()
+	{
+		return this.medianReduceTime;
+	}
+	
+	/**
+	 * Return the duration of the slowest Reduce task.
+	 * @return 	duration, in milliseconds.
+	 */
+	public long getMaxReduceTime()
+	{
+		return this.maxReduceTime;
+	}
+}
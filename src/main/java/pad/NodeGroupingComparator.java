@@ -34,7 +34,25 @@ public class NodeGroupingComparator extends WritableComparator
 	/** Initializes a new instance of the NodeGroupingComparator class. */
 	protected NodeGroupingComparator()
 	{
-		super( NodesPairWritable.class, true );
+		super( NodesPairWritable.class );
+	}
+	
+	/**
+	* Compare two keys, in their binary form, read from the mapper output records,
+	* only looking to the first component, i.e NodeID. It does not deserialize the keys.
+	* @param b1		bytes of the first key.
+	* @param s1		offset of the first key.
+	* @param l1		length of the first key.
+	* @param b2		bytes of the second key.
+	* @param s2		offset of the second key.
+	* @param l2		length of the second key.
+	* @return 		<c>0</c> if the NodeID is the same, a negative value if key1 
+	* 				is smaller than key2, a positive value if key1 is greater than key2.
+	*/
+	public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 )
+	{
+		// The NodeID is stored at the beginning of the key, its first byte tells its length, see NodeWritable.
+		return compareBytes( b1, s1, NodeWritable.getSize( b1, s1 ), b2, s2, NodeWritable.getSize( b2, s2 ) );
 	}
 	
 	/**
@@ -52,6 +70,6 @@ public class NodeGroupingComparator extends WritableComparator
 		NodesPairWritable pair1 = (NodesPairWritable)key1;
 		NodesPairWritable pair2 = (NodesPairWritable)key2;
 		
-		return pair1.NodeID - pair2.NodeID;
+		return NodesPairWritable.compare( pair1.NodeID, pair2.NodeID );
 	}
 }
\ No newline at end of file
@@ -21,21 +21,62 @@
 
 package pad;
 
-import org.apache.hadoop.io.IntWritable;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Partitioner;
 
-/**	Thanks to this class, the keys (\see NodesPair) are partitioned only considering the first component, i.e NodeID. */
-public class NodePartitioner extends Partitioner<NodesPairWritable, IntWritable>
+/**
+ * Thanks to this class, the keys (\see NodesPair) are partitioned only considering the first component, i.e NodeID.
+ * The only exception are the hubs found by the \see HubDriver: their neighbourhood is split across all the Reducers.
+ */
+public class NodePartitioner extends Partitioner<NodesPairWritable, Writable> implements Configurable
 {
+	private Configuration conf;
+	private HubTable hubs;
+	
+	/**
+	* Set the configuration of this NodePartitioner and read the hubs broadcast by the \see HubDriver, if any.
+	* @param conf	configuration of the Job.
+	*/
+	public void setConf( Configuration conf )
+	{
+		this.conf = conf;
+		try
+		{
+			this.hubs = HubDriver.readHubs( conf );
+		}
+		catch ( IOException e )
+		{
+			throw new RuntimeException( e );
+		}
+	}
+	
+	/**
+	* Return the configuration of this NodePartitioner.
+	* @return	configuration of the Job.
+	*/
+	public Configuration getConf()
+	{
+		return this.conf;
+	}
+	
 	/**
 	* Choose the Reducer identifier to which send the record using only the NodeID information.
+	* The sign bit is cleared, so that also negative identifiers are mapped into a valid partition.
+	* The partition is consistent with \see NodeGroupingComparator, which groups the keys by NodeID.
+	* If NodeID is a hub, the NeighbourID is also considered, so each Reducer receives a part of its neighbourhood.
 	* @param pair			key of the record, \see NodesPair.
 	* @param _				value of the record.
 	* @param numPartitions	number of Reducer used.
 	* @return 				Reducer identifier to which send this record.
 	*/
-	public int getPartition( NodesPairWritable pair, IntWritable _, int numPartitions )
+	public int getPartition( NodesPairWritable pair, Writable _, int numPartitions )
 	{
-		return pair.NodeID % numPartitions;
+		if ( ( hubs != null ) && hubs.contains( pair.NodeID ) )
+			return (int) ( ( ( pair.NodeID + pair.NeighbourID ) & Long.MAX_VALUE ) % numPartitions );
+		return (int) ( ( pair.NodeID & Long.MAX_VALUE ) % numPartitions );
 	}
 }
\ No newline at end of file
@@ -0,0 +1,207 @@
+/**
+ *	@file NodePermutation.java
+ *	@brief Seeded pseudo-random bijection of the node identifiers.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * Seeded pseudo-random bijection of the node identifiers.
+ * The number of iterations of the Large-Star and Small-Star operations depends on the order of the labels:
+ * the paper proves the logarithmic bound for random labels, while the identifiers that follow the crawl order
+ * are the worst case for the path-like components. The \see InitializationDriver relabels the nodes with this
+ * bijection and the drivers that write the clusters translate them back, so the output does not change.
+ * The identifiers smaller than 2^bits are shuffled among themselves, while each greater identifier keeps its bit length,
+ * i.e. the values between 2^(b-1) and 2^b - 1 are shuffled among themselves; the shuffle is made of a few rounds
+ * of xor-shift and multiply-add modulo the size of the range. So the \see NodeWritable stays nearly as short as before
+ * and the identifiers smaller than 2^31 stay smaller than 2^31, as the \see UnionFindDriver needs.
+ * The larger the first range, the more random the labels: <em>bits</em> should be the bit length of the greatest identifier,
+ * if it is known, e.g. of the number of nodes with the dense identifiers of the \see DictionaryDriver.
+ * The negative values are reserved to the algorithm and they are not changed.
+ */
+public class NodePermutation
+{
+	/** Name of the property that stores the seed of the permutation; if it is not set, the nodes are not relabelled. */
+	public static final String SEED = "node.permutation.seed";
+	/** Name of the property that stores the bit length of the first range of the permutation. */
+	public static final String BITS = "node.permutation.bits";
+	/** Number of rounds of the permutation. */
+	private static final int ROUNDS = 3;
+	
+	private final long seed;
+	private final int bits;
+	private final long[] multipliers = new long[ROUNDS];
+	private final long[] inverses = new long[ROUNDS];
+	private final long[] increments = new long[ROUNDS];
+	
+	/**
+	* Initializes a new instance of the NodePermutation class, that keeps the bit length of every identifier.
+	* @param seed	the seed of the permutation, the same seed always gives the same permutation.
+	*/
+	public NodePermutation( long seed )
+	{
+		this( seed, 0 );
+	}
+	
+	/**
+	* Initializes a new instance of the NodePermutation class.
+	* @param seed	the seed of the permutation, the same seed always gives the same permutation.
+	* @param bits	the identifiers smaller than 2^bits are shuffled among themselves, between 0 and 62.
+	*/
+	public NodePermutation( long seed, int bits )
+	{
+		if ( bits < 0 || bits > 62 )
+			throw new IllegalArgumentException( "The bit length of the permutation has to be between 0 and 62, not " + bits );
+		this.seed = seed;
+		this.bits = bits;
+		Random random = new Random( seed );
+		for ( int r = 0; r < ROUNDS; r++ )
+		{
+			// An odd multiplier is invertible modulo any power of two.
+			this.multipliers[r] = random.nextLong() | 1;
+			this.inverses[r] = inverse( this.multipliers[r] );
+			this.increments[r] = random.nextLong();
+		}
+	}
+	
+	/**
+	* Return the permutation stored in the configuration of a Job.
+	* @param conf	configuration of the Job.
+	* @return		the permutation, or <c>null</c> if the nodes are not relabelled.
+	*/
+	public static NodePermutation get( Configuration conf )
+	{
+		String seed = conf.get( SEED );
+		return ( seed == null ) ? null : new NodePermutation( Long.parseLong( seed ), conf.getInt( BITS, 0 ) );
+	}
+	
+	/**
+	* Store a permutation in the configuration of a Job.
+	* @param conf			configuration of the Job.
+	* @param permutation	the permutation, or <c>null</c> in order to leave the configuration unchanged.
+	*/
+	public static void set( Configuration conf, NodePermutation permutation )
+	{
+		if ( permutation == null )
+			return;
+		conf.setLong( SEED, permutation.getSeed() );
+		conf.setInt( BITS, permutation.getBits() );
+	}
+	
+	/**
+	* Return the seed of the permutation.
+	* @return	the seed.
+	*/
+	public long getSeed()
+	{
+		return this.seed;
+	}
+	
+	/**
+	* Return the bit length of the first range of the permutation.
+	* @return	the identifiers smaller than 2^bits are shuffled among themselves.
+	*/
+	public int getBits()
+	{
+		return this.bits;
+	}
+	
+	/**
+	* Return the number of bits shuffled by the permutation of a node, i.e. the bit length of its range.
+	* @param node	a non-negative identifier.
+	* @return		the range of the node is made of the identifiers with the same higher bits.
+	*/
+	private int getRangeBits( long node )
+	{
+		return ( ( node >>> this.bits ) == 0 ) ? this.bits : 63 - Long.numberOfLeadingZeros( node );
+	}
+	
+	/**
+	* Return the inverse of an odd number modulo 2^64, with the Newton iteration: each step doubles the correct bits.
+	* @param a	an odd number.
+	* @return	the inverse of <em>a</em>.
+	*/
+	private static long inverse( long a )
+	{
+		// a * a = 1 modulo 8, so the first approximation has three correct bits.
+		long inverse = a;
+		for ( int i = 0; i < 5; i++ )
+			inverse *= 2 - a * inverse;
+		return inverse;
+	}
+	
+	/**
+	* Relabel a node.
+	* @param node	the original identifier.
+	* @return		the new identifier, in the same range.
+	*/
+	public long permute( long node )
+	{
+		if ( node < 0 )
+			return node;
+		
+		int bits = getRangeBits( node );
+		long mask = ( 1L << bits ) - 1, shift = ( bits + 1 ) >>> 1;
+		long x = node & mask;
+		for ( int r = 0; r < ROUNDS; r++ )
+		{
+			x ^= x >>> shift;
+			x = ( x * this.multipliers[r] + this.increments[r] ) & mask;
+		}
+		return ( node & ~mask ) | x;
+	}
+	
+	/**
+	* Translate a relabelled node back to its original identifier.
+	* @param node	the new identifier.
+	* @return		the original identifier.
+	*/
+	public long invert( long node )
+	{
+		if ( node < 0 )
+			return node;
+		
+		int bits = getRangeBits( node );
+		long mask = ( 1L << bits ) - 1, shift = ( bits + 1 ) >>> 1;
+		long x = node & mask;
+		for ( int r = ROUNDS - 1; r >= 0; r-- )
+		{
+			x = ( ( x - this.increments[r] ) * this.inverses[r] ) & mask;
+			// Since the shift is at least half of the bits, the xor-shift is its own inverse.
+			x ^= x >>> shift;
+		}
+		return ( node & ~mask ) | x;
+	}
+	
+	/**
+	* Translate the nodes of a cluster back to their original identifiers and sort them in ascending order,
+	* so that the first node is the minimum one, as without the permutation.
+	* @param cluster	the cluster of relabelled nodes.
+	*/
+	public void invert( ClusterWritable cluster )
+	{
+		for ( int i = 0; i < cluster.size(); i++ )
+			cluster.set( i, invert( cluster.get( i ) ) );
+		cluster.sort();
+	}
+}
@@ -0,0 +1,306 @@
+/**
+ *	@file NodeWritable.java
+ *	@brief Writable of a 64-bit node identifier, stored with an order-preserving variable-length encoding.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+/**
+ * Writable of a 64-bit node identifier, used as key and value by all the Jobs of the algorithm.
+ * The node identifiers are the non-negative longs; the negative values are reserved to the algorithm,
+ * e.g. minus one is the neighbour of an isolated node and the certificates of \see StarLeafMapper are below it.
+ * The identifier is written with a variable-length encoding, whose first byte tells the length:
+ * - <c>0x08</c> - <c>0xF7</c>	: the value between -8 and 231 itself, plus <c>0x10</c>, in one byte;
+ * - <c>0xF8</c> - <c>0xFF</c>	: a positive value, followed by its 1 - 8 significant bytes in big-endian order;
+ * - <c>0x00</c> - <c>0x07</c>	: a negative value, followed by its 8 - 1 significant bytes in big-endian order.
+ * In this way the small identifiers stay cheap on disk and in the shuffle, while the
+ * unsigned lexicographic order of the serialized bytes is the same as the signed order of the longs:
+ * the keys are sorted comparing directly their bytes (\see Comparator), as \see NodesPairWritable does.
+ */
+public class NodeWritable implements WritableComparable<NodeWritable>
+{
+	/** Maximum size in bytes of a serialized identifier. */
+	public static final int MAX_SIZE = 9;
+	/** Smallest and greatest values stored directly into the first byte. */
+	private static final long MIN_SMALL = -8, MAX_SMALL = 231;
+	/** Offset added to the values stored directly into the first byte. */
+	private static final int SMALL_OFFSET = 0x10;
+	/** First byte of the positive values written with one significant byte. */
+	private static final int POSITIVE = 0xF8;
+	/** First byte of the negative values written with one significant byte. */
+	private static final int NEGATIVE = 0x07;
+	
+	private long value;
+	
+	static
+	{
+		// Register the raw comparator, used by default when sorting the NodeWritable keys.
+		WritableComparator.define( NodeWritable.class, new Comparator() );
+	}
+	
+	/** Initializes a new instance of the NodeWritable class. */
+	public NodeWritable()
+	{
+	}
+	
+	/**
+	* Initializes a new instance of the NodeWritable class.
+	* @param value		node identifier.
+	*/
+	public NodeWritable( long value )
+	{
+		this.value = value;
+	}
+	
+	/**
+	* Return the node identifier.
+	* @return	the node identifier.
+	*/
+	public long get()
+	{
+		return this.value;
+	}
+	
+	/**
+	* Set the node identifier.
+	* @param value	the node identifier.
+	*/
+	public void set( long value )
+	{
+		this.value = value;
+	}
+	
+	/**
+	* Deserializes the identifier.
+	* @param in		source for raw byte representation.
+	* @throws IOException
+	*/
+	public void readFields( DataInput in ) throws IOException
+	{
+		this.value = readNode( in );
+	}
+	
+	/**
+	* Serializes the identifier.
+	* @param out	where to write the raw byte representation.
+	* @throws IOException
+	*/
+	public void write( DataOutput out ) throws IOException
+	{
+		writeNode( out, this.value );
+	}
+	
+	/**
+	* Return the number of significant bytes written after the first one.
+	* @param value	the identifier.
+	* @return		number of significant bytes, zero if the value is stored into the first byte.
+	*/
+	private static int significantBytes( long value )
+	{
+		if ( value >= MIN_SMALL && value <= MAX_SMALL )
+			return 0;
+		// A negative value is rebuilt extending its sign, so the significant bytes are the ones of its complement.
+		return ( 71 - Long.numberOfLeadingZeros( ( value < 0 ) ? ~value : value ) ) >>> 3;
+	}
+	
+	/**
+	* Write a node identifier with the variable-length encoding.
+	* @param out	where to write the raw byte representation.
+	* @param value	the identifier.
+	* @throws IOException
+	*/
+	public static void writeNode( DataOutput out, long value ) throws IOException
+	{
+		int n = significantBytes( value );
+		if ( n == 0 )
+		{
+			out.writeByte( (int) value + SMALL_OFFSET );
+			return;
+		}
+		
+		out.writeByte( ( value < 0 ) ? NEGATIVE + 1 - n : POSITIVE - 1 + n );
+		for ( int shift = 8 * ( n - 1 ); shift >= 0; shift -= 8 )
+			out.writeByte( (int) ( value >>> shift ) );
+	}
+	
+	/**
+	* Read a node identifier written by \see writeNode.
+	* @param in		source for raw byte representation.
+	* @return		the identifier.
+	* @throws IOException
+	*/
+	public static long readNode( DataInput in ) throws IOException
+	{
+		int first = in.readUnsignedByte();
+		int n = followingBytes( first );
+		if ( n == 0 )
+			return first - SMALL_OFFSET;
+		
+		long value = ( first <= NEGATIVE ) ? -1L : 0L;
+		for ( int i = 0; i < n; i++ )
+			value = ( value << 8 ) | in.readUnsignedByte();
+		return value;
+	}
+	
+	/**
+	* Read a node identifier from its raw byte representation.
+	* @param bytes		raw byte representation.
+	* @param start		offset of the identifier inside <em>bytes</em>.
+	* @return			the identifier.
+	*/
+	public static long readNode( byte[] bytes, int start )
+	{
+		int first = bytes[start] & 0xFF;
+		int n = followingBytes( first );
+		if ( n == 0 )
+			return first - SMALL_OFFSET;
+		
+		long value = ( first <= NEGATIVE ) ? -1L : 0L;
+		for ( int i = 1; i <= n; i++ )
+			value = ( value << 8 ) | ( bytes[start + i] & 0xFF );
+		return value;
+	}
+	
+	/**
+	* Return the number of significant bytes that follow the given first byte.
+	* @param first	first byte of the encoding, as unsigned value.
+	* @return		number of significant bytes.
+	*/
+	private static int followingBytes( int first )
+	{
+		if ( first <= NEGATIVE )
+			return NEGATIVE + 1 - first;
+		if ( first >= POSITIVE )
+			return first - POSITIVE + 1;
+		return 0;
+	}
+	
+	/**
+	* Return the size in bytes of the encoding of a node identifier.
+	* @param value	the identifier.
+	* @return		size in bytes.
+	*/
+	public static int getSize( long value )
+	{
+		return 1 + significantBytes( value );
+	}
+	
+	/**
+	* Return the size in bytes of an encoded node identifier, reading only its first byte.
+	* @param bytes		raw byte representation.
+	* @param start		offset of the identifier inside <em>bytes</em>.
+	* @return			size in bytes.
+	*/
+	public static int getSize( byte[] bytes, int start )
+	{
+		return 1 + followingBytes( bytes[start] & 0xFF );
+	}
+	
+	/**
+	* Compare two node identifiers without the risk of overflow.
+	* @param x		first identifier.
+	* @param y		second identifier.
+	* @return 		<c>0</c> if they are equal, <c>-1</c> if x is smaller than y, <c>1</c> otherwise.
+	*/
+	public static int compare( long x, long y )
+	{
+		return ( x < y ) ? -1 : ( ( x == y ) ? 0 : 1 );
+	}
+	
+	/**
+	* Return the contribution of a node to the checksum of a set of nodes, i.e. the sum of the contributions
+	* of its nodes: being a sum, it does not depend on the order of the nodes, and it can be aggregated by a counter.
+	* The identifier is scrambled by the finalizer of SplitMix64, so that a different set of nodes with the same size
+	* gives a different checksum, with high probability.
+	* @param node	the node identifier.
+	* @return 		the contribution of the node.
+	*/
+	public static long checksum( long node )
+	{
+		node = ( node ^ ( node >>> 30 ) ) * 0xbf58476d1ce4e5b9L;
+		node = ( node ^ ( node >>> 27 ) ) * 0x94d049bb133111ebL;
+		return node ^ ( node >>> 31 );
+	}
+	
+	/**
+	* Compare this object with other one of its kind.
+	* @param other	the other object with which to make comparisons.
+	* @return 		<c>0</c> if the two identifiers are equal, <c>-1</c> if this one is smaller, <c>1</c> otherwise.
+	*/
+	public int compareTo( NodeWritable other )
+	{
+		return compare( this.value, other.value );
+	}
+	
+	/**
+	* Calculate hash code of this object.
+	* @return 		the hash code.
+	*/
+	public int hashCode()
+	{
+		return (int) ( this.value ^ ( this.value >>> 32 ) );
+	}
+	
+	/**
+	* Check if two objects that are instance of \see NodeWritable are equals.
+	* @param other	the other object with which to make comparisons.
+	* @return 		<c>true</c> if the two objects are equals, <c>false</c> otherwise.
+	*/
+	public boolean equals( Object other )
+	{
+		return ( other instanceof NodeWritable ) && ( this.value == ((NodeWritable) other).value );
+	}
+	
+	/**
+	* Convert the object into a string.
+	* @return	the resulting string.
+	*/
+	public String toString()
+	{
+		return Long.toString( this.value );
+	}
+	
+	/**	Raw comparator that sorts the NodeWritable keys comparing directly their serialized bytes. */
+	public static class Comparator extends WritableComparator
+	{
+		/** Initializes a new instance of the Comparator class. */
+		public Comparator()
+		{
+			super( NodeWritable.class );
+		}
+		
+		/**
+		* Compare two keys in their binary form.
+		* Thanks to the encoding of \see NodeWritable, it is a plain comparison of bytes.
+		* @return 		<c>0</c> if the two keys are identical, a negative value if the first key
+		* 				is smaller than the second one, a positive value otherwise.
+		*/
+		public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 )
+		{
+			return compareBytes( b1, s1, l1, b2, s2, l2 );
+		}
+	}
+}
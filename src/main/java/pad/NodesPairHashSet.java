@@ -0,0 +1,143 @@
+/**
+ *	@file NodesPairHashSet.java
+ *	@brief Bounded hash set of pairs of nodes, used by the \see StarMapper to combine its output in memory.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.util.Arrays;
+
+/**
+ * Bounded hash set of pairs of nodes, used by the \see StarMapper to combine its output in memory.
+ * The pairs are stored into two parallel arrays of primitive longs, the slots of an open addressing table allocated
+ * only once: adding a pair does not allocate any object. The table is at least twice the capacity, so the probe sequences stay short.
+ */
+public class NodesPairHashSet
+{
+	/// The pair <-1,-1> never occurs, since -1 is used only as neighbour of the isolated nodes.
+	private static final long EMPTY = -1L;
+	private final long[] nodes, neighbours;
+	private final int capacity, mask;
+	private int size = 0;
+	
+	/**
+	* Initializes a new instance of the NodesPairHashSet class.
+	* @param capacity	maximum number of pairs stored in the set.
+	*/
+	public NodesPairHashSet( int capacity )
+	{
+		int length = Integer.highestOneBit( Math.max( capacity, 1 ) ) << 2;
+		this.nodes = new long[length];
+		this.neighbours = new long[length];
+		this.capacity = capacity;
+		this.mask = length - 1;
+		clear();
+	}
+	
+	/**
+	* Add the pair <nodeID, neighbourID> to the set.
+	* @param nodeID			identifier of the node.
+	* @param neighbourID	identifier of the neighbour.
+	* @return 				<c>false</c> if the pair was already in the set, <c>true</c> otherwise.
+	*/
+	public boolean add( long nodeID, long neighbourID )
+	{
+		// Combine the two identifiers, then apply the finalization step of MurmurHash3 in order to spread the consecutive ones
+		long h = nodeID * 0x9E3779B97F4A7C15L + neighbourID;
+		h = ( h ^ ( h >>> 33 ) ) * 0xFF51AFD7ED558CCDL;
+		h = ( h ^ ( h >>> 33 ) ) * 0xC4CEB9FE1A85EC53L;
+		int slot = (int) ( h ^ ( h >>> 33 ) ) & mask;
+		
+		while ( !isEmpty( slot ) )
+		{
+			if ( nodes[slot] == nodeID && neighbours[slot] == neighbourID )
+				return false;
+			slot = ( slot + 1 ) & mask;
+		}
+		nodes[slot] = nodeID;
+		neighbours[slot] = neighbourID;
+		size++;
+		return true;
+	}
+	
+	/**
+	* Return <c>true</c> if the set contains <em>capacity</em> pairs.
+	* @return 	<c>true</c> if the set is full.
+	*/
+	public boolean isFull()
+	{
+		return size >= capacity;
+	}
+	
+	/**
+	* Return the number of pairs stored in the set.
+	* @return 	number of pairs.
+	*/
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	* Return the number of slots of the table; the pairs are read through \see isEmpty, \see getNodeID and \see getNeighbourID.
+	* @return 	number of slots.
+	*/
+	public int slots()
+	{
+		return nodes.length;
+	}
+	
+	/**
+	* Return <c>true</c> if the slot does not contain a pair.
+	* @param slot	index of the slot.
+	* @return 		<c>true</c> if the slot is empty.
+	*/
+	public boolean isEmpty( int slot )
+	{
+		return ( nodes[slot] == EMPTY ) && ( neighbours[slot] == EMPTY );
+	}
+	
+	/**
+	* Return the identifier of the node of the pair stored in the slot.
+	* @param slot	index of the slot.
+	* @return 		identifier of the node.
+	*/
+	public long getNodeID( int slot )
+	{
+		return nodes[slot];
+	}
+	
+	/**
+	* Return the identifier of the neighbour of the pair stored in the slot.
+	* @param slot	index of the slot.
+	* @return 		identifier of the neighbour.
+	*/
+	public long getNeighbourID( int slot )
+	{
+		return neighbours[slot];
+	}
+	
+	/** Remove all the pairs from the set. */
+	public void clear()
+	{
+		Arrays.fill( nodes, EMPTY );
+		Arrays.fill( neighbours, EMPTY );
+		size = 0;
+	}
+}
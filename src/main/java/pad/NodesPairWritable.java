@@ -26,14 +26,26 @@ import java.io.DataOutput;
 import java.io.IOException;
 
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
 
-/**	Data structure used to wrap two nodes into a key; useful also to implement the secondary sort. */
+/**
+ * Data structure used to wrap two nodes into a key; useful also to implement the secondary sort.
+ * The two identifiers are serialized one after the other with the encoding of \see NodeWritable,
+ * whose unsigned lexicographic order of the serialized bytes is the same as the signed order of the longs.
+ * Since that encoding is also prefix-free, the keys can be sorted and grouped comparing directly their bytes (\see Comparator).
+ */
 public class NodesPairWritable implements WritableComparable<NodesPairWritable>
 {
 	/**	Identifier of the node */
-	public Integer NodeID = new Integer( -1 );
+	public long NodeID = -1;
 	/**	Identifier of the neighbour node. The default value ( minus one) means that NodeID has no neighbours. */
-	public Integer NeighbourID = new Integer( -1 );
+	public long NeighbourID = -1;
+	
+	static
+	{
+		// Register the raw comparator, used by default when sorting the NodesPairWritable keys.
+		WritableComparator.define( NodesPairWritable.class, new Comparator() );
+	}
 	
 	/**
 	* Deserializes the array. Read the data out in the order it is written.
@@ -42,8 +54,8 @@ public class NodesPairWritable implements WritableComparable<NodesPairWritable>
 	*/
 	public void readFields( DataInput in ) throws IOException
 	{
-		this.NodeID = in.readInt();
-		this.NeighbourID = in.readInt();
+		this.NodeID = NodeWritable.readNode( in );
+		this.NeighbourID = NodeWritable.readNode( in );
 	}
 	
 	/**
@@ -53,8 +65,28 @@ public class NodesPairWritable implements WritableComparable<NodesPairWritable>
 	*/
 	public void write( DataOutput out ) throws IOException
 	{
-		out.writeInt( this.NodeID );
-		out.writeInt( this.NeighbourID );	
+		NodeWritable.writeNode( out, this.NodeID );
+		NodeWritable.writeNode( out, this.NeighbourID );
+	}
+	
+	/**
+	* Extract the NodeID from the raw byte representation of a NodesPairWritable object.
+	* @param bytes		raw byte representation.
+	* @param start		offset of the object inside <em>bytes</em>.
+	* @return			the NodeID.
+	*/
+	public static long readNodeID( byte[] bytes, int start )
+	{
+		return NodeWritable.readNode( bytes, start );
+	}
+	
+	/**
+	* Return the size in bytes of a serialized NodesPairWritable object.
+	* @return	size in bytes.
+	*/
+	public int getSize()
+	{
+		return NodeWritable.getSize( this.NodeID ) + NodeWritable.getSize( this.NeighbourID );
 	}
 	
 	/**
@@ -77,21 +109,31 @@ public class NodesPairWritable implements WritableComparable<NodesPairWritable>
 	*/
 	public int compareTo( NodesPairWritable other )
 	{
-		int result = this.NodeID - other.NodeID;
+		int result = compare( this.NodeID, other.NodeID );
 		if( result == 0 )
-			result = this.NeighbourID - other.NeighbourID;
+			result = compare( this.NeighbourID, other.NeighbourID );
 		return result;
 	}
 	
+	/**
+	* Compare two node identifiers without the risk of overflow.
+	* @param x		first identifier.
+	* @param y		second identifier.
+	* @return 		<c>0</c> if they are equal, <c>-1</c> if x is smaller than y, <c>1</c> otherwise.
+	*/
+	public static int compare( long x, long y )
+	{
+		return NodeWritable.compare( x, y );
+	}
+	
 	/**
 	* Calculate hash code of this object.
 	* @return 		the hash code.
 	*/
     public int hashCode()
     {
-    	int hash1 = (this.NodeID != null) ? this.NodeID.hashCode() : 0;
-    	int hash2 = (this.NeighbourID != null) ? this.NeighbourID.hashCode() : 0;
-    	return (hash1 + hash2) * hash2 + hash1;
+    	long hash = ( this.NodeID + this.NeighbourID ) * this.NeighbourID + this.NodeID;
+    	return (int) ( hash ^ ( hash >>> 32 ) );
     }
     
 	/**
@@ -105,8 +147,28 @@ public class NodesPairWritable implements WritableComparable<NodesPairWritable>
     	if ( !(other instanceof NodesPairWritable) ) return false;
     	
     	NodesPairWritable pair = (NodesPairWritable) other;
-		boolean cond1 = ( this.NodeID != null && pair.NodeID != null && this.NodeID.equals(pair.NodeID) );
-		boolean cond2 = ( this.NeighbourID != null && pair.NeighbourID != null && this.NeighbourID.equals(pair.NeighbourID) ); 
-		return cond1 && cond2;
+		return ( this.NodeID == pair.NodeID ) && ( this.NeighbourID == pair.NeighbourID );
+    }
+    
+    /**	Raw comparator that sorts the NodesPairWritable keys comparing directly their serialized bytes. */
+    public static class Comparator extends WritableComparator
+    {
+    	/** Initializes a new instance of the Comparator class. */
+    	public Comparator()
+    	{
+    		super( NodesPairWritable.class );
+    	}
+    	
+    	/**
+    	* Compare two keys in their binary form, first by NodeID and then by NeighbourID.
+    	* Thanks to the encoding of \see NodesPairWritable, it is a plain comparison of bytes:
+    	* the first byte that differs belongs to the first identifier, unless it is the same in both keys.
+    	* @return 		<c>0</c> if the two keys are identical, a negative value if the first key
+    	* 				is smaller than the second one, a positive value otherwise.
+    	*/
+    	public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 )
+    	{
+    		return compareBytes( b1, s1, l1, b2, s2, l2 );
+    	}
     }
 }
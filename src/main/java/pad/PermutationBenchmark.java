@@ -0,0 +1,123 @@
+/**
+ *	@file PermutationBenchmark.java
+ *	@brief Benchmark of the number of iterations with and without the random relabelling of the nodes.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import pad.ConnectedComponents.Backend;
+
+/**
+ * Benchmark of the number of iterations of \see ConnectedComponents with and without the random relabelling
+ * of the nodes ( \see NodePermutation ). The input graph is processed once with its own identifiers
+ * and once for each seed, with the first range of <em>bits</em> bits; for each run the iterations, the iteration Jobs, the total number of changes
+ * and the elapsed time are printed, followed by the average over the seeds.
+ * The output of each run is deleted before the next one.
+ */
+public class PermutationBenchmark
+{
+	/** Default number of seeds. */
+	private static final int DEFAULT_SEEDS = 3;
+	
+	/**
+	 * Run \see ConnectedComponents once and print its statistics.
+	 * @param fs			file system of the output.
+	 * @param input			path of the input graph.
+	 * @param output		path of the output folder.
+	 * @param backend		where to execute the iterations.
+	 * @param permutation	the permutation of the nodes, or <c>null</c>.
+	 * @return 				the number of iterations and the number of changes, or <c>null</c> if the run failed.
+	 * @throws Exception
+	 */
+	private static long[] measure( FileSystem fs, Path input, Path output, Backend backend, NodePermutation permutation ) throws Exception
+	{
+		fs.delete( output, true );
+		ConnectedComponents cc = new ConnectedComponents( input, output, backend );
+		cc.setPermutation( permutation );
+		long start = System.currentTimeMillis();
+		boolean completed = cc.run();
+		long elapsed = System.currentTimeMillis() - start;
+		fs.delete( output, true );
+		fs.delete( cc.getReportPath(), false );
+		fs.delete( output.suffix( "_report.csv" ), false );
+		if ( !completed )
+			return null;
+		
+		long changes = 0;
+		for ( long numChanges : cc.getNumChanges() )
+			changes += numChanges;
+		String label = ( permutation == null ) ? "identity" : "seed " + permutation.getSeed();
+		System.out.println( String.format( "\t%-12s %10d %10d %14d %10.1f %8s", label, cc.getNumIterations(),
+										   cc.getNumChanges().size(), changes, elapsed / 1000.0, String.valueOf( cc.isTestOk() ) ) );
+		return new long[] { cc.getNumIterations(), changes };
+	}
+	
+	/**
+	 * Main of the \see PermutationBenchmark class.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		if ( args.length < 2 || args.length > 5 )
+		{
+			System.out.println( "Usage: PermutationBenchmark <input> <output> [seeds] [bits] [mapreduce|memory|hashtomin]" );
+			System.exit(1);
+		}
+		
+		Path input = new Path( args[0] );
+		Path output = new Path( args[1] );
+		int seeds = ( args.length >= 3 ) ? Integer.parseInt( args[2] ) : DEFAULT_SEEDS;
+		int bits = ( args.length >= 4 ) ? Integer.parseInt( args[3] ) : 0;
+		Backend backend = Backend.MAPREDUCE;
+		if ( args.length == 5 && args[4].toLowerCase().equals( "memory" ) )
+			backend = Backend.IN_MEMORY;
+		else if ( args.length == 5 && args[4].toLowerCase().equals( "hashtomin" ) )
+			backend = Backend.HASH_TO_MIN;
+		FileSystem fs = FileSystem.get( new Configuration() );
+		
+		System.out.println( args[0] + ", " + backend.toString() + " backend." );
+		System.out.println( String.format( "\t%-12s %10s %10s %14s %10s %8s", "Labels", "Iterations", "Jobs", "Changes", "Seconds", "TestOK" ) );
+		long[] identity = measure( fs, input, output, backend, null );
+		if ( identity == null )
+			System.exit( 1 );
+		
+		double iterations = 0, changes = 0;
+		for ( int seed = 1; seed <= seeds; seed++ )
+		{
+			long[] permuted = measure( fs, input, output, backend, new NodePermutation( seed, bits ) );
+			if ( permuted == null )
+				System.exit( 1 );
+			iterations += permuted[0];
+			changes += permuted[1];
+		}
+		if ( seeds > 0 )
+		{
+			System.out.println( String.format( "\tAverage iterations: %d with the input identifiers, %.1f with the random labels.",
+											   identity[0], iterations / seeds ) );
+			System.out.println( String.format( "\tAverage changes: %d with the input identifiers, %.1f with the random labels.",
+											   identity[1], changes / seeds ) );
+		}
+		System.exit( 0 );
+	}
+}
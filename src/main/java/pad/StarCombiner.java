@@ -23,11 +23,10 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Reducer;
 
 /** Combiner task of the \see StarDriver Job. */
-public class StarCombiner extends Reducer<NodesPairWritable, IntWritable, NodesPairWritable, IntWritable> 
+public class StarCombiner extends Reducer<NodesPairWritable, NodeWritable, NodesPairWritable, NodeWritable> 
 {	
 	/**
 	* Reduce method of the this StarCombiner class.
@@ -37,18 +36,21 @@ public class StarCombiner extends Reducer<NodesPairWritable, IntWritable, NodesP
 	* @param context		context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void reduce( NodesPairWritable pair, Iterable<IntWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
+	public void reduce( NodesPairWritable pair, Iterable<NodeWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
 	{
-		// Do not exists a node with ID equal to minus two ( minus one already used to indicate loneliness )
-		int lastNodeSeen = -2;
-		for ( IntWritable neighbour : neighbourhood )
+		// The values can be any long: minus one for loneliness and the negative certificates of the leaves,
+		// so no value can be used as initial lastNodeSeen and the first value is never a duplicate.
+		long lastNodeSeen = 0;
+		boolean first = true;
+		for ( NodeWritable neighbour : neighbourhood )
 		{
 			// Skip the duplicate nodes.
-			if ( neighbour.get() == lastNodeSeen )
+			if ( !first && neighbour.get() == lastNodeSeen )
 				continue;
+			first = false;
 			
-			// Emit the pair
-			pair.NeighbourID = neighbour.get();
+			// Emit the pair, the certificates of the leaves keep the leaf as NeighbourID
+			pair.NeighbourID = StarLeafMapper.isCertificate( neighbour.get() ) ? StarLeafMapper.getLeafID( neighbour.get() ) : neighbour.get();
 			context.write( pair, neighbour );
 			
 			// Store the last neighbourId that we have processed.
@@ -21,15 +21,21 @@
 
 package pad;
 
+import java.io.IOException;
+
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapred.JobClient;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Task;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.MultipleInputs;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.hadoop.util.Tool;
@@ -37,14 +43,34 @@ import org.apache.hadoop.util.Tool;
 /**	Driver of the Job responsible for executing the Small-Star or Large-Star operation on the input graph. */
 public class StarDriver extends Configured implements Tool
 {
-	/** The StarDriver can be of type Large-StarDriver or Small-StarDriver */
-	public enum StarDriverType { LARGE, SMALL };
+	/**
+	 * The StarDriver can be of type Large-StarDriver or Small-StarDriver.
+	 * The Fused-StarDriver executes a whole iteration in one Job: the Small-Star depends on the output
+	 * of the Large-Star, so they cannot share the same shuffle, but both the operations only need the neighbourhood
+	 * of a node. Thus the Fused-StarDriver applies them to the same input graph: it sends the edges in both
+	 * directions, like the Large-Star, and connects the node and all its neighbours to the minimum one,
+	 * i.e. the Large-Star for the greater neighbours and the Small-Star for the smaller ones.
+	 * It preserves the connectivity and its fix point is the same set of stars of the alternating algorithm.
+	 */
+	public enum StarDriverType { LARGE, SMALL, FUSED };
+	
+	/** Default number of shuffled bytes assigned to each Reducer, overridden by the <em>star.reduce.bytes</em> property. */
+	private static final long BYTES_PER_REDUCER = 256L * 1024 * 1024;
+	/** Default number of shuffled records assigned to each Reducer, overridden by the <em>star.reduce.records</em> property. */
+	private static final long RECORDS_PER_REDUCER = 16L * 1024 * 1024;
 	
 	private final String title;
 	private final StarDriverType type;
 	private final Path input, output;
+	private final int iteration;
 	private final boolean verbose;
-	private long numChanges;
+	private JobReport report;
+	private Path finished, leaves;
+	private double hubFraction = 0;
+	private long inputRecords = -1;
+	private int inMapperCapacity = 0;
+	private int numReduceTasks;
+	private long numChanges, numHubs, numOutputRecords;
 	
 	/**
 	* Initializes a new instance of the StarDriver class.
@@ -57,12 +83,65 @@ public class StarDriver extends Configured implements Tool
 	public StarDriver( StarDriverType type, Path input, Path output, int iteration, boolean verbose )
 	{
 		this.type = type;
-		this.title = type.equals( StarDriverType.SMALL ) ? "Small-Star" + iteration : "Large-Star" + iteration;
+		switch ( type )
+		{
+			case SMALL: this.title = "Small-Star" + iteration; break;
+			case FUSED: this.title = "Fused-Star" + iteration; break;
+			default: this.title = "Large-Star" + iteration; break;
+		}
 		this.input = input;
 		this.output = output;
+		this.iteration = iteration;
 		this.verbose = verbose;
 	}
 	
+	/**
+	* Enable the pruning of the finished stars, only used by the Large-Star ( \see StarReducer ).
+	* The edges of the finished stars are moved to the <em>finished</em> folder, that is shared by all the iterations,
+	* while the certificates of the leaves are written to the folder returned by \see getLeavesPath,
+	* in order to be read by the next Large-Star.
+	* @param finished	path of the folder that collects the edges of the finished stars.
+	* @param leaves		path of the certificates of the leaves written by the previous Large-Star, or <c>null</c>.
+	*/
+	public void setPruning( Path finished, Path leaves )
+	{
+		this.finished = finished;
+		this.leaves = leaves;
+	}
+	
+	/**
+	* Enable the skew-aware partitioning: before the Job, the \see HubDriver finds the nodes that appear in more than
+	* <em>hubFraction</em> of the edges, so that their neighbourhood is split across all the Reducers.
+	* By default the fraction is zero, so the skew-aware partitioning is disabled.
+	* @param hubFraction	a node is a hub if it appears in more than this fraction of the edges.
+	*/
+	public void setHubFraction( double hubFraction )
+	{
+		this.hubFraction = hubFraction;
+	}
+	
+	/**
+	* Enable the in-mapper combining: each \see StarMapper keeps up to <em>capacity</em> distinct pairs in memory
+	* and writes them when the set is full or at the end of the task, discarding the duplicates before they reach the sort buffer.
+	* By default the capacity is zero, so the in-mapper combining is disabled.
+	* @param capacity	maximum number of pairs kept in memory by each Mapper.
+	*/
+	public void setInMapperCapacity( int capacity )
+	{
+		this.inMapperCapacity = capacity;
+	}
+	
+	/**
+	* Set the number of records of the input, i.e. the number of output records of the previous Job ( \see getNumOutputRecords ).
+	* It is used, together with the size of the input, to choose the number of Reducers.
+	* By default it is unknown, so only the size of the input is used.
+	* @param inputRecords	number of records of the input.
+	*/
+	public void setInputRecords( long inputRecords )
+	{
+		this.inputRecords = inputRecords;
+	}
+	
 	/**
 	 * Execute the StarDriver Job.
 	 * @param args		array of external arguments, not used in this method
@@ -75,36 +154,135 @@ public class StarDriver extends Configured implements Tool
 		// GenericOptionsParser invocation in order to suppress the hadoop warning.
 		new GenericOptionsParser( conf, args );
 		conf.set( "type", this.type.toString() );
+		conf.setInt( "star.inmapper.capacity", this.inMapperCapacity );
+		boolean prune = ( this.finished != null ) && ( this.type == StarDriverType.LARGE );
+		conf.setBoolean( "star.prune", prune );
 		Job job = new Job( conf, this.title );
 		job.setJarByClass( StarDriver.class );
 	
 		job.setMapOutputKeyClass( NodesPairWritable.class );
-		job.setMapOutputValueClass( IntWritable.class );
-		job.setOutputKeyClass( IntWritable.class );
-		job.setOutputValueClass( IntWritable.class );
+		job.setMapOutputValueClass( NodeWritable.class );
+		job.setOutputKeyClass( NodeWritable.class );
+		job.setOutputValueClass( NodeWritable.class );
 	
 		job.setMapperClass( StarMapper.class );
 		job.setCombinerClass( StarCombiner.class );
 		job.setPartitionerClass( NodePartitioner.class );
+		job.setSortComparatorClass( NodesPairWritable.Comparator.class );
 		job.setGroupingComparatorClass( NodeGroupingComparator.class );
 		job.setReducerClass( StarReducer.class );
 	
-		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setInputFormatClass( CombineSequenceFileInputFormat.class );
 		job.setOutputFormatClass( SequenceFileOutputFormat.class );
 	
-		FileInputFormat.addInputPath( job, this.input );
+		// The certificates of the leaves of the previous Large-Star are read together with the edges
+		FileSystem fs = FileSystem.get( conf );
+		if ( prune && ( this.leaves != null ) && fs.exists( this.leaves ) )
+		{
+			MultipleInputs.addInputPath( job, this.input, CombineSequenceFileInputFormat.class, StarMapper.class );
+			MultipleInputs.addInputPath( job, this.leaves, CombineSequenceFileInputFormat.class, StarLeafMapper.class );
+		}
+		else
+			FileInputFormat.addInputPath( job, this.input );
 		FileOutputFormat.setOutputPath( job, this.output );
+		if ( prune )
+		{
+			MultipleOutputs.addNamedOutput( job, "finished", SequenceFileOutputFormat.class, NodeWritable.class, NodeWritable.class );
+			MultipleOutputs.addNamedOutput( job, "leaves", SequenceFileOutputFormat.class, NodeWritable.class, NodeWritable.class );
+		}
+		
+		this.numReduceTasks = chooseNumReduceTasks( conf );
+		job.setNumReduceTasks( this.numReduceTasks );
+		
+		// Find the hubs and broadcast their minimum neighbours to the Partitioner and the Reducers
+		Path hubsPath = this.output.suffix( "_hubs" );
+		this.numHubs = 0;
+		if ( this.hubFraction > 0 )
+		{
+			HubDriver hub = new HubDriver( this.input, hubsPath, this.hubFraction, this.verbose );
+			if ( hub.run( null ) != 0 )
+			{
+				fs.delete( hubsPath, true );
+				return 1;
+			}
+			this.numHubs = hub.getNumHubs();
+			if ( this.numHubs > 0 )
+				HubDriver.addHubs( hubsPath, job );
+		}
 
-		if ( !job.waitForCompletion( verbose ) )
+		long start = System.currentTimeMillis();
+		boolean completed = job.waitForCompletion( verbose );
+		if ( this.numHubs > 0 )
+			fs.delete( hubsPath, true );
+		if ( !completed )
 			return 1;
+		this.report = new JobReport( job, System.currentTimeMillis() - start );
+		
+		// Move the side outputs out of the output folder, so that the next Job reads only the edges
+		if ( prune )
+		{
+			moveSideOutput( fs, "finished", this.finished );
+			moveSideOutput( fs, "leaves", getLeavesPath() );
+		}
 		
 		// Set up the private variable looking to the counter value
 		this.numChanges = job.getCounters().findCounter( UtilCounters.NUM_CHANGES ).getValue();
+		this.numOutputRecords = job.getCounters().findCounter( Task.Counter.REDUCE_OUTPUT_RECORDS ).getValue();
 		return 0;
 	}
 	
 	/**
-	 * Return the number of changes occurred during the operation Small-Star or Large-Star.
+	 * Move the files of a side output from the output folder to the given folder.
+	 * They are renamed as part files, prefixed by the iteration, so that the files of different iterations do not collide.
+	 * @param fs		file system of the output.
+	 * @param name		name of the side output.
+	 * @param folder	destination folder.
+	 * @throws IOException
+	 */
+	private void moveSideOutput( FileSystem fs, String name, Path folder ) throws IOException
+	{
+		FileStatus[] files = fs.globStatus( new Path( this.output, name + "-*" ) );
+		if ( files.length > 0 )
+			fs.mkdirs( folder );
+		for ( FileStatus file : files )
+			fs.rename( file.getPath(), new Path( folder, "part-" + this.iteration + "-" + file.getPath().getName() ) );
+	}
+	
+	/**
+	 * Choose the number of Reducers from the size and the number of records of the input.
+	 * The Large-Star and the Fused-Star shuffle each edge in both directions, the Small-Star only once.
+	 * The result is bounded by the reduce slots of the cluster.
+	 * @param conf	configuration of the Job.
+	 * @return 		number of Reducers.
+	 * @throws IOException
+	 */
+	private int chooseNumReduceTasks( Configuration conf ) throws IOException
+	{
+		int factor = ( this.type == StarDriverType.SMALL ) ? 1 : 2;
+		long bytesPerReducer = conf.getLong( "star.reduce.bytes", BYTES_PER_REDUCER );
+		long recordsPerReducer = conf.getLong( "star.reduce.records", RECORDS_PER_REDUCER );
+		
+		long bytes = FileSystem.get( conf ).getContentSummary( this.input ).getLength() * factor;
+		long reducers = ( bytes + bytesPerReducer - 1 ) / bytesPerReducer;
+		if ( this.inputRecords >= 0 )
+			reducers = Math.max( reducers, ( this.inputRecords * factor + recordsPerReducer - 1 ) / recordsPerReducer );
+		
+		// Close the client, otherwise each iteration leaks its connection to the cluster.
+		JobClient client = new JobClient( new JobConf( conf ) );
+		int maxReducers;
+		try
+		{
+			maxReducers = client.getClusterStatus().getMaxReduceTasks();
+		}
+		finally
+		{
+			client.close();
+		}
+		return (int) Math.max( 1, Math.min( reducers, maxReducers ) );
+	}
+	
+	/**
+	 * Return the number of changes occurred during the operation Small-Star, Large-Star or Fused-Star.
 	 * @return 	number of changes.
 	 */
 	public long getNumChanges()
@@ -112,6 +290,52 @@ public class StarDriver extends Configured implements Tool
 		return this.numChanges;
 	}
 	
+	/**
+	 * Return the path of the certificates of the leaves written by this Large-Star, when the pruning is enabled.
+	 * The folder does not exist if no leaf has been found.
+	 * @return 	path of the certificates of the leaves.
+	 */
+	public Path getLeavesPath()
+	{
+		return this.output.suffix( "_leaves" );
+	}
+	
+	/**
+	 * Return the number of Reducers chosen for this Job.
+	 * @return 	number of Reducers.
+	 */
+	public int getNumReduceTasks()
+	{
+		return this.numReduceTasks;
+	}
+	
+	/**
+	 * Return the number of records written by this Job, i.e. the number of edges of the output graph.
+	 * @return 	number of output records.
+	 */
+	public long getNumOutputRecords()
+	{
+		return this.numOutputRecords;
+	}
+	
+	/**
+	 * Return the number of hubs whose neighbourhood has been split across the Reducers.
+	 * @return 	number of hubs.
+	 */
+	public long getNumHubs()
+	{
+		return this.numHubs;
+	}
+	
+	/**
+	 * Return the performance report of the Job.
+	 * @return 	the report of the Job.
+	 */
+	public JobReport getReport()
+	{
+		return this.report;
+	}
+	
 	/**
 	 * Main of the \see StarDriver class.
 	 * @param args	array of external arguments,
@@ -121,15 +345,19 @@ public class StarDriver extends Configured implements Tool
 	{	
 		if ( args.length != 3 )
 		{
-			System.out.println( "Usage: StarDriver <type> <input> <output>" );
+			System.out.println( "Usage: StarDriver <small|large|fused> <input> <output>" );
 			System.exit(1);
 		}
 		
-		// Check what Job we need to execute: Small-Star or Large-Star
-		StarDriverType type = args[0].toLowerCase().equals("small") ? StarDriverType.SMALL : StarDriverType.LARGE;
-		String name = ( type == StarDriverType.SMALL ) ? "Small" : "Large";
+		// Check what Job we need to execute: Small-Star, Large-Star or Fused-Star
+		StarDriverType type = StarDriverType.LARGE;
+		if ( args[0].toLowerCase().equals("small") )
+			type = StarDriverType.SMALL;
+		else if ( args[0].toLowerCase().equals("fused") )
+			type = StarDriverType.FUSED;
+		String name = type.toString().charAt( 0 ) + type.toString().substring( 1 ).toLowerCase();
 		
-		// Execute the Small-Star or Large-Star Job
+		// Execute the Small-Star, Large-Star or Fused-Star Job
 		Path input = new Path( args[1] );
 		Path output = new Path( args[2] );
 		System.out.println( "Start " + name + "-Star." );
@@ -0,0 +1,78 @@
+/**
+ *	@file StarLeafMapper.java
+ *	@brief Mapper task of the \see StarDriver Job, that reads the certificates of the leaves written by the previous Large-Star.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ * Mapper task of the \see StarDriver Job, that reads the certificates of the leaves written by the previous Large-Star.
+ * A certificate <leaf, center> states that the only neighbour of the leaf was the center ( \see StarReducer ).
+ * It is sent to the center as a neighbour with a negative value, so that it is sorted together with the leaf,
+ * but the \see StarReducer does not confuse it with an edge.
+ */
+public class StarLeafMapper extends Mapper<NodeWritable, NodeWritable, NodesPairWritable, NodeWritable> 
+{
+	private NodesPairWritable pair = new NodesPairWritable();
+	private NodeWritable certificate = new NodeWritable();
+	
+	/**
+	* Map method of the this StarLeafMapper class.
+	* Emits the pair <center, leaf> with the certificate of the leaf as value.
+	* @param leafID		identifier of the leaf.
+	* @param centerID	identifier of the center.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void map( NodeWritable leafID, NodeWritable centerID, Context context ) throws IOException, InterruptedException 
+	{
+		// Set up the pair.
+		pair.NodeID = centerID.get();
+		pair.NeighbourID = leafID.get();
+		certificate.set( ~leafID.get() );
+		
+		context.write( pair, certificate );
+	}
+	
+	/**
+	* Return <c>true</c> if the value is the certificate of a leaf, instead of a neighbour.
+	* The identifiers are non-negative and minus one is already used to indicate loneliness; a leaf is greater than
+	* its center, so it is at least one and its certificate, the bitwise complement, is between Long.MIN_VALUE and minus two.
+	* @param value	value received by the \see StarCombiner or \see StarReducer.
+	* @return		<c>true</c> if the value is a certificate.
+	*/
+	public static boolean isCertificate( long value )
+	{
+		return value < -1;
+	}
+	
+	/**
+	* Return the identifier of the leaf of a certificate.
+	* @param certificate	the certificate of the leaf.
+	* @return				identifier of the leaf.
+	*/
+	public static long getLeafID( long certificate )
+	{
+		return ~certificate;
+	}
+}
@@ -23,24 +23,37 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /** Mapper task of the \see StarDriver Job. */
-public class StarMapper extends Mapper<IntWritable, IntWritable, NodesPairWritable, IntWritable> 
+public class StarMapper extends Mapper<NodeWritable, NodeWritable, NodesPairWritable, NodeWritable> 
 {
 	private boolean smallStar;
 	private NodesPairWritable pair = new NodesPairWritable();
+	private NodeWritable neighbour = new NodeWritable();
+	private NodesPairHashSet pending;
+	private Counter flushes, bytesSaved;
 
 	/**
 	* Setup method of the this StarMapper class.
 	* Extract the <em>type</em> variable from the context configuration.
 	* Based on this value, this Mapper will behave as a Small-Star Mapper or Large-Star Mapper.
+	* The Fused-Star Mapper behaves as the Large-Star Mapper.
+	* If the <em>star.inmapper.capacity</em> variable is positive, the pairs are combined in memory
+	* ( \see NodesPairHashSet ) and written, without duplicates, when the set is full or at the end of the task.
 	* @param context	context of this Job.
 	*/
 	public void setup( Context context )
 	{
 		smallStar = context.getConfiguration().get( "type" ).equals( "SMALL" );
+		int capacity = context.getConfiguration().getInt( "star.inmapper.capacity", 0 );
+		if ( capacity > 0 )
+		{
+			pending = new NodesPairHashSet( capacity );
+			flushes = context.getCounter( UtilCounters.IN_MAPPER_FLUSHES );
+			bytesSaved = context.getCounter( UtilCounters.IN_MAPPER_BYTES_SAVED );
+		}
 	}
 	
 	/**
@@ -52,7 +65,7 @@ public class StarMapper extends Mapper<IntWritable, IntWritable, NodesPairWritab
 	* @param context	context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void map( IntWritable nodeID, IntWritable neighbourID, Context context ) throws IOException, InterruptedException 
+	public void map( NodeWritable nodeID, NodeWritable neighbourID, Context context ) throws IOException, InterruptedException 
 	{		
 		// if the node is alone, emit it like is it in order to keep that information
 		if ( neighbourID.get() == -1 )
@@ -70,38 +83,79 @@ public class StarMapper extends Mapper<IntWritable, IntWritable, NodesPairWritab
 		{
 			// if the label of neighbour is less than the label of the node
 			if ( neighbourID.get() < nodeID.get() )
-			{
-				// Set up the pair.
-				pair.NodeID = nodeID.get();
-				pair.NeighbourID =  neighbourID.get();
-				
-				context.write( pair, neighbourID );
-			}
+				emit( nodeID.get(), neighbourID.get(), context );
 			else
-			{
-				// Set up the pair.
-				pair.NodeID = neighbourID.get();
-				pair.NeighbourID =  nodeID.get();
-				
-				context.write( pair, nodeID );
-			}
+				emit( neighbourID.get(), nodeID.get(), context );
 		}
 		// If we are running Large-Star, we always emit: <NodeID; NeighbourID> and <NeighbourID; NodeID>
 		else
+		{
+			emit( nodeID.get(), neighbourID.get(), context );
+			emit( neighbourID.get(), nodeID.get(), context );
+		}
+	}
+	
+	/**
+	* Cleanup method of the this StarMapper class.
+	* Write the pairs still combined in memory.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void cleanup( Context context ) throws IOException, InterruptedException
+	{
+		if ( pending != null )
+			flush( context );
+	}
+	
+	/**
+	* Emit the pair <nodeID, neighbourID>, or add it to the pairs combined in memory.
+	* A duplicate pair is discarded, saving a record of the map output; when the set is full, it is flushed.
+	* @param nodeID			identifier of the node.
+	* @param neighbourID	identifier of the neighbour.
+	* @param context		context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	private void emit( long nodeID, long neighbourID, Context context ) throws IOException, InterruptedException
+	{
+		if ( pending == null )
 		{
 			// Set up the pair.
-			pair.NodeID = nodeID.get();
-			pair.NeighbourID =  neighbourID.get();
+			pair.NodeID = nodeID;
+			pair.NeighbourID = neighbourID;
+			neighbour.set( neighbourID );
 			
-			// Emit <NodeID; NeighbourID>
-			context.write( pair, neighbourID );
+			context.write( pair, neighbour );
+			return;
+		}
+		
+		if ( !pending.add( nodeID, neighbourID ) )
+			bytesSaved.increment( NodeWritable.getSize( nodeID ) + 2 * NodeWritable.getSize( neighbourID ) );
+		else if ( pending.isFull() )
+		{
+			flushes.increment( 1 );
+			flush( context );
+		}
+	}
+	
+	/**
+	* Write all the pairs combined in memory and empty the set.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	private void flush( Context context ) throws IOException, InterruptedException
+	{
+		for ( int slot = 0; slot < pending.slots(); slot++ )
+		{
+			if ( pending.isEmpty( slot ) )
+				continue;
 			
 			// Set up the pair.
-			pair.NodeID = neighbourID.get();
-			pair.NeighbourID =  nodeID.get();
+			pair.NodeID = pending.getNodeID( slot );
+			pair.NeighbourID = pending.getNeighbourID( slot );
+			neighbour.set( pair.NeighbourID );
 			
-			// Emit <NeighbourID; NodeID>
-			context.write( pair, nodeID );
+			context.write( pair, neighbour );
 		}
+		pending.clear();
 	}
 }
@@ -22,44 +22,73 @@
 package pad;
 
 import java.io.IOException;
+import java.util.Arrays;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
 
 import pad.UtilCounters;
 
-/** Reducer task of the \see StarDriver Job. */
-public class StarReducer extends Reducer<NodesPairWritable, IntWritable, IntWritable, IntWritable> 
+/**
+ * Reducer task of the \see StarDriver Job.
+ * If the pruning is enabled, the Large-Star Reducer also detects the stars that cannot change anymore.
+ * A node whose only neighbour is smaller is a leaf: the Reducer writes the certificate <leaf, center>
+ * to the "leaves" side output, and the \see StarLeafMapper sends it back to the center in the next Large-Star.
+ * There, if the center is smaller than all its neighbours and each of them has a certificate,
+ * the star is a whole connected component, so its edges are written to the "finished" side output
+ * and the next iterations do not process them anymore.
+ */
+public class StarReducer extends Reducer<NodesPairWritable, NodeWritable, NodeWritable, NodeWritable> 
 {
-	private static final IntWritable MINUS_ONE = new IntWritable( -1 );
-	private IntWritable nodeID = new IntWritable();
-	private IntWritable minNodeID = new IntWritable();
-	private boolean smallStar;
+	private static final NodeWritable MINUS_ONE = new NodeWritable( -1 );
+	/** Maximum number of neighbours of a star that can be moved to the "finished" side output. */
+	private static final int MAX_FINISHED_STAR = 1 << 20;
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable minNodeID = new NodeWritable();
+	private boolean smallStar, prune;
+	private HubTable hubs;
+	private MultipleOutputs<NodeWritable, NodeWritable> outputs;
+	private long[] leaves = new long[16], certificates = new long[16];
+	private int numLeaves, numCertificates;
 	
 	/**
 	* Setup method of the this StarReducer class.
 	* Extract the <em>type</em> variable from the context configuration.
 	* Based on this value, this Reducer will behave as a Small-Star Reducer or Large-Star Reducer.
+	* The Fused-Star Reducer behaves as the Small-Star Reducer, but it receives the whole neighbourhood
+	* of the node from the Mapper, so it connects to the minimum node also the greater neighbours.
+	* It also reads the hubs, and their minimum neighbours, broadcast by the \see HubDriver,
+	* and the <em>star.prune</em> variable, that enables the pruning of the finished stars.
 	* @param context	context of this Job.
+	* @throws IOException
 	*/
-	public void setup( Context context )
+	public void setup( Context context ) throws IOException
 	{
-		smallStar = context.getConfiguration().get( "type" ).equals( "SMALL" );
+		String type = context.getConfiguration().get( "type" );
+		smallStar = type.equals( "SMALL" ) || type.equals( "FUSED" );
+		hubs = HubDriver.readHubs( context.getConfiguration() );
+		prune = context.getConfiguration().getBoolean( "star.prune", false );
+		if ( prune )
+			outputs = new MultipleOutputs<NodeWritable, NodeWritable>( context );
 	}
 	
 	/**
 	* Reduce method of the this StarReducer class.
 	* Since the neighbours are sorted, thanks to the secondary sort, we know that the
 	* minimum node is either the NodeID or the first neighbour. We call <em>MinNodeID</em> this node.
+	* If the node is a hub, this Reducer receives only a part of its neighbourhood ( \see NodePartitioner ),
+	* so the minimum neighbour is the one broadcast by the \see HubDriver, and the pair <NodeID, MinNodeID>
+	* of the Small-Star is emitted only by the Reducer that receives the minimum neighbour.
 	* For each neighbour, we produce the pairs <NeighbourID, MinNodeID> and <MinNodeID, NeighbourID> :
 	* 	-	always, if it is a Small-Star Reducer;
 	*   -	only when NeighbourID is greater than NodeID, if it is a Large-Star Reducer.
+	* The certificates of the leaves ( \see StarLeafMapper ) are not neighbours: they are only used to detect the finished stars.
 	* @param pair			pair used to implement the secondary sort, \see NodesPair.
 	* @param neighbourhood	list of neighbours.
 	* @param context		context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void reduce( NodesPairWritable pair, Iterable<IntWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
+	public void reduce( NodesPairWritable pair, Iterable<NodeWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
 	{
 		long numProducedPairs = 0;
 		
@@ -73,22 +102,43 @@ public class StarReducer extends Reducer<NodesPairWritable, IntWritable, IntWrit
 		
 		// Thanks to the secondary sorting, we know the the first element contains
 		// the neighbour node with the minimum label. We just need to compare it with the node id.
-		minNodeID.set( Math.min( pair.NodeID, pair.NeighbourID ) );
+		// The neighbourhood of a hub is split across the Reducers, so we use its broadcast minimum neighbour.
+		int hub = hubs.indexOf( pair.NodeID );
+		boolean isHub = ( hub >= 0 );
+		long minNeighbourID = isHub ? hubs.getMinNeighbour( hub ) : pair.NeighbourID;
+		boolean hasMinNeighbour = ( minNeighbourID == pair.NeighbourID );
+		minNodeID.set( Math.min( pair.NodeID, minNeighbourID ) );
 		
 		// If we are running Small-Star, we need to connect this node to the minimum neighbours
-		if ( smallStar && ( pair.NodeID != minNodeID.get() ) )
+		if ( smallStar && hasMinNeighbour && ( pair.NodeID != minNodeID.get() ) )
 		{
 			nodeID.set( pair.NodeID );
 			context.write( nodeID, minNodeID );		
 		}
 		
-		// Do not exists a node with ID equal to minus two ( minus one already used to indicate loneliness )
-		int lastNodeSeen = -2;
-		for ( IntWritable neighbour : neighbourhood )
+		// The star of this node can be finished only if it is smaller than all its neighbours.
+		// The neighbourhood of a hub is split, so it is never pruned.
+		boolean finished = prune && !isHub && ( pair.NodeID == minNodeID.get() );
+		numLeaves = 0;
+		numCertificates = 0;
+		
+		// Do not exists a node with ID equal to minus one, it is only used to indicate loneliness
+		long lastNodeSeen = -1;
+		int numNeighbours = 0;
+		for ( NodeWritable neighbour : neighbourhood )
 		{
+			// Collect the certificates of the leaves.
+			if ( StarLeafMapper.isCertificate( neighbour.get() ) )
+			{
+				if ( finished )
+					certificates = append( certificates, numCertificates++, StarLeafMapper.getLeafID( neighbour.get() ) );
+				continue;
+			}
+			
 			// Skip the duplicate nodes.
 			if ( neighbour.get() == lastNodeSeen )
 				continue;
+			numNeighbours++;
 			
 			// If we are running Small-Star, we always emit the neighbours except when it is the minNodeID
 			// If we are running Large-Star, we emit only when the neighbourID is greater than nodeID
@@ -96,7 +146,18 @@ public class StarReducer extends Reducer<NodesPairWritable, IntWritable, IntWrit
 			
 			if ( cond )
 			{
-				context.write( neighbour, minNodeID );
+				// Keep the neighbours of a star that can be finished, until we know if it is.
+				if ( finished && numLeaves < MAX_FINISHED_STAR )
+					leaves = append( leaves, numLeaves++, neighbour.get() );
+				else
+				{
+					if ( finished )
+					{
+						writeLeaves( context, false );
+						finished = false;
+					}
+					context.write( neighbour, minNodeID );
+				}
 				numProducedPairs++;
 			}
 			
@@ -104,9 +165,86 @@ public class StarReducer extends Reducer<NodesPairWritable, IntWritable, IntWrit
 			lastNodeSeen = neighbour.get();
 		}
 		
+		// Write the neighbours kept in memory, to the "finished" side output if all of them are certified leaves.
+		if ( finished )
+			writeLeaves( context, isCertified() );
+		
+		// If the node has only a smaller neighbour, it is a leaf: certify it to its center.
+		if ( prune && !smallStar && !isHub && ( numNeighbours == 1 ) && ( lastNodeSeen < pair.NodeID ) )
+		{
+			nodeID.set( pair.NodeID );
+			outputs.write( "leaves", nodeID, minNodeID );
+		}
+		
 		// If the NodeID has not the minimum label means that the produced pairs will be different,
 		// so we increment the number of changes by the number of produced pairs
 		if ( pair.NodeID != minNodeID.get() )
 			context.getCounter( UtilCounters.NUM_CHANGES ).increment( numProducedPairs );
 	}
+	
+	/**
+	* Cleanup method of the this StarReducer class.
+	* Close the side outputs.
+	* @param context	context of this Job.
+	* @throws IOException, InterruptedException
+	*/
+	public void cleanup( Context context ) throws IOException, InterruptedException
+	{
+		if ( outputs != null )
+			outputs.close();
+	}
+	
+	/**
+	* Return <c>true</c> if all the neighbours kept in memory have a certificate.
+	* Both the arrays are sorted, thanks to the secondary sort.
+	* @return	<c>true</c> if the star is finished.
+	*/
+	private boolean isCertified()
+	{
+		int j = 0;
+		for ( int i = 0; i < numLeaves; i++ )
+		{
+			while ( j < numCertificates && certificates[j] < leaves[i] )
+				j++;
+			if ( j == numCertificates || certificates[j] != leaves[i] )
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	* Write the pairs <NeighbourID, MinNodeID> of the neighbours kept in memory.
+	* @param context	context of this Job.
+	* @param finished	if <c>true</c> the pairs are written to the "finished" side output, otherwise to the output of the Job.
+	* @throws IOException, InterruptedException
+	*/
+	private void writeLeaves( Context context, boolean finished ) throws IOException, InterruptedException
+	{
+		for ( int i = 0; i < numLeaves; i++ )
+		{
+			nodeID.set( leaves[i] );
+			if ( finished )
+				outputs.write( "finished", nodeID, minNodeID );
+			else
+				context.write( nodeID, minNodeID );
+		}
+		if ( finished )
+			context.getCounter( UtilCounters.NUM_FINISHED ).increment( numLeaves );
+		numLeaves = 0;
+	}
+	
+	/**
+	* Store the value in the given position of the array, doubling its length if it is full.
+	* @param array		the array.
+	* @param index		position of the value.
+	* @param value		value to store.
+	* @return			the array, or its copy if it was full.
+	*/
+	private static long[] append( long[] array, int index, long value )
+	{
+		if ( index == array.length )
+			array = Arrays.copyOf( array, 2 * array.length );
+		array[index] = value;
+		return array;
+	}
 }
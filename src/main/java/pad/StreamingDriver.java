@@ -0,0 +1,640 @@
+/**
+ *	@file StreamingDriver.java
+ *	@brief Long-running driver that maintains the clusters of a stream of edges with a concurrent union-find structure.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+/**
+ * Long-running driver that maintains the clusters of a stream of edges with a concurrent union-find structure.
+ * The records are lines in the adjacency list or cliques list format, the same parsed by \see InitializationMapperAdjacency
+ * and \see InitializationMapperClique: a line that contains a <TAB> is an adjacency, otherwise a clique.
+ * They are read from a local file, followed as it grows like <em>tail -f</em>, or from the connections
+ * accepted by a local socket, one thread for each connection.
+ * The edges are unioned with the same lock-free operations of \see UnionFindDriver; the parent array grows
+ * when a greater identifier arrives, which is the only operation, together with the copy of the snapshots, that stops the readers.
+ * The lines are parsed from their bytes by a \see TextParser; a malformed line is counted and skipped.
+ * Every <em>interval</em> milliseconds a snapshot of the clusters is written in the output folder,
+ * with the same format produced by \see TerminationDriver: it is first written in a hidden temporary folder,
+ * which is then renamed into the new version <em>output/snapshot-N</em>. The rename to a new name is atomic,
+ * so the readers of the newest version ( \see getLatestSnapshot ) never see a partial snapshot, nor a missing one;
+ * the previous version is kept for the readers still reading it, while the older ones are deleted.
+ */
+public class StreamingDriver extends Configured implements Tool
+{
+	/** Initial size of the parent array. */
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	/** Time waited when the followed file has no new data, in milliseconds. */
+	private static final long POLL_INTERVAL = 200;
+	/** Size of the buffers used to read the lines. */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/** Prefix of the names of the snapshot folders, followed by their version. */
+	public static final String SNAPSHOT_PREFIX = "snapshot-";
+	
+	private final File file;
+	private final int port;
+	private final Path output;
+	private final long interval;
+	private final boolean verbose;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final AtomicLong numEdges = new AtomicLong( 0 ), numMalformedLines = new AtomicLong( 0 );
+	private volatile AtomicIntegerArray parent;
+	private volatile boolean running;
+	private long numSnapshots, numNodes, numClusters, version;
+	
+	/**
+	* Initializes a new instance of the StreamingDriver class, that follows a local file.
+	* @param file		local file to follow.
+	* @param output		path of the output folder.
+	* @param interval	time between two snapshots, in milliseconds.
+	* @param verbose	if <c>true</c> shows on screen the messages of the execution.
+	*/
+	public StreamingDriver( File file, Path output, long interval, boolean verbose )
+	{
+		this( file, -1, output, interval, verbose );
+	}
+	
+	/**
+	* Initializes a new instance of the StreamingDriver class, that listens on a local socket.
+	* @param port		port of the local socket.
+	* @param output		path of the output folder.
+	* @param interval	time between two snapshots, in milliseconds.
+	* @param verbose	if <c>true</c> shows on screen the messages of the execution.
+	*/
+	public StreamingDriver( int port, Path output, long interval, boolean verbose )
+	{
+		this( null, port, output, interval, verbose );
+	}
+	
+	private StreamingDriver( File file, int port, Path output, long interval, boolean verbose )
+	{
+		this.file = file;
+		this.port = port;
+		this.output = output;
+		this.interval = interval;
+		this.verbose = verbose;
+	}
+	
+	/**
+	 * Execute the streaming engine, until \see stop is called or the thread is interrupted.
+	 * A last snapshot is written before returning.
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if the execution failed; <c>0</c> if everything is ok.
+	 * @throws Exception
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		final Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		final FileSystem fs = FileSystem.get( conf );
+		
+		this.parent = newParent( INITIAL_CAPACITY );
+		this.numSnapshots = this.numNodes = this.numClusters = 0;
+		this.numEdges.set( 0 );
+		this.numMalformedLines.set( 0 );
+		// Continue the versions of the snapshots left by a previous execution.
+		Path latest = getLatestSnapshot( fs, this.output );
+		this.version = ( latest == null ) ? 0 : getVersion( latest );
+		this.running = true;
+		
+		ScheduledExecutorService snapshots = Executors.newSingleThreadScheduledExecutor();
+		snapshots.scheduleWithFixedDelay( new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					snapshot( fs, conf );
+				}
+				catch ( IOException e )
+				{
+					System.err.println( "Snapshot failed: " + e.getMessage() );
+				}
+			}
+		}, this.interval, this.interval, TimeUnit.MILLISECONDS );
+		
+		try
+		{
+			if ( this.file != null )
+				follow();
+			else
+				listen();
+		}
+		catch ( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			this.running = false;
+			snapshots.shutdown();
+			snapshots.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+		}
+		
+		snapshot( fs, conf );
+		return 0;
+	}
+	
+	/**
+	 * Stop the streaming engine: the readers stop at the next record, or at the next poll of the source.
+	 */
+	public void stop()
+	{
+		this.running = false;
+	}
+	
+	/**
+	 * Follow the local file, processing the lines as they are appended.
+	 * An incomplete last line is kept until its end arrives.
+	 * @throws IOException, InterruptedException
+	 */
+	private void follow() throws IOException, InterruptedException
+	{
+		InputStream in = new FileInputStream( this.file );
+		try
+		{
+			consume( in, true );
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Accept the connections of the local socket, processing the lines received by each one in its own thread.
+	 * When the engine stops, it waits for the threads of the open connections, so the last snapshot
+	 * contains all the lines they have read.
+	 * @throws IOException, InterruptedException
+	 */
+	private void listen() throws IOException, InterruptedException
+	{
+		ServerSocket server = new ServerSocket( this.port, 50, InetAddress.getLoopbackAddress() );
+		// Wake up periodically in order to check if the engine has been stopped.
+		server.setSoTimeout( (int) POLL_INTERVAL );
+		ExecutorService connections = Executors.newCachedThreadPool();
+		try
+		{
+			while ( this.running && !Thread.currentThread().isInterrupted() )
+			{
+				final Socket socket;
+				try
+				{
+					socket = server.accept();
+				}
+				catch ( java.net.SocketTimeoutException e )
+				{
+					continue;
+				}
+				
+				connections.submit( new Runnable()
+				{
+					public void run()
+					{
+						try
+						{
+							try
+							{
+								// Wake up periodically in order to check if the engine has been stopped.
+								socket.setSoTimeout( (int) POLL_INTERVAL );
+								consume( socket.getInputStream(), false );
+							}
+							finally
+							{
+								socket.close();
+							}
+						}
+						catch ( IOException e )
+						{
+							System.err.println( "Connection closed: " + e.getMessage() );
+						}
+						catch ( InterruptedException e )
+						{
+							Thread.currentThread().interrupt();
+						}
+					}
+				} );
+			}
+		}
+		finally
+		{
+			server.close();
+			connections.shutdown();
+			connections.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+		}
+	}
+	
+	/**
+	 * Split the bytes of a stream into lines and process them. The lines are parsed directly from the read buffer,
+	 * or from a growable buffer when they span two reads, by a \see TextParser of the calling thread,
+	 * so no String nor any other object is created for each line.
+	 * @param in		the stream.
+	 * @param follow	if <c>true</c>, the end of the stream is polled for new data, as <em>tail -f</em> does;
+	 * 					otherwise the reading, and the last line, end with the stream.
+	 * @throws IOException, InterruptedException
+	 */
+	private void consume( InputStream in, boolean follow ) throws IOException, InterruptedException
+	{
+		TextParser parser = new TextParser();
+		byte[] buffer = new byte[BUFFER_SIZE], line = new byte[BUFFER_SIZE];
+		int length = 0;
+		while ( this.running )
+		{
+			int read;
+			try
+			{
+				read = in.read( buffer );
+			}
+			catch ( SocketTimeoutException e )
+			{
+				// No data from the socket: check if the engine has been stopped.
+				continue;
+			}
+			if ( read < 0 )
+			{
+				if ( !follow )
+				{
+					if ( length > 0 )
+						process( parser, line, 0, length );
+					return;
+				}
+				Thread.sleep( POLL_INTERVAL );
+				continue;
+			}
+			
+			int start = 0;
+			for ( int i = 0; i < read; i++ )
+			{
+				if ( buffer[i] != '\n' )
+					continue;
+				
+				if ( length == 0 )
+					process( parser, buffer, start, i - start );
+				else
+				{
+					// The line began in a previous read.
+					line = append( line, length, buffer, start, i - start );
+					process( parser, line, 0, length + i - start );
+					length = 0;
+				}
+				start = i + 1;
+			}
+			
+			// Keep the incomplete line until its end arrives.
+			line = append( line, length, buffer, start, read - start );
+			length += read - start;
+		}
+	}
+	
+	/**
+	 * Append a range of bytes to a growable buffer.
+	 * @param line		the buffer.
+	 * @param length	number of bytes already in the buffer.
+	 * @param bytes		bytes to append.
+	 * @param start		offset of the bytes to append.
+	 * @param count		number of bytes to append.
+	 * @return			the buffer, or a greater copy of it.
+	 */
+	private static byte[] append( byte[] line, int length, byte[] bytes, int start, int count )
+	{
+		if ( length + count > line.length )
+			line = Arrays.copyOf( line, Math.max( 2 * line.length, length + count ) );
+		System.arraycopy( bytes, start, line, length, count );
+		return line;
+	}
+	
+	/**
+	 * Parse a line in the adjacency list or cliques list format and union its nodes.
+	 * The adjacency <NodeID><TAB><NeighborID1>,<NeighborID2>,... unions the node with each neighbour,
+	 * the clique <NodeID1><SPACE><NodeID2>... unions each node with the following one,
+	 * which connects the same nodes of all the pairs.
+	 * A malformed line, or one with an identifier out of the range of the parent array, is counted and skipped,
+	 * so that it does not stop the engine.
+	 * @param parser	parser of the calling thread.
+	 * @param bytes		bytes of the line, encoded in UTF-8.
+	 * @param start		offset of the line inside <em>bytes</em>.
+	 * @param length	number of bytes of the line.
+	 */
+	void process( TextParser parser, byte[] bytes, int start, int length )
+	{
+		int numNodes, maxNodeID = -1;
+		try
+		{
+			numNodes = parser.parse( bytes, start, length );
+			for ( int i = 0; i < numNodes; i++ )
+			{
+				long nodeID = parser.get( i );
+				if ( nodeID < 0 || nodeID >= UnionFindDriver.MAX_NODES )
+					throw new NumberFormatException( "Node identifier " + nodeID + " is out of the range of the parent array" );
+				maxNodeID = Math.max( maxNodeID, (int) nodeID );
+			}
+		}
+		catch ( NumberFormatException e )
+		{
+			this.numMalformedLines.incrementAndGet();
+			if ( this.verbose )
+				System.err.println( "Skipped line: " + e.getMessage() );
+			return;
+		}
+		if ( numNodes == 0 )
+			return;
+		
+		boolean adjacency = false;
+		for ( int i = start; i < start + length && !adjacency; i++ )
+			adjacency = ( bytes[i] == '\t' );
+		ensureCapacity( maxNodeID );
+		
+		// The read lock is shared by all the readers: it excludes only the growth of the array and the copy of the snapshots.
+		this.lock.readLock().lock();
+		try
+		{
+			AtomicIntegerArray parent = this.parent;
+			int first = (int) parser.get( 0 );
+			UnionFindDriver.add( parent, first );
+			for ( int i = 1; i < numNodes; i++ )
+			{
+				int node = (int) parser.get( i );
+				UnionFindDriver.add( parent, node );
+				UnionFindDriver.union( parent, adjacency ? first : (int) parser.get( i - 1 ), node );
+			}
+		}
+		finally
+		{
+			this.lock.readLock().unlock();
+		}
+		this.numEdges.addAndGet( numNodes - 1 );
+	}
+	
+	/**
+	 * Grow the parent array, doubling its size, until it contains the given identifier.
+	 * @param nodeID	node identifier.
+	 */
+	private void ensureCapacity( int nodeID )
+	{
+		if ( nodeID < this.parent.length() )
+			return;
+		
+		this.lock.writeLock().lock();
+		try
+		{
+			AtomicIntegerArray parent = this.parent;
+			if ( nodeID < parent.length() )
+				return;
+			
+			this.parent = copyOf( parent, Math.max( 2 * parent.length(), nodeID + 1 ) );
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Create a parent array that contains no node.
+	 * @param size	size of the array.
+	 * @return		the new parent array.
+	 */
+	private static AtomicIntegerArray newParent( int size )
+	{
+		AtomicIntegerArray parent = new AtomicIntegerArray( size );
+		for ( int i = 0; i < size; i++ )
+			parent.set( i, UnionFindDriver.ABSENT );
+		return parent;
+	}
+	
+	/**
+	 * Copy a parent array into a new one, whose additional positions contain no node.
+	 * The caller has to hold the write lock, so that the copy is consistent; it is then published by releasing the lock.
+	 * @param parent	parent array to copy.
+	 * @param size		size of the new array.
+	 * @return			the copy.
+	 */
+	private static AtomicIntegerArray copyOf( AtomicIntegerArray parent, int size )
+	{
+		AtomicIntegerArray copy = new AtomicIntegerArray( size );
+		for ( int i = 0; i < size; i++ )
+			copy.lazySet( i, ( i < parent.length() ) ? parent.get( i ) : UnionFindDriver.ABSENT );
+		return copy;
+	}
+	
+	/**
+	 * Write a snapshot of the clusters into a temporary folder, which is then renamed into the next version.
+	 * The readers are stopped only while the parent array is copied, so the snapshot is consistent,
+	 * and the copy is written on the file system without holding the lock.
+	 * Only the new version and the previous one are kept.
+	 * @param fs		file system where to write.
+	 * @param conf		configuration used to create the file.
+	 * @throws IOException
+	 */
+	private void snapshot( FileSystem fs, Configuration conf ) throws IOException
+	{
+		// The name starts with an underscore, so the temporary folder is ignored by the input formats.
+		Path tmp = new Path( this.output, "_" + SNAPSHOT_PREFIX + "tmp" );
+		fs.delete( tmp, true );
+		AtomicIntegerArray copy;
+		this.lock.writeLock().lock();
+		try
+		{
+			copy = copyOf( this.parent, this.parent.length() );
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+		long[] counts = UnionFindDriver.writeClusters( conf, copy, tmp.suffix( "/part-r-00000" ), null );
+		
+		// Publish the snapshot renaming it to a new name, then delete the versions older than the previous one.
+		this.version++;
+		if ( !fs.rename( tmp, getSnapshotPath( this.output, this.version ) ) )
+			throw new IOException( "Cannot publish the snapshot " + getSnapshotPath( this.output, this.version ) );
+		for ( FileStatus fileStatus : fs.listStatus( this.output ) )
+			if ( getVersion( fileStatus.getPath() ) >= 0 && getVersion( fileStatus.getPath() ) < this.version - 1 )
+				fs.delete( fileStatus.getPath(), true );
+		
+		synchronized ( this )
+		{
+			this.numSnapshots++;
+			this.numNodes = counts[0];
+			this.numClusters = counts[1];
+		}
+		if ( this.verbose )
+			System.out.println( "Snapshot " + this.numSnapshots + ": " + this.numEdges.get() + " edges, "
+								+ counts[0] + " nodes, " + counts[1] + " clusters." );
+	}
+	
+	/**
+	 * Return the path of a version of the snapshots.
+	 * @param output	path of the output folder.
+	 * @param version	version of the snapshot.
+	 * @return 			path of the snapshot folder.
+	 */
+	public static Path getSnapshotPath( Path output, long version )
+	{
+		return new Path( output, SNAPSHOT_PREFIX + version );
+	}
+	
+	/**
+	 * Return the version of a snapshot folder.
+	 * @param snapshot	path of the snapshot folder.
+	 * @return 			the version of the snapshot, or minus one if the folder is not a snapshot.
+	 */
+	private static long getVersion( Path snapshot )
+	{
+		String name = snapshot.getName();
+		if ( !name.startsWith( SNAPSHOT_PREFIX ) || !name.substring( SNAPSHOT_PREFIX.length() ).matches( "\\d{1,18}" ) )
+			return -1;
+		return Long.parseLong( name.substring( SNAPSHOT_PREFIX.length() ) );
+	}
+	
+	/**
+	 * Return the newest snapshot written in an output folder, i.e. the folder that the readers have to read.
+	 * @param fs		file system of the output folder.
+	 * @param output	path of the output folder.
+	 * @return 			path of the newest snapshot folder, or <c>null</c> if no snapshot has been written yet.
+	 * @throws IOException
+	 */
+	public static Path getLatestSnapshot( FileSystem fs, Path output ) throws IOException
+	{
+		if ( !fs.exists( output ) )
+			return null;
+		Path latest = null;
+		for ( FileStatus fileStatus : fs.listStatus( output ) )
+		{
+			Path path = fileStatus.getPath();
+			if ( getVersion( path ) >= 0 && ( latest == null || getVersion( path ) > getVersion( latest ) ) )
+				latest = path;
+		}
+		return latest;
+	}
+	
+	/**
+	 * Return the number of edges processed.
+	 * @return 	number of edges.
+	 */
+	public long getNumEdges()
+	{
+		return this.numEdges.get();
+	}
+	
+	/**
+	 * Return the number of lines skipped because malformed, or with an identifier out of the range of the parent array.
+	 * @return 	number of lines skipped.
+	 */
+	public long getNumMalformedLines()
+	{
+		return this.numMalformedLines.get();
+	}
+	
+	/**
+	 * Return the number of snapshots written.
+	 * @return 	number of snapshots.
+	 */
+	public synchronized long getNumSnapshots()
+	{
+		return this.numSnapshots;
+	}
+	
+	/**
+	 * Return the number of nodes of the last snapshot.
+	 * @return 	number of nodes.
+	 */
+	public synchronized long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Return the number of clusters of the last snapshot.
+	 * @return 	number of clusters.
+	 */
+	public synchronized long getNumClusters()
+	{
+		return this.numClusters;
+	}
+	
+	/**
+	 * Main of the \see StreamingDriver class.
+	 * The source is a local socket if the first argument is a port number, a local file otherwise.
+	 * The engine stops, writing the last snapshot, when the process is terminated.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception
+	{
+		if ( args.length != 3 )
+		{
+			System.out.println( "Usage: StreamingDriver <file|port> <output> <interval_ms>" );
+			System.exit(1);
+		}
+		
+		Path output = new Path( args[1] );
+		long interval = Long.parseLong( args[2] );
+		final StreamingDriver streaming = args[0].matches( "\\d+" ) ? new StreamingDriver( Integer.parseInt( args[0] ), output, interval, true )
+																	: new StreamingDriver( new File( args[0] ), output, interval, true );
+		final Thread main = Thread.currentThread();
+		Runtime.getRuntime().addShutdownHook( new Thread()
+		{
+			public void run()
+			{
+				streaming.stop();
+				try
+				{
+					main.join();
+				}
+				catch ( InterruptedException e ) {}
+			}
+		} );
+		
+		System.out.println( "Start StreamingDriver." );
+		streaming.run( null );
+		System.out.println( "End StreamingDriver." );
+		
+		System.out.println( "Number of edges: " + streaming.getNumEdges() );
+		System.out.println( "Number of malformed lines: " + streaming.getNumMalformedLines() );
+		System.out.println( "Number of nodes: " + streaming.getNumNodes() );
+		System.out.println( "Number of Clusters: " + streaming.getNumClusters() );
+		System.out.println( "Last snapshot: " + getLatestSnapshot( FileSystem.get( new Configuration() ), output ) );
+	}
+}
@@ -25,11 +25,9 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
-import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.util.GenericOptionsParser;
@@ -43,7 +41,10 @@ public class TerminationDriver extends Configured implements Tool
 {	
 	private final Path input, output;
 	private final boolean verbose;
-	private long numNodes, numClusters;
+	private JobReport report;
+	private NodePermutation permutation = null;
+	private Path finished;
+	private long numNodes, numClusters, checksum;
 	
 	/**
 	* Initializes a new instance of the TerminationDriver class.
@@ -58,6 +59,27 @@ public class TerminationDriver extends Configured implements Tool
 		this.verbose = verbose;
 	}
 		
+	/**
+	* Set the folder that collects the edges of the finished stars, pruned by the Large-Star ( \see StarDriver.setPruning ).
+	* They are read together with the input, since they are stars as well.
+	* @param finished	path of the folder that collects the edges of the finished stars.
+	*/
+	public void setFinished( Path finished )
+	{
+		this.finished = finished;
+	}
+	
+	/**
+	* Set the permutation of the node identifiers applied by the \see InitializationDriver:
+	* the \see TerminationReducer translates the clusters back to the original identifiers.
+	* By default it is <c>null</c>, i.e. the nodes are not relabelled.
+	* @param permutation	the permutation, or <c>null</c>.
+	*/
+	public void setPermutation( NodePermutation permutation )
+	{
+		this.permutation = permutation;
+	}
+	
 	/**
 	 * Execute the TerminationDriver Job.
 	 * @param args		array of external arguments, not used in this method
@@ -69,30 +91,37 @@ public class TerminationDriver extends Configured implements Tool
 		Configuration conf = new Configuration();
 		// GenericOptionsParser invocation in order to suppress the hadoop warning.
 		new GenericOptionsParser( conf, args );
+		NodePermutation.set( conf, this.permutation );
 		Job job = new Job( conf, "TerminationDriver" );
 		job.setJarByClass( TerminationDriver.class );
 		
 		job.setMapOutputKeyClass( NodesPairWritable.class );
-		job.setMapOutputValueClass( IntWritable.class );
+		job.setMapOutputValueClass( NodeWritable.class );
 		job.setOutputKeyClass( ClusterWritable.class );
 		job.setOutputValueClass( NullWritable.class );
 		
 		job.setMapperClass( TerminationMapper.class );
 		job.setPartitionerClass( NodePartitioner.class );
+		job.setSortComparatorClass( NodesPairWritable.Comparator.class );
 		job.setGroupingComparatorClass( NodeGroupingComparator.class );
 		job.setReducerClass( TerminationReducer.class );
 	
-		job.setInputFormatClass( SequenceFileInputFormat.class );
+		job.setInputFormatClass( CombineSequenceFileInputFormat.class );
 		job.setOutputFormatClass( SequenceFileOutputFormat.class );
 	
 		FileInputFormat.addInputPath( job, this.input );
+		if ( ( this.finished != null ) && FileSystem.get( conf ).exists( this.finished ) )
+			FileInputFormat.addInputPath( job, this.finished );
 		FileOutputFormat.setOutputPath( job, this.output );
 		
+		long start = System.currentTimeMillis();
 		if ( !job.waitForCompletion( this.verbose ) )
 			return 1;
+		this.report = new JobReport( job, System.currentTimeMillis() - start );
 		
 		// Set up the private variables looking to the counters value
 		this.numNodes = job.getCounters().findCounter( UtilCounters.NUM_NODES ).getValue();
+		this.checksum = job.getCounters().findCounter( UtilCounters.NODES_CHECKSUM ).getValue();
 		this.numClusters = job.getCounters().findCounter( UtilCounters.NUM_CLUSTERS ).getValue();
 		return 0;
 	}
@@ -106,6 +135,16 @@ public class TerminationDriver extends Configured implements Tool
 		return this.numNodes;
 	}
 	
+	/**
+	 * Return the checksum of the nodes found ( \see NodeWritable.checksum ), computed before translating them back
+	 * to their original identifiers, so that it can be compared with the checksum of \see InitializationDriver.
+	 * @return 	checksum of the nodes.
+	 */
+	public long getChecksum()
+	{
+		return this.checksum;
+	}
+	
 	/**
 	 * Return the number of clusters found.
 	 * @return 	number of clusters.
@@ -115,6 +154,15 @@ public class TerminationDriver extends Configured implements Tool
 		return this.numClusters;
 	}
 	
+	/**
+	 * Return the performance report of the Job.
+	 * @return 	the report of the Job.
+	 */
+	public JobReport getReport()
+	{
+		return this.report;
+	}
+	
 	/**
 	 * Main of the \see TerminationDriver class.
 	 * @param args	array of external arguments,
@@ -23,11 +23,10 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /**	Mapper task of the \see TerminationDriver Job. */
-public class TerminationMapper extends Mapper<IntWritable, IntWritable, NodesPairWritable, IntWritable> 
+public class TerminationMapper extends Mapper<NodeWritable, NodeWritable, NodesPairWritable, NodeWritable> 
 {
 	private NodesPairWritable pair = new NodesPairWritable();
 
@@ -39,7 +38,7 @@ public class TerminationMapper extends Mapper<IntWritable, IntWritable, NodesPai
 	* @param context		context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void map( IntWritable nodeID, IntWritable neighbourID, Context context ) throws IOException, InterruptedException 
+	public void map( NodeWritable nodeID, NodeWritable neighbourID, Context context ) throws IOException, InterruptedException 
 	{
 		// if the label of node is less than the label of the neighbour
 		if ( nodeID.get() < neighbourID.get() || neighbourID.get() == -1 )
@@ -23,28 +23,39 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Reducer;
 
 import pad.UtilCounters;
 
 /**	Reducer task of the \see TerminationDriver Job. */
-public class TerminationReducer extends Reducer<NodesPairWritable, IntWritable, ClusterWritable, NullWritable> 
+public class TerminationReducer extends Reducer<NodesPairWritable, NodeWritable, ClusterWritable, NullWritable> 
 {
 	private static final NullWritable NULL = NullWritable.get();
 	private ClusterWritable cluster = new ClusterWritable();
+	private NodePermutation permutation;
+	
+	/**
+	 * Setup method of the this TerminationReducer class.
+	 * Read the permutation of the node identifiers applied by the \see InitializationDriver, if any.
+	 * @param context	context of this Job.
+	 */
+	protected void setup( Context context )
+	{
+		this.permutation = NodePermutation.get( context.getConfiguration() );
+	}
 	
 	/**
 	* Reduce method of the this TerminationReducer class.
 	* For each NodeID, we add that node and all its neighbours to the ClusterWritable object; than we emit it.
-	* Than we increment the NUM_CLUSTERS of \see pad.TerminationDriver.UtilCounters by one.
+	* Than we increment the NUM_CLUSTERS of \see pad.TerminationDriver.UtilCounters by one,
+	* and the NUM_NODES and NODES_CHECKSUM by the number and the checksum of the nodes, before translating them back.
 	* @param pair			pair used to implement the secondary sort, \see NodesPair.
 	* @param neighbourhood	list of neighbours.
 	* @param context		context of this Job.
 	* @throws IOException, InterruptedException
 	*/
-	public void reduce( NodesPairWritable pair, Iterable<IntWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
+	public void reduce( NodesPairWritable pair, Iterable<NodeWritable> neighbourhood, Context context ) throws IOException, InterruptedException 
 	{
 		// Clear the cluster. We have a distinct cluster for each key.
 		cluster.clear();
@@ -56,12 +67,12 @@ public class TerminationReducer extends Reducer<NodesPairWritable, IntWritable,
 		// If the node is not alone
 		if ( pair.NeighbourID != -1 )
 		{
-			// Do not exists a node with ID equal to minus two ( minus one already used to indicate loneliness )
-			int lastNodeSeen = -2;
+			// Do not exists a node with ID equal to minus one, it is only used to indicate loneliness
+			long lastNodeSeen = -1;
 			
 			// Add to the cluster all the neighbours of the node,
 			// we know that the neighbours are sort in ascending order thanks to the secondary order.
-			for ( IntWritable neighbour : neighbourhood )
+			for ( NodeWritable neighbour : neighbourhood )
 			{
 				// Skip the duplicate nodes.
 				if ( neighbour.get() == lastNodeSeen )
@@ -75,10 +86,14 @@ public class TerminationReducer extends Reducer<NodesPairWritable, IntWritable,
 			}
 		}
 		
-		// Increment the number of nodes by the number of nodes of this cluster.
+		// Increment the number of nodes by the number of nodes of this cluster, and their checksum.
 		context.getCounter( UtilCounters.NUM_NODES ).increment( cluster.size() );
+		context.getCounter( UtilCounters.NODES_CHECKSUM ).increment( cluster.checksum() );
 		// Increment the number of clusters by one.
 		context.getCounter( UtilCounters.NUM_CLUSTERS ).increment( 1 );
+		// Translate the nodes back to their original identifiers.
+		if ( this.permutation != null )
+			this.permutation.invert( cluster );
 		// Emit the cluster.
 		context.write( cluster, NULL );
 	}
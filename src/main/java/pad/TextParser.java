@@ -0,0 +1,158 @@
+/**
+ *	@file TextParser.java
+ *	@brief Parser that extracts the node identifiers of a line directly from the bytes of a Text object.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Parser that extracts the node identifiers of a line directly from the bytes of a Text object.
+ * It is used by the Mappers that read the adjacency list, the cliques list, the pairs and the clusters
+ * in text format: the <TAB>, <SPACE> and comma characters separate the identifiers, so all these formats
+ * are read in the same way, and the first identifier of an adjacency line is the node itself.
+ * The identifiers are stored in a growable array of primitive longs, reused between the lines,
+ * so parsing a line does not create any String nor any other object, whatever its length.
+ * The node identifiers are non-negative, since the negative values are reserved to the algorithm ( \see NodeWritable ):
+ * a negative identifier makes the line malformed, apart from minus one, the neighbour of an isolated node,
+ * when the parser reads the pairs format ( \see TextParser(boolean) ).
+ */
+public class TextParser
+{
+	private static final Charset UTF8 = Charset.forName( "UTF-8" );
+	
+	/** Greatest value that can be multiplied by ten without overflow. */
+	private static final long MULTIPLY_MAX = Long.MAX_VALUE / 10;
+	
+	private final boolean acceptMinusOne;
+	private long[] nodes = new long[16];
+	private int size = 0;
+	
+	/** Initializes a new instance of the TextParser class, that accepts only non-negative identifiers. */
+	public TextParser()
+	{
+		this( false );
+	}
+	
+	/**
+	* Initializes a new instance of the TextParser class.
+	* @param acceptMinusOne		if <c>true</c>, minus one is also accepted, as in the pairs format written by \see TranslatorDriver.
+	*/
+	public TextParser( boolean acceptMinusOne )
+	{
+		this.acceptMinusOne = acceptMinusOne;
+	}
+	
+	/**
+	* Parse the line contained in the Text object.
+	* @param line	text of the line read.
+	* @return		the number of identifiers found.
+	* @throws NumberFormatException if the line contains a malformed identifier.
+	*/
+	public int parse( Text line )
+	{
+		return parse( line.getBytes(), 0, line.getLength() );
+	}
+	
+	/**
+	* Parse the line contained in a range of a byte array, encoded in UTF-8.
+	* @param bytes		bytes of the line.
+	* @param start		offset of the line inside <em>bytes</em>.
+	* @param length		number of bytes of the line.
+	* @return			the number of identifiers found.
+	* @throws NumberFormatException if the line contains a malformed identifier.
+	*/
+	public int parse( byte[] bytes, int start, int length )
+	{
+		this.size = 0;
+		int end = start + length, i = start;
+		while ( i < end )
+		{
+			byte b = bytes[i];
+			if ( b == '\t' || b == ' ' || b == ',' || b == '\r' )
+			{
+				i++;
+				continue;
+			}
+			
+			// A negative identifier would be taken for a certificate of a leaf ( \see StarLeafMapper ).
+			boolean negative = ( b == '-' );
+			if ( negative && !this.acceptMinusOne )
+				throw malformed( bytes, start, end );
+			if ( negative )
+				i++;
+			
+			int first = i;
+			long value = 0;
+			while ( i < end && bytes[i] >= '0' && bytes[i] <= '9' )
+			{
+				int digit = bytes[i++] - '0';
+				if ( value > MULTIPLY_MAX || value * 10 > Long.MAX_VALUE - digit )
+					throw malformed( bytes, start, end );
+				value = value * 10 + digit;
+			}
+			if ( i == first || ( i < end && bytes[i] != '\t' && bytes[i] != ' ' && bytes[i] != ',' && bytes[i] != '\r' ) )
+				throw malformed( bytes, start, end );
+			if ( negative && value != 1 )
+				throw malformed( bytes, start, end );
+			
+			if ( this.size == this.nodes.length )
+				this.nodes = Arrays.copyOf( this.nodes, 2 * this.nodes.length );
+			this.nodes[this.size++] = negative ? -1 : value;
+		}
+		return this.size;
+	}
+	
+	/**
+	* Create the exception thrown for a malformed line, showing at most its first 100 bytes.
+	* @param bytes		bytes of the line.
+	* @param start		offset of the line inside <em>bytes</em>.
+	* @param end		end of the line inside <em>bytes</em>.
+	* @return			the exception.
+	*/
+	private static NumberFormatException malformed( byte[] bytes, int start, int end )
+	{
+		return new NumberFormatException( "Malformed line: \"" + new String( bytes, start, Math.min( end - start, 100 ), UTF8 ) + "\"" );
+	}
+	
+	/**
+	* Return the number of identifiers found in the last line parsed.
+	* @return	number of identifiers.
+	*/
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	* Return the i-th identifier of the last line parsed.
+	* @param i		position of the identifier.
+	* @return		the node identifier.
+	*/
+	public long get( int i )
+	{
+		if ( i >= this.size )
+			throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + this.size );
+		return this.nodes[i];
+	}
+}
@@ -0,0 +1,177 @@
+/**
+ *	@file TextParserBenchmark.java
+ *	@brief Benchmark of the \see TextParser against the String based parsing of the input lines.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Benchmark of the \see TextParser against the String based parsing of the input lines,
+ * i.e. <em>value.toString()</em>, <em>String.split</em> and <em>Long.parseLong</em>, as it was done by the Mappers.
+ * The lines of an adjacency list, or cliques list, file are loaded in memory as Text objects, the same that
+ * the Mappers receive, plus a synthetic hub line with one million neighbours; then both parsers read them
+ * several times and the throughput of the map phase parsing is printed in MB/s and lines/s.
+ */
+public class TextParserBenchmark
+{
+	/** Number of neighbours of the synthetic hub line. */
+	private static final int HUB_NEIGHBOURS = 1000000;
+	/** Number of rounds measured, after the same number of warm-up rounds. */
+	private static final int ROUNDS = 10;
+	
+	/**
+	 * Parse the lines with String.split and Long.parseLong, in the adjacency or cliques format.
+	 * @param lines		lines to parse.
+	 * @return 			the sum of the identifiers, so that the work cannot be removed by the JIT compiler.
+	 */
+	private static long parseStrings( List<Text> lines )
+	{
+		long sum = 0;
+		for ( Text value : lines )
+		{
+			String line = value.toString();
+			if ( line.indexOf( '\t' ) >= 0 )
+			{
+				String userID_neighbourhood[] = line.split( "\t" );
+				sum += Long.parseLong( userID_neighbourhood[0] );
+				if ( userID_neighbourhood.length > 1 )
+					for ( String neighbour : userID_neighbourhood[1].split( "," ) )
+						sum += Long.parseLong( neighbour );
+			}
+			else
+				for ( String node : line.split( " " ) )
+					sum += Long.parseLong( node );
+		}
+		return sum;
+	}
+	
+	/**
+	 * Parse the lines with the \see TextParser.
+	 * @param lines		lines to parse.
+	 * @param parser	parser reused for all the lines.
+	 * @return 			the sum of the identifiers, so that the work cannot be removed by the JIT compiler.
+	 */
+	private static long parseBytes( List<Text> lines, TextParser parser )
+	{
+		long sum = 0;
+		for ( Text value : lines )
+		{
+			int numNodes = parser.parse( value );
+			for ( int i = 0; i < numNodes; i++ )
+				sum += parser.get( i );
+		}
+		return sum;
+	}
+	
+	/**
+	 * Measure both parsers on the given lines and print their throughput.
+	 * @param name		name of the lines.
+	 * @param lines		lines to parse.
+	 */
+	private static void measure( String name, List<Text> lines )
+	{
+		long bytes = 0;
+		for ( Text line : lines )
+			bytes += line.getLength();
+		
+		TextParser parser = new TextParser();
+		long expected = parseStrings( lines );
+		if ( parseBytes( lines, parser ) != expected )
+			throw new IllegalStateException( "The parsers disagree on " + name );
+		
+		for ( int round = 0; round < ROUNDS; round++ )
+		{
+			parseStrings( lines );
+			parseBytes( lines, parser );
+		}
+		
+		long start = System.nanoTime();
+		for ( int round = 0; round < ROUNDS; round++ )
+			parseStrings( lines );
+		long stringTime = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		for ( int round = 0; round < ROUNDS; round++ )
+			parseBytes( lines, parser );
+		long bytesTime = System.nanoTime() - start;
+		
+		System.out.println( name + ": " + lines.size() + " lines, " + bytes + " bytes." );
+		print( "String.split", ROUNDS * bytes, ROUNDS * lines.size(), stringTime );
+		print( "TextParser", ROUNDS * bytes, ROUNDS * lines.size(), bytesTime );
+		System.out.println( String.format( "\tSpeed-up: %.2fx", (double) stringTime / bytesTime ) );
+	}
+	
+	/**
+	 * Print the throughput of a parser.
+	 * @param parser	name of the parser.
+	 * @param bytes		number of bytes parsed.
+	 * @param lines		number of lines parsed.
+	 * @param nanos		elapsed time, in nanoseconds.
+	 */
+	private static void print( String parser, long bytes, long lines, long nanos )
+	{
+		double seconds = nanos / 1e9;
+		System.out.println( String.format( "\t%-12s %10.1f MB/s %14.0f lines/s", parser, bytes / seconds / ( 1 << 20 ), lines / seconds ) );
+	}
+	
+	/**
+	 * Main of the \see TextParserBenchmark class.
+	 * @param args	array of external arguments,
+	 * @throws IOException
+	 */
+	public static void main( String[] args ) throws IOException
+	{
+		if ( args.length != 1 )
+		{
+			System.out.println( "Usage: TextParserBenchmark <local input file>" );
+			System.exit(1);
+		}
+		
+		List<Text> lines = new ArrayList<Text>();
+		BufferedReader br = new BufferedReader( new InputStreamReader( new FileInputStream( args[0] ), "UTF-8" ) );
+		try
+		{
+			String line;
+			while ( ( line = br.readLine() ) != null )
+				if ( !line.isEmpty() )
+					lines.add( new Text( line ) );
+		}
+		finally
+		{
+			br.close();
+		}
+		measure( args[0], lines );
+		
+		StringBuilder hub = new StringBuilder( "0\t1" );
+		for ( int i = 2; i <= HUB_NEIGHBOURS; i++ )
+			hub.append( ',' ).append( i );
+		List<Text> hubLines = new ArrayList<Text>();
+		hubLines.add( new Text( hub.toString() ) );
+		measure( "Hub line", hubLines );
+	}
+}
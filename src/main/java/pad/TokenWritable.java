@@ -0,0 +1,222 @@
+/**
+ *	@file TokenWritable.java
+ *	@brief Composite key of the \see DictionaryDriver, made of an external node identifier and a tag.
+ *  @author Federico Conte (draxent)
+ *
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ *
+ *	Licensed under the Apache License, Version 2.0 (the "License");
+ *	you may not use this file except in compliance with the License.
+ *	You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *	Unless required by applicable law or agreed to in writing, software
+ *	distributed under the License is distributed on an "AS IS" BASIS,
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *	See the License for the specific language governing permissions and
+ *	limitations under the License.
+ */
+
+package pad;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+/**
+ * Composite key of the \see DictionaryDriver, made of an external node identifier, i.e. a token of the input,
+ * and a tag that tells if the record is the entry of the token in the dictionary or a reference to it.
+ * The keys are sorted by token and then by tag, so the dictionary entry of a token comes before its references,
+ * while they are partitioned ( \see TokenPartitioner ) and grouped ( \see TokenGroupingComparator ) only by token:
+ * it is the same secondary sort implemented by \see NodesPairWritable for the node identifiers.
+ */
+public class TokenWritable implements WritableComparable<TokenWritable>
+{
+	/** Tag of the dictionary entry of the token. */
+	public static final byte ENTRY = 0;
+	/** Tag of a reference to the token. */
+	public static final byte REFERENCE = 1;
+	
+	/** The external node identifier. */
+	public Text Token = new Text();
+	/** The tag of the record, ENTRY or REFERENCE. */
+	public byte Tag = ENTRY;
+	
+	static
+	{
+		// Register the raw comparator, used by default when sorting the TokenWritable keys.
+		WritableComparator.define( TokenWritable.class, new Comparator() );
+	}
+	
+	/**
+	* Set the token and the tag of this key.
+	* @param token	the external node identifier.
+	* @param tag	ENTRY or REFERENCE.
+	*/
+	public void set( Text token, byte tag )
+	{
+		this.Token.set( token );
+		this.Tag = tag;
+	}
+	
+	/**
+	* Deserializes the key.
+	* @param in		source for raw byte representation.
+	* @throws IOException
+	*/
+	public void readFields( DataInput in ) throws IOException
+	{
+		this.Token.readFields( in );
+		this.Tag = in.readByte();
+	}
+	
+	/**
+	* Serializes the key: the token, in the Text format, followed by the tag.
+	* @param out	where to write the raw byte representation.
+	* @throws IOException
+	*/
+	public void write( DataOutput out ) throws IOException
+	{
+		this.Token.write( out );
+		out.writeByte( this.Tag );
+	}
+	
+	/**
+	* Compare this object with other one of its kind, first by token and then by tag.
+	* @param other	the other object with which to make comparisons.
+	* @return 		<c>0</c> if the two keys are equal, a negative value if this one is smaller, a positive value otherwise.
+	*/
+	public int compareTo( TokenWritable other )
+	{
+		int cmp = this.Token.compareTo( other.Token );
+		return ( cmp != 0 ) ? cmp : ( this.Tag - other.Tag );
+	}
+	
+	/**
+	* Calculate hash code of this object.
+	* @return 		the hash code.
+	*/
+	public int hashCode()
+	{
+		return 31 * this.Token.hashCode() + this.Tag;
+	}
+	
+	/**
+	* Check if two objects that are instance of \see TokenWritable are equals.
+	* @param other	the other object with which to make comparisons.
+	* @return 		<c>true</c> if the two objects are equals, <c>false</c> otherwise.
+	*/
+	public boolean equals( Object other )
+	{
+		if ( !(other instanceof TokenWritable) ) return false;
+		TokenWritable key = (TokenWritable) other;
+		return ( this.Tag == key.Tag ) && this.Token.equals( key.Token );
+	}
+	
+	/**
+	* Convert the object into a string.
+	* @return	the resulting string.
+	*/
+	public String toString()
+	{
+		return this.Token.toString() + ( ( this.Tag == ENTRY ) ? "" : "*" );
+	}
+	
+	/**
+	* Compare the tokens of two keys in their binary form, as the Text comparator does.
+	* @return 		<c>0</c> if the tokens are identical, a negative value if the first one
+	* 				is smaller than the second one, a positive value otherwise.
+	*/
+	private static int compareTokens( byte[] b1, int s1, byte[] b2, int s2 )
+	{
+		try
+		{
+			// The token is written as a Text: its length, as a variable-length integer, followed by its bytes.
+			int n1 = WritableUtils.decodeVIntSize( b1[s1] ), n2 = WritableUtils.decodeVIntSize( b2[s2] );
+			return WritableComparator.compareBytes( b1, s1 + n1, WritableComparator.readVInt( b1, s1 ), b2, s2 + n2, WritableComparator.readVInt( b2, s2 ) );
+		}
+		catch ( IOException e )
+		{
+			throw new IllegalArgumentException( e );
+		}
+	}
+	
+	/**	Raw comparator that sorts the TokenWritable keys first by token and then by tag, without deserializing them. */
+	public static class Comparator extends WritableComparator
+	{
+		/** Initializes a new instance of the Comparator class. */
+		public Comparator()
+		{
+			super( TokenWritable.class );
+		}
+		
+		/**
+		* Compare two keys in their binary form, first by token and then by tag.
+		* @return 		<c>0</c> if the two keys are identical, a negative value if the first key
+		* 				is smaller than the second one, a positive value otherwise.
+		*/
+		public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 )
+		{
+			int cmp = compareTokens( b1, s1, b2, s2 );
+			// The tag is the last byte of the key.
+			return ( cmp != 0 ) ? cmp : ( b1[s1 + l1 - 1] - b2[s2 + l2 - 1] );
+		}
+	}
+	
+	/**	Grouping comparator that bundles together the records with the same token, whatever their tag is. */
+	public static class TokenGroupingComparator extends WritableComparator
+	{
+		/** Initializes a new instance of the TokenGroupingComparator class. */
+		public TokenGroupingComparator()
+		{
+			super( TokenWritable.class );
+		}
+		
+		/**
+		* Compare two keys in their binary form, only looking to the token.
+		* @return 		<c>0</c> if the token is the same, a negative value if the first key
+		* 				is smaller than the second one, a positive value otherwise.
+		*/
+		public int compare( byte[] b1, int s1, int l1, byte[] b2, int s2, int l2 )
+		{
+			return compareTokens( b1, s1, b2, s2 );
+		}
+		
+		/**
+		* Compare two keys, only looking to the token.
+		* @param key1	first key.
+		* @param key2	second key.
+		* @return 		<c>0</c> if the token is the same, a negative value if key1
+		* 				is smaller than key2, a positive value otherwise.
+		*/
+		@SuppressWarnings("rawtypes")
+		public int compare( WritableComparable key1, WritableComparable key2 )
+		{
+			return ((TokenWritable) key1).Token.compareTo( ((TokenWritable) key2).Token );
+		}
+	}
+	
+	/**	Partitioner that chooses the Reducer only looking to the token, consistently with \see TokenGroupingComparator. */
+	public static class TokenPartitioner<V> extends Partitioner<TokenWritable, V>
+	{
+		/**
+		* Choose the Reducer identifier to which send the record using only the token.
+		* @param key			key of the record.
+		* @param _				value of the record.
+		* @param numPartitions	number of Reducer used.
+		* @return 				Reducer identifier to which send this record.
+		*/
+		public int getPartition( TokenWritable key, V _, int numPartitions )
+		{
+			return ( key.Token.hashCode() & Integer.MAX_VALUE ) % numPartitions;
+		}
+	}
+}
@@ -25,7 +25,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
@@ -97,8 +96,8 @@ public class TranslatorDriver extends Configured implements Tool
 				break;
 			case Text2Pair:
 				job.setMapperClass( TranslatorMapperT2P.class );
-				job.setOutputKeyClass( IntWritable.class );
-				job.setOutputValueClass( IntWritable.class );
+				job.setOutputKeyClass( NodeWritable.class );
+				job.setOutputValueClass( NodeWritable.class );
 				job.setInputFormatClass( TextInputFormat.class );
 				job.setOutputFormatClass( SequenceFileOutputFormat.class );		
 				break;
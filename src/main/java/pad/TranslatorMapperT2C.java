@@ -33,6 +33,7 @@ public class TranslatorMapperT2C extends Mapper<LongWritable, Text, ClusterWrita
 {
 	private static final NullWritable NULL = NullWritable.get();
 	private ClusterWritable cluster = new ClusterWritable();
+	private TextParser parser = new TextParser();
 	
 	/**
 	* Map method of the this TranslatorMapperT2C class.
@@ -47,15 +48,12 @@ public class TranslatorMapperT2C extends Mapper<LongWritable, Text, ClusterWrita
 		// Clear the cluster
 		cluster.clear();
 		
-		// Read line.
-		String line = value.toString();
-		
-		// Split the line on the space character.
-		String nodes[] = line.split( " " );
+		// Parse the line, without converting it into a String.
+		int numNodes = parser.parse( value );
 		
 		// Extract the cluster elements
-		for ( int i = 0; i < nodes.length; i++ )
-			cluster.add( Integer.parseInt( nodes[i] ) );
+		for ( int i = 0; i < numNodes; i++ )
+			cluster.add( parser.get( i ) );
 		
 		// Emit the cluster
 		context.write( cluster, NULL );
@@ -23,16 +23,17 @@ package pad;
 
 import java.io.IOException;
 
-import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 
 /** Mapper of \see TranslatorDriver. */
-public class TranslatorMapperT2P extends Mapper<LongWritable, Text, IntWritable, IntWritable> 
+public class TranslatorMapperT2P extends Mapper<LongWritable, Text, NodeWritable, NodeWritable> 
 {
-	private IntWritable nodeID = new IntWritable();
-	private IntWritable neighbourID = new IntWritable();
+	private NodeWritable nodeID = new NodeWritable();
+	private NodeWritable neighbourID = new NodeWritable();
+	/// The neighbour of an isolated node is minus one.
+	private TextParser parser = new TextParser( true );
 	
 	/**
 	* Map method of the this TranslatorMapperT2P class.
@@ -44,15 +45,13 @@ public class TranslatorMapperT2P extends Mapper<LongWritable, Text, IntWritable,
 	*/
 	public void map( LongWritable _, Text value, Context context ) throws IOException, InterruptedException
 	{
-		// Read line.
-		String line = value.toString();
-		
-		// Split the line on the tab character.
-		String userID_neighbourID[] = line.split( "\t" );
+		// Parse the line, without converting it into a String.
+		if ( parser.parse( value ) < 2 || parser.get( 0 ) < 0 )
+			throw new NumberFormatException( "Malformed pair: \"" + value + "\"" );
 		
 		// Extract the nodeID and neighbourID.
-		nodeID.set( Integer.parseInt( userID_neighbourID[0] ) );
-		neighbourID.set( Integer.parseInt( userID_neighbourID[1] ) );
+		nodeID.set( parser.get( 0 ) );
+		neighbourID.set( parser.get( 1 ) );
 		
 		// Emit the pair
 		context.write( nodeID, neighbourID );
@@ -0,0 +1,68 @@
+/**
+ *	@file TwoPhaseStrategy.java
+ *	@brief The Two-Phase Algorithm: repeat Large-Star until it converges, then one Small-Star,
+ *		   until convergence.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import pad.StarDriver.StarDriverType;
+
+/**
+ * The Two-Phase Algorithm: repeat Large-Star until it converges, then one Small-Star, until convergence.
+ * Each iteration is made of one or more Large-Star operations, the last of which does not produce changes,
+ * followed by a Small-Star. The graph has converged when also the Small-Star does not produce changes.
+ * It usually needs fewer Small-Star operations than the \see AlternatingStrategy.
+ */
+public class TwoPhaseStrategy implements ConvergenceStrategy
+{
+	private StarDriverType last;
+	
+	/** Prepare the strategy for a new execution, starting from the first operation. */
+	public void reset()
+	{
+		this.last = null;
+	}
+	
+	/**
+	* Return the next operation to execute: the Large-Star is repeated until it does not produce changes.
+	* @param changes	number of changes produced by the previous operation.
+	* @return 			the type of the next \see StarDriver Job, or <c>null</c> if the graph has converged.
+	*/
+	public StarDriverType nextOperation( long changes )
+	{
+		if ( this.last == StarDriverType.LARGE && changes == 0 )
+			this.last = StarDriverType.SMALL;
+		else if ( this.last == StarDriverType.SMALL && changes == 0 )
+			this.last = null;
+		else
+			this.last = StarDriverType.LARGE;
+		
+		return this.last;
+	}
+	
+	/**
+	* Return <c>true</c> if the operation last returned by \see nextOperation is the Small-Star.
+	* @return 			<c>true</c> if the operation ends an iteration, <c>false</c> otherwise.
+	*/
+	public boolean endsIteration()
+	{
+		return this.last == StarDriverType.SMALL;
+	}
+}
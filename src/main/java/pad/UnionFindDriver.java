@@ -0,0 +1,397 @@
+/**
+ *	@file UnionFindDriver.java
+ *	@brief Driver responsible for computing the clusters with a concurrent union-find structure,
+ *		   reading directly the edges list produced by the InitializationDriver.
+ *  @author Federico Conte (draxent)
+ *  
+ *	Copyright 2015 Federico Conte
+ *	https://github.com/Draxent/ConnectedComponents
+ * 
+ *	Licensed under the Apache License, Version 2.0 (the "License"); 
+ *	you may not use this file except in compliance with the License. 
+ *	You may obtain a copy of the License at 
+ * 
+ *	http://www.apache.org/licenses/LICENSE-2.0 
+ *  
+ *	Unless required by applicable law or agreed to in writing, software 
+ *	distributed under the License is distributed on an "AS IS" BASIS, 
+ *	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ *	See the License for the specific language governing permissions and 
+ *	limitations under the License. 
+ */
+
+package pad;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.Tool;
+
+/**
+ * Driver responsible for computing the clusters with a concurrent union-find structure.
+ * The SequenceFiles of the edges list <nodeID, neighbourID>, produced by \see InitializationDriver,
+ * are streamed by many threads, one file at a time, which union the two endpoints of each edge
+ * into a shared parent array indexed by node identifier: therefore the identifiers must be smaller than
+ * \see MAX_NODES, otherwise they have to be renamed into dense identifiers before.
+ * The parent array is modified only through compare-and-swap operations, so the threads never lock:
+ * a root is always linked to the smaller root, therefore the root of each set is its minimum node,
+ * and the paths are halved during the find operations.
+ * The result is written in the same format produced by \see TerminationDriver.
+ */
+public class UnionFindDriver extends Configured implements Tool
+{
+	/** Value of the parent array for the identifiers that are not nodes of the graph. */
+	static final int ABSENT = -1;
+	/** Maximum number of entries of the parent array, i.e. the greatest node identifier plus one. */
+	static final long MAX_NODES = Integer.MAX_VALUE - 8;
+	
+	private final Path input, output;
+	private final boolean verbose;
+	private final int parallelism;
+	private long numEdges, numNodes, numClusters;
+	private NodePermutation permutation = null;
+	
+	/**
+	* Initializes a new instance of the UnionFindDriver class, that uses all the available processors.
+	* @param input		path of the result folder of \see InitializationDriver or \see StarDriver Job.
+	* @param output		path of the output folder.
+	* @param verbose	if <c>true</c> shows on screen the messages of the execution.
+	*/
+	public UnionFindDriver( Path input, Path output, boolean verbose )
+	{
+		this( input, output, Runtime.getRuntime().availableProcessors(), verbose );
+	}
+	
+	/**
+	* Initializes a new instance of the UnionFindDriver class.
+	* @param input			path of the result folder of \see InitializationDriver or \see StarDriver Job.
+	* @param output			path of the output folder.
+	* @param parallelism	number of threads that read the input files.
+	* @param verbose		if <c>true</c> shows on screen the messages of the execution.
+	*/
+	public UnionFindDriver( Path input, Path output, int parallelism, boolean verbose )
+	{
+		this.input = input;
+		this.output = output;
+		this.parallelism = parallelism;
+		this.verbose = verbose;
+	}
+	
+	/**
+	* Set the permutation of the node identifiers applied by the \see InitializationDriver, so that the clusters
+	* are written with the original identifiers ( \see NodePermutation ).
+	* By default it is <c>null</c>, i.e. the nodes are not relabelled.
+	* @param permutation	the permutation, or <c>null</c>.
+	*/
+	public void setPermutation( NodePermutation permutation )
+	{
+		this.permutation = permutation;
+	}
+	
+	/**
+	 * Execute the union-find algorithm.
+	 * The input files are read two times: the first pass finds the maximum identifier,
+	 * in order to allocate the parent array, and the second one unions the edges.
+	 * @param args		array of external arguments, not used in this method
+	 * @return 			<c>1</c> if the execution failed; <c>0</c> if everything is ok. 
+	 * @throws Exception 
+	 */
+	public int run( String[] args ) throws Exception
+	{
+		Configuration conf = new Configuration();
+		// GenericOptionsParser invocation in order to suppress the hadoop warning.
+		new GenericOptionsParser( conf, args );
+		FileSystem fs = FileSystem.get( conf );
+		
+		if ( fs.exists( this.output ) )
+			throw new IOException( "Output directory " + this.output + " already exists" );
+		
+		List<Path> files = new ArrayList<Path>();
+		for ( FileStatus fileStatus : fs.listStatus( this.input ) )
+			// Skip the _SUCCESS and _logs entries.
+			if ( fileStatus.getPath().getName().startsWith( "part" ) )
+				files.add( fileStatus.getPath() );
+		
+		// First pass: find the maximum identifier.
+		long maxNodeID = -1;
+		for ( long value : stream( conf, files, null ) )
+			maxNodeID = Math.max( maxNodeID, value );
+		if ( maxNodeID >= MAX_NODES )
+			throw new IOException( "Node identifier " + maxNodeID + " is too large for the parent array, the maximum is " + ( MAX_NODES - 1 ) );
+		
+		// Second pass: union the edges.
+		AtomicIntegerArray parent = new AtomicIntegerArray( (int) maxNodeID + 1 );
+		for ( int i = 0; i <= maxNodeID; i++ )
+			parent.set( i, ABSENT );
+		this.numEdges = 0;
+		for ( long value : stream( conf, files, parent ) )
+			this.numEdges += value;
+		
+		if ( this.verbose )
+			System.out.println( "Processed " + this.numEdges + " edges of " + files.size() + " files." );
+		
+		writeClusters( conf, parent );
+		return 0;
+	}
+	
+	/**
+	 * Return the number of nodes found.
+	 * @return 	number of nodes.
+	 */
+	public long getNumNodes()
+	{
+		return this.numNodes;
+	}
+	
+	/**
+	 * Return the number of clusters found.
+	 * @return 	number of clusters.
+	 */
+	public long getNumClusters()
+	{
+		return this.numClusters;
+	}
+	
+	/**
+	 * Read the input files with a pool of threads.
+	 * @param conf		configuration used to open the files.
+	 * @param files		input files.
+	 * @param parent	parent array where to union the edges, or <c>null</c> to find the maximum identifier.
+	 * @return			the result of each thread: the maximum identifier or the number of edges processed.
+	 * @throws Exception
+	 */
+	private List<Long> stream( final Configuration conf, final List<Path> files, final AtomicIntegerArray parent ) throws Exception
+	{
+		final AtomicInteger nextFile = new AtomicInteger( 0 );
+		ExecutorService pool = Executors.newFixedThreadPool( this.parallelism );
+		try
+		{
+			List<Future<Long>> futures = new ArrayList<Future<Long>>();
+			for ( int t = 0; t < this.parallelism; t++ )
+			{
+				futures.add( pool.submit( new Callable<Long>()
+				{
+					public Long call() throws IOException
+					{
+						NodeWritable nodeID = new NodeWritable();
+						NodeWritable neighbourID = new NodeWritable();
+						long result = ( parent == null ) ? -1 : 0;
+						
+						// Each thread takes the next file not yet processed.
+						for ( int f = nextFile.getAndIncrement(); f < files.size(); f = nextFile.getAndIncrement() )
+						{
+							SequenceFile.Reader reader = new SequenceFile.Reader( conf, SequenceFile.Reader.file( files.get( f ) ) );
+							try
+							{
+								while ( reader.next( nodeID, neighbourID ) )
+								{
+									if ( parent == null )
+										result = Math.max( result, Math.max( nodeID.get(), neighbourID.get() ) );
+									else
+									{
+										int node = (int) nodeID.get();
+										add( parent, node );
+										// Minus one indicates that the node is alone.
+										if ( neighbourID.get() != -1 )
+										{
+											int neighbour = (int) neighbourID.get();
+											add( parent, neighbour );
+											union( parent, node, neighbour );
+											result++;
+										}
+									}
+								}
+							}
+							finally
+							{
+								reader.close();
+							}
+						}
+						return result;
+					}
+				} ) );
+			}
+			
+			List<Long> results = new ArrayList<Long>();
+			for ( Future<Long> future : futures )
+				results.add( future.get() );
+			return results;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Insert a node in the structure, as a singleton set, if it is not already present.
+	 * @param parent	parent array.
+	 * @param node		node identifier.
+	 */
+	static void add( AtomicIntegerArray parent, int node )
+	{
+		if ( parent.get( node ) == ABSENT )
+			parent.compareAndSet( node, ABSENT, node );
+	}
+	
+	/**
+	 * Find the root of the set that contains the node, halving the path towards the root.
+	 * @param parent	parent array.
+	 * @param node		node identifier.
+	 * @return			the root, i.e. the minimum node of the set.
+	 */
+	static int find( AtomicIntegerArray parent, int node )
+	{
+		int p = parent.get( node );
+		while ( p != node )
+		{
+			int grandparent = parent.get( p );
+			// Path halving: it fails only if another thread has already modified the parent of the node.
+			if ( grandparent != p )
+				parent.compareAndSet( node, p, grandparent );
+			node = p;
+			p = parent.get( node );
+		}
+		return node;
+	}
+	
+	/**
+	 * Union the sets that contain the two nodes, linking the greater root to the smaller one.
+	 * If the link fails because another thread has modified the root, the operation is repeated.
+	 * @param parent	parent array.
+	 * @param u			first node identifier.
+	 * @param v			second node identifier.
+	 */
+	static void union( AtomicIntegerArray parent, int u, int v )
+	{
+		while ( true )
+		{
+			u = find( parent, u );
+			v = find( parent, v );
+			if ( u == v )
+				return;
+			
+			int min = Math.min( u, v ), max = Math.max( u, v );
+			if ( parent.compareAndSet( max, max, min ) )
+				return;
+		}
+	}
+	
+	/**
+	 * Write the clusters into the output folder with the same format of \see TerminationReducer,
+	 * i.e. one cluster for each root, with its nodes sorted in ascending order.
+	 * @param conf		configuration used to create the file.
+	 * @param parent	parent array, no more modified by other threads.
+	 * @throws IOException
+	 */
+	private void writeClusters( Configuration conf, AtomicIntegerArray parent ) throws IOException
+	{
+		long[] counts = writeClusters( conf, parent, this.output.suffix( "/part-r-00000" ), this.permutation );
+		this.numNodes = counts[0];
+		this.numClusters = counts[1];
+	}
+	
+	/**
+	 * Write the clusters of the parent array into the given SequenceFile, one cluster for each root,
+	 * with its nodes sorted in ascending order.
+	 * @param conf		configuration used to create the file.
+	 * @param parent	parent array, no more modified by other threads.
+	 * @param file		path of the SequenceFile.
+	 * @param permutation	permutation of the node identifiers to invert, or <c>null</c>.
+	 * @return			the number of nodes and the number of clusters written.
+	 * @throws IOException
+	 */
+	static long[] writeClusters( Configuration conf, AtomicIntegerArray parent, Path file, NodePermutation permutation ) throws IOException
+	{
+		// Link the nodes of each set in a list starting from its root. Since the root is the minimum
+		// of the set, visiting the nodes in descending order and inserting them after the root
+		// produces the lists sorted in ascending order.
+		int[] next = new int[parent.length()];
+		Arrays.fill( next, ABSENT );
+		for ( int node = parent.length() - 1; node >= 0; node-- )
+		{
+			if ( parent.get( node ) == ABSENT )
+				continue;
+			
+			int root = find( parent, node );
+			if ( root != node )
+			{
+				next[node] = next[root];
+				next[root] = node;
+			}
+		}
+		
+		long numNodes = 0, numClusters = 0;
+		ClusterWritable cluster = new ClusterWritable();
+		SequenceFile.Writer writer = SequenceFile.createWriter( conf, SequenceFile.Writer.file( file ),
+				SequenceFile.Writer.keyClass( ClusterWritable.class ), SequenceFile.Writer.valueClass( NullWritable.class ) );
+		try
+		{
+			for ( int root = 0; root < parent.length(); root++ )
+			{
+				if ( parent.get( root ) != root )
+					continue;
+				
+				cluster.clear();
+				for ( int node = root; node != ABSENT; node = next[node] )
+					cluster.add( node );
+				if ( permutation != null )
+					permutation.invert( cluster );
+				
+				numNodes += cluster.size();
+				numClusters++;
+				writer.append( cluster, NullWritable.get() );
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+		return new long[] { numNodes, numClusters };
+	}
+	
+	/**
+	 * Main of the \see UnionFindDriver class.
+	 * @param args	array of external arguments,
+	 * @throws Exception
+	 */
+	public static void main( String[] args ) throws Exception 
+	{	
+		if ( args.length != 2 )
+		{
+			System.out.println( "Usage: UnionFindDriver <input> <output>" );
+			System.exit(1);
+		}
+		
+		Path input = new Path( args[0] );
+		Path output = new Path( args[1] );
+		System.out.println( "Start UnionFindDriver. " );
+		UnionFindDriver uf = new UnionFindDriver( input, output, true );
+		if ( uf.run( null ) != 0  )
+		{
+			FileSystem.get( new Configuration() ).delete( output, true  );
+			System.exit( 1 );
+		}
+		System.out.println( "End UnionFindDriver." );
+		
+		System.out.println( "Number of nodes: " + uf.getNumNodes() );
+		System.out.println( "Number of Clusters: " + uf.getNumClusters() );
+		System.exit( 0 );
+	}
+}
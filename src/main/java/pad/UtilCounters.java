@@ -4,14 +4,26 @@ public enum UtilCounters
 {
 	///  Count the number of initial nodes in the graph.
 	NUM_INITIAL_NODES,
+	/// Sum of the checksums of the initial nodes in the graph ( \see NodeWritable.checksum ).
+	INITIAL_NODES_CHECKSUM,
 	/// Count the number of cliques in the graph (used only if the input is format as clique list).
 	NUM_CLIQUES,
 	/// Count the number of nodes found.
 	NUM_NODES,
+	/// Sum of the checksums of the nodes found ( \see NodeWritable.checksum ).
+	NODES_CHECKSUM,
 	/// Count the number of clusters found.
 	NUM_CLUSTERS,
+	/// Count the records of the binary edges list rejected by the \see InitializationMapperBinary Tasks for a negative identifier.
+	NUM_MALFORMED_RECORDS,
 	/// Count the number of changes occurred during the operation Small-Star or Large-Star.
 	NUM_CHANGES,
 	/// Count the number of clusters found malformed from the \see CheckReducer Tasks.
-	NUM_ERRORS
+	NUM_ERRORS,
+	/// Count the number of times the in-mapper combining of the \see StarMapper Tasks flushed a full set of pairs.
+	IN_MAPPER_FLUSHES,
+	/// Count the bytes of the duplicate pairs discarded by the in-mapper combining of the \see StarMapper Tasks.
+	IN_MAPPER_BYTES_SAVED,
+	/// Count the number of edges of the finished stars moved to the "finished" side output by the \see StarReducer Tasks.
+	NUM_FINISHED
 }